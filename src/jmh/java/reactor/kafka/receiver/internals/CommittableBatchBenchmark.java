@@ -0,0 +1,172 @@
+/*
+ * Copyright (c) 2023 VMware Inc. or its affiliates, All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package reactor.kafka.receiver.internals;
+
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.consumer.ConsumerRecords;
+import org.apache.kafka.common.TopicPartition;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.ThreadParams;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Acknowledgement throughput of {@link CommittableBatch} while the first thread also commits, as the
+ * event loop would. {@link #acknowledge(Processor)} uses one processing thread per partition, while
+ * {@link #acknowledgeSharedPartition(Processor)} has all threads acknowledge records of the same
+ * partition, as when the records of a partition are processed concurrently, so that they contend
+ * for its offset window. Run with increasing thread counts to check how acknowledgements scale, e.g.
+ * <code>./gradlew jmh -PjmhIncludes=CommittableBatchBenchmark -PjmhThreads=32</code>.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class CommittableBatchBenchmark {
+
+    static final int RECORDS = 1024;
+
+    /* Number of record batches of the shared partition received before its offsets are reused */
+    static final int SHARED_BATCHES = 64;
+
+    @Param({"false", "true"})
+    public boolean outOfOrderCommits;
+
+    final TopicPartition sharedPartition = new TopicPartition("benchmark-shared", 0);
+
+    final Collection<TopicPartition> sharedPartitions = Collections.singleton(sharedPartition);
+
+    CommittableBatch batch;
+
+    ConsumerRecords<String, String>[] sharedRecords;
+
+    /* Index of the next record batch of the shared partition, guarded by this benchmark */
+    int sharedBatch;
+
+    @Setup(Level.Iteration)
+    @SuppressWarnings("unchecked")
+    public void setup() {
+        batch = new CommittableBatch();
+        batch.outOfOrderCommits = outOfOrderCommits;
+        sharedRecords = new ConsumerRecords[SHARED_BATCHES];
+        for (int i = 0; i < SHARED_BATCHES; i++) {
+            List<ConsumerRecord<String, String>> list = new ArrayList<>(RECORDS);
+            for (long offset = (long) i * RECORDS; offset < (long) (i + 1) * RECORDS; offset++) {
+                list.add(new ConsumerRecord<>(sharedPartition.topic(), sharedPartition.partition(), offset, null, null));
+            }
+            sharedRecords[i] = new ConsumerRecords<>(Collections.singletonMap(sharedPartition, list));
+        }
+        sharedBatch = 0;
+    }
+
+    @State(Scope.Thread)
+    public static class Processor {
+
+        TopicPartition partition;
+
+        Collection<TopicPartition> partitions;
+
+        ConsumerRecords<String, String> records;
+
+        long[] ackOrder;
+
+        boolean committer;
+
+        @Setup(Level.Trial)
+        public void setup(CommittableBatchBenchmark benchmark, ThreadParams threadParams) {
+            partition = new TopicPartition("benchmark", threadParams.getThreadIndex());
+            partitions = Collections.singleton(partition);
+            committer = threadParams.getThreadIndex() == 0;
+            List<ConsumerRecord<String, String>> list = new ArrayList<>(RECORDS);
+            List<Long> offsets = new ArrayList<>(RECORDS);
+            for (long offset = 0; offset < RECORDS; offset++) {
+                list.add(new ConsumerRecord<>(partition.topic(), partition.partition(), offset, null, null));
+                offsets.add(offset);
+            }
+            records = new ConsumerRecords<>(Collections.singletonMap(partition, list));
+            if (benchmark.outOfOrderCommits) {
+                Collections.shuffle(offsets, new Random(threadParams.getThreadIndex()));
+            }
+            ackOrder = new long[RECORDS];
+            for (int i = 0; i < RECORDS; i++) {
+                ackOrder[i] = offsets.get(i);
+            }
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(RECORDS)
+    public int acknowledge(Processor processor) {
+        CommittableBatch batch = this.batch;
+        batch.addUncommitted(processor.records);
+        int batchSize = 0;
+        for (long offset : processor.ackOrder) {
+            batchSize = batch.updateOffset(processor.partition, offset);
+        }
+        if (processor.committer) {
+            batch.getAndClearOffsets();
+        }
+        if (outOfOrderCommits) {
+            // start from an empty window so that the same offsets can be received again
+            batch.partitionsRevoked(processor.partitions);
+        }
+        return batchSize;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(RECORDS)
+    public int acknowledgeSharedPartition(Processor processor) {
+        CommittableBatch batch = this.batch;
+        long start;
+        synchronized (this) {
+            // records are received in offset order by a single thread, as by the event loop
+            int index = sharedBatch;
+            sharedBatch = (index + 1) % SHARED_BATCHES;
+            if (index == 0) {
+                // the offsets are reused from the start, acks of the batches still in progress are dropped
+                batch.partitionsRevoked(sharedPartitions);
+            }
+            start = (long) index * RECORDS;
+            batch.addUncommitted(sharedRecords[index]);
+        }
+        int batchSize = 0;
+        for (long offset : processor.ackOrder) {
+            batchSize = batch.updateOffset(sharedPartition, start + offset);
+        }
+        if (processor.committer) {
+            batch.getAndClearOffsets();
+        }
+        return batchSize;
+    }
+}
@@ -0,0 +1,124 @@
+/*
+ * Copyright (c) 2023 VMware Inc. or its affiliates, All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package reactor.kafka.receiver;
+
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.common.TopicPartition;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.kafka.receiver.internals.DefaultDeduplicator;
+import reactor.util.annotation.Nullable;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Collection;
+import java.util.function.Function;
+
+/**
+ * Drops records whose id was processed recently, for at-least-once pipelines in which records are
+ * redelivered after rebalances or failed commits. The id of each record is obtained with a
+ * user-supplied function, and is remembered when the record is acknowledged or committed through
+ * its {@link ReceiverOffset}. A record whose id is remembered for its partition is acknowledged
+ * and not emitted. Records that are emitted again before the first delivery was acknowledged are
+ * not dropped.
+ * <p>
+ * Each partition remembers up to a maximum number of ids for a maximum duration, as 64-bit
+ * fingerprints in direct memory. If a snapshot file is configured, the remembered ids are
+ * restored from the last snapshot when records are first received. Remembered ids are not stored
+ * with committed offsets, so a partition assigned to another consumer is only deduplicated from
+ * the ids that consumer restored from a snapshot. The ids of a partition are kept until it is
+ * forgotten with {@link #forget(Collection)}, typically when the partition is revoked:
+ * <pre>
+ * {@code
+ *     receiverOptions.addRevokeListener(partitions -> deduplicator.forget(
+ *         partitions.stream().map(ReceiverPartition::topicPartition).collect(Collectors.toList())))
+ * }
+ * </pre>
+ * <p>
+ * A deduplicator is applied to the records of a receiver:
+ * <pre>
+ * {@code
+ *     receiver.receive().transform(deduplicator).concatMap(this::process)
+ * }
+ * </pre>
+ *
+ * @param <K> incoming record key type
+ * @param <V> incoming record value type
+ * @since 1.3.16
+ */
+public interface Deduplicator<K, V> extends Function<Flux<ReceiverRecord<K, V>>, Flux<ReceiverRecord<K, V>>> {
+
+    /**
+     * Creates a deduplicator without a snapshot file.
+     *
+     * @param idExtractor function returning the id of a record, or null if the record must not be deduplicated
+     * @param maxIdsPerPartition the maximum number of ids remembered for each partition
+     * @param maxAge the duration for which an id is remembered
+     * @return new deduplicator instance
+     */
+    static <K, V> Deduplicator<K, V> create(Function<? super ConsumerRecord<K, V>, byte[]> idExtractor,
+                                            int maxIdsPerPartition, Duration maxAge) {
+        return new DefaultDeduplicator<>(idExtractor, maxIdsPerPartition, maxAge, null);
+    }
+
+    /**
+     * Creates a deduplicator that restores the remembered ids from <code>snapshot</code> if the file exists.
+     *
+     * @param idExtractor function returning the id of a record, or null if the record must not be deduplicated
+     * @param maxIdsPerPartition the maximum number of ids remembered for each partition
+     * @param maxAge the duration for which an id is remembered
+     * @param snapshot the snapshot file, or null to start without remembered ids
+     * @return new deduplicator instance
+     */
+    static <K, V> Deduplicator<K, V> create(Function<? super ConsumerRecord<K, V>, byte[]> idExtractor,
+                                            int maxIdsPerPartition, Duration maxAge, @Nullable Path snapshot) {
+        return new DefaultDeduplicator<>(idExtractor, maxIdsPerPartition, maxAge, snapshot);
+    }
+
+    /**
+     * Returns the records that were not processed recently. Remembered duplicates are acknowledged
+     * and dropped.
+     *
+     * @param records records of a receiver
+     * @return records whose ids are not remembered
+     */
+    @Override
+    Flux<ReceiverRecord<K, V>> apply(Flux<ReceiverRecord<K, V>> records);
+
+    /**
+     * Returns the number of records that were dropped as duplicates.
+     *
+     * @return the number of dropped records
+     */
+    long duplicates();
+
+    /**
+     * Writes the remembered ids of all partitions to the snapshot file, replacing the previous snapshot.
+     *
+     * @return Mono that completes when the snapshot is written, or fails with {@link IllegalStateException}
+     *         if no snapshot file is configured
+     */
+    Mono<Void> snapshot();
+
+    /**
+     * Forgets the remembered ids of partitions and releases their memory. Records of these partitions
+     * received later are deduplicated from the ids remembered after this call.
+     *
+     * @param partitions the partitions whose ids are no longer needed, usually because they were revoked
+     */
+    void forget(Collection<TopicPartition> partitions);
+}
@@ -0,0 +1,124 @@
+/*
+ * Copyright (c) 2023 VMware Inc. or its affiliates, All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package reactor.kafka.receiver;
+
+import org.apache.kafka.clients.consumer.OffsetAndMetadata;
+import org.apache.kafka.common.TopicPartition;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Properties;
+
+/**
+ * {@link OffsetStore} that keeps the offsets of all partitions in a properties file, for tests
+ * and applications without an external database. The file is replaced atomically on each write.
+ * An instance should not be shared by receivers of different consumer groups.
+ *
+ * @since 1.3.16
+ */
+public class FileOffsetStore implements OffsetStore {
+
+    private final Path file;
+
+    private final Map<TopicPartition, OffsetAndMetadata> offsets = new HashMap<>();
+
+    private boolean loaded;
+
+    /**
+     * Creates an offset store backed by <code>file</code>, which is created on the first write.
+     * @param file the file that stores the offsets
+     */
+    public FileOffsetStore(Path file) {
+        this.file = file;
+    }
+
+    @Override
+    public Mono<Void> store(Map<TopicPartition, OffsetAndMetadata> offsets) {
+        return Mono.<Void>fromRunnable(() -> write(offsets))
+            .subscribeOn(Schedulers.boundedElastic());
+    }
+
+    @Override
+    public Mono<Map<TopicPartition, OffsetAndMetadata>> load(Collection<TopicPartition> partitions) {
+        return Mono.fromCallable(() -> {
+            Map<TopicPartition, OffsetAndMetadata> result = new HashMap<>();
+            synchronized (this) {
+                readIfRequired();
+                for (TopicPartition partition : partitions) {
+                    OffsetAndMetadata offset = this.offsets.get(partition);
+                    if (offset != null) {
+                        result.put(partition, offset);
+                    }
+                }
+            }
+            return result;
+        });
+    }
+
+    private synchronized void write(Map<TopicPartition, OffsetAndMetadata> offsets) {
+        readIfRequired();
+        this.offsets.putAll(offsets);
+        Properties properties = new Properties();
+        this.offsets.forEach((partition, offset) ->
+            properties.setProperty(partition.topic() + ":" + partition.partition(),
+                offset.offset() + ":" + (offset.metadata() == null ? "" : offset.metadata())));
+        try {
+            Path parent = file.toAbsolutePath().getParent();
+            Path temp = Files.createTempFile(parent, file.getFileName().toString(), ".tmp");
+            try (OutputStream out = Files.newOutputStream(temp)) {
+                properties.store(out, "Offsets stored by reactor-kafka");
+            }
+            Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to store offsets in " + file, e);
+        }
+    }
+
+    private void readIfRequired() {
+        if (loaded) {
+            return;
+        }
+        if (Files.exists(file)) {
+            Properties properties = new Properties();
+            try (InputStream in = Files.newInputStream(file)) {
+                properties.load(in);
+            } catch (IOException e) {
+                throw new UncheckedIOException("Failed to load offsets from " + file, e);
+            }
+            for (String key : properties.stringPropertyNames()) {
+                int partitionIndex = key.lastIndexOf(':');
+                String value = properties.getProperty(key);
+                int metadataIndex = value.indexOf(':');
+                TopicPartition partition = new TopicPartition(key.substring(0, partitionIndex),
+                    Integer.parseInt(key.substring(partitionIndex + 1)));
+                offsets.put(partition, new OffsetAndMetadata(Long.parseLong(value.substring(0, metadataIndex)),
+                    value.substring(metadataIndex + 1)));
+            }
+        }
+        loaded = true;
+    }
+}
@@ -17,6 +17,7 @@
 package reactor.kafka.receiver;
 
 import org.apache.kafka.clients.consumer.ConsumerConfig;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
 import org.apache.kafka.common.TopicPartition;
 import org.apache.kafka.common.config.ConfigException;
 import org.apache.kafka.common.serialization.Deserializer;
@@ -32,6 +33,7 @@ import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Properties;
+import java.util.function.BiConsumer;
 import java.util.function.Consumer;
 import java.util.function.Supplier;
 import java.util.regex.Pattern;
@@ -42,6 +44,7 @@ class ImmutableReceiverOptions<K, V> implements ReceiverOptions<K, V> {
     private static final Duration DEFAULT_POLL_TIMEOUT = Duration.ofMillis(100);
     private static final int DEFAULT_MAX_COMMIT_ATTEMPTS = 100;
     private static final Duration DEFAULT_COMMIT_RETRY_INTERVAL = Duration.ofMillis(500);
+    private static final Duration DEFAULT_TRANSACTION_MAX_DURATION = Duration.ofMillis(5000);
 
     private final Map<String, Object> properties;
     private final List<Consumer<Collection<ReceiverPartition>>> assignListeners;
@@ -60,6 +63,14 @@ class ImmutableReceiverOptions<K, V> implements ReceiverOptions<K, V> {
     private final int maxDeferredCommits;
     private final Duration maxDelayRebalance;
     private final long commitIntervalDuringDelay;
+    private final int maxInFlightPerPartition;
+    private final String eventLoopGroup;
+    private final int eventLoopGroupThreads;
+    private final boolean virtualThreads;
+    private final boolean persistAckedOffsets;
+    private final OffsetStore offsetStore;
+    private final Scheduler deserializationScheduler;
+    private final BiConsumer<ConsumerRecord<byte[], byte[]>, Throwable> deserializationErrorHandler;
     private final Collection<String> subscribeTopics;
     private final Collection<TopicPartition> assignTopicPartitions;
     private final Pattern subscribePattern;
@@ -97,6 +108,18 @@ class ImmutableReceiverOptions<K, V> implements ReceiverOptions<K, V> {
         maxDeferredCommits = 0;
         maxDelayRebalance = Duration.ofSeconds(60);
         commitIntervalDuringDelay = 100L;
+        maxInFlightPerPartition = 0;
+        eventLoopGroup = null;
+        eventLoopGroupThreads = 0;
+        virtualThreads = false;
+        persistAckedOffsets = false;
+        offsetStore = null;
+        deserializationScheduler = null;
+        deserializationErrorHandler = null;
+        rawRecordFilter = null;
+        transactionMaxRecords = 0;
+        transactionMaxBytes = 0;
+        transactionMaxDuration = null;
         subscribeTopics = null;
         assignTopicPartitions = null;
         subscribePattern = null;
@@ -120,6 +143,18 @@ class ImmutableReceiverOptions<K, V> implements ReceiverOptions<K, V> {
         int maxDeferredCommits,
         Duration maxDelayRebalance,
         long commitIntervalDuringDelay,
+        int maxInFlightPerPartition,
+        String eventLoopGroup,
+        int eventLoopGroupThreads,
+        boolean virtualThreads,
+        boolean persistAckedOffsets,
+        OffsetStore offsetStore,
+        Scheduler deserializationScheduler,
+        BiConsumer<ConsumerRecord<byte[], byte[]>, Throwable> deserializationErrorHandler,
+        RawRecordFilter rawRecordFilter,
+        int transactionMaxRecords,
+        long transactionMaxBytes,
+        Duration transactionMaxDuration,
         Collection<String> topics,
         Collection<TopicPartition> partitions,
         Pattern pattern,
@@ -140,6 +175,18 @@ class ImmutableReceiverOptions<K, V> implements ReceiverOptions<K, V> {
         this.maxDeferredCommits = maxDeferredCommits;
         this.maxDelayRebalance = maxDelayRebalance;
         this.commitIntervalDuringDelay = commitIntervalDuringDelay;
+        this.maxInFlightPerPartition = maxInFlightPerPartition;
+        this.eventLoopGroup = eventLoopGroup;
+        this.eventLoopGroupThreads = eventLoopGroupThreads;
+        this.virtualThreads = virtualThreads;
+        this.persistAckedOffsets = persistAckedOffsets;
+        this.offsetStore = offsetStore;
+        this.deserializationScheduler = deserializationScheduler;
+        this.deserializationErrorHandler = deserializationErrorHandler;
+        this.rawRecordFilter = rawRecordFilter;
+        this.transactionMaxRecords = transactionMaxRecords;
+        this.transactionMaxBytes = transactionMaxBytes;
+        this.transactionMaxDuration = transactionMaxDuration;
         this.subscribeTopics = topics == null ? null : new HashSet<>(topics);
         this.assignTopicPartitions = partitions == null ? null : new HashSet<>(partitions);
         this.subscribePattern = pattern;
@@ -180,6 +227,18 @@ class ImmutableReceiverOptions<K, V> implements ReceiverOptions<K, V> {
                 maxDeferredCommits,
                 maxDelayRebalance,
                 commitIntervalDuringDelay,
+                maxInFlightPerPartition,
+                eventLoopGroup,
+                eventLoopGroupThreads,
+                virtualThreads,
+                persistAckedOffsets,
+                offsetStore,
+                deserializationScheduler,
+                deserializationErrorHandler,
+                rawRecordFilter,
+                transactionMaxRecords,
+                transactionMaxBytes,
+                transactionMaxDuration,
                 subscribeTopics,
                 assignTopicPartitions,
                 subscribePattern,
@@ -205,6 +264,18 @@ class ImmutableReceiverOptions<K, V> implements ReceiverOptions<K, V> {
                 maxDeferredCommits,
                 maxDelayRebalance,
                 commitIntervalDuringDelay,
+                maxInFlightPerPartition,
+                eventLoopGroup,
+                eventLoopGroupThreads,
+                virtualThreads,
+                persistAckedOffsets,
+                offsetStore,
+                deserializationScheduler,
+                deserializationErrorHandler,
+                rawRecordFilter,
+                transactionMaxRecords,
+                transactionMaxBytes,
+                transactionMaxDuration,
                 subscribeTopics,
                 assignTopicPartitions,
                 subscribePattern,
@@ -235,6 +306,18 @@ class ImmutableReceiverOptions<K, V> implements ReceiverOptions<K, V> {
                 maxDeferredCommits,
                 maxDelayRebalance,
                 commitIntervalDuringDelay,
+                maxInFlightPerPartition,
+                eventLoopGroup,
+                eventLoopGroupThreads,
+                virtualThreads,
+                persistAckedOffsets,
+                offsetStore,
+                deserializationScheduler,
+                deserializationErrorHandler,
+                rawRecordFilter,
+                transactionMaxRecords,
+                transactionMaxBytes,
+                transactionMaxDuration,
                 subscribeTopics,
                 assignTopicPartitions,
                 subscribePattern,
@@ -273,6 +356,18 @@ class ImmutableReceiverOptions<K, V> implements ReceiverOptions<K, V> {
                 maxDeferredCommits,
                 maxDelayRebalance,
                 commitIntervalDuringDelay,
+                maxInFlightPerPartition,
+                eventLoopGroup,
+                eventLoopGroupThreads,
+                virtualThreads,
+                persistAckedOffsets,
+                offsetStore,
+                deserializationScheduler,
+                deserializationErrorHandler,
+                rawRecordFilter,
+                transactionMaxRecords,
+                transactionMaxBytes,
+                transactionMaxDuration,
                 subscribeTopics,
                 assignTopicPartitions,
                 subscribePattern,
@@ -306,6 +401,18 @@ class ImmutableReceiverOptions<K, V> implements ReceiverOptions<K, V> {
                 maxDeferredCommits,
                 maxDelayRebalance,
                 commitIntervalDuringDelay,
+                maxInFlightPerPartition,
+                eventLoopGroup,
+                eventLoopGroupThreads,
+                virtualThreads,
+                persistAckedOffsets,
+                offsetStore,
+                deserializationScheduler,
+                deserializationErrorHandler,
+                rawRecordFilter,
+                transactionMaxRecords,
+                transactionMaxBytes,
+                transactionMaxDuration,
                 subscribeTopics,
                 assignTopicPartitions,
                 subscribePattern,
@@ -336,6 +443,18 @@ class ImmutableReceiverOptions<K, V> implements ReceiverOptions<K, V> {
                 maxDeferredCommits,
                 maxDelayRebalance,
                 commitIntervalDuringDelay,
+                maxInFlightPerPartition,
+                eventLoopGroup,
+                eventLoopGroupThreads,
+                virtualThreads,
+                persistAckedOffsets,
+                offsetStore,
+                deserializationScheduler,
+                deserializationErrorHandler,
+                rawRecordFilter,
+                transactionMaxRecords,
+                transactionMaxBytes,
+                transactionMaxDuration,
                 subscribeTopics,
                 assignTopicPartitions,
                 subscribePattern,
@@ -366,6 +485,18 @@ class ImmutableReceiverOptions<K, V> implements ReceiverOptions<K, V> {
                 maxDeferredCommits,
                 maxDelayRebalance,
                 commitIntervalDuringDelay,
+                maxInFlightPerPartition,
+                eventLoopGroup,
+                eventLoopGroupThreads,
+                virtualThreads,
+                persistAckedOffsets,
+                offsetStore,
+                deserializationScheduler,
+                deserializationErrorHandler,
+                rawRecordFilter,
+                transactionMaxRecords,
+                transactionMaxBytes,
+                transactionMaxDuration,
                 subscribeTopics,
                 assignTopicPartitions,
                 subscribePattern,
@@ -391,6 +522,18 @@ class ImmutableReceiverOptions<K, V> implements ReceiverOptions<K, V> {
                 maxDeferredCommits,
                 maxDelayRebalance,
                 commitIntervalDuringDelay,
+                maxInFlightPerPartition,
+                eventLoopGroup,
+                eventLoopGroupThreads,
+                virtualThreads,
+                persistAckedOffsets,
+                offsetStore,
+                deserializationScheduler,
+                deserializationErrorHandler,
+                rawRecordFilter,
+                transactionMaxRecords,
+                transactionMaxBytes,
+                transactionMaxDuration,
                 subscribeTopics,
                 assignTopicPartitions,
                 subscribePattern,
@@ -416,6 +559,18 @@ class ImmutableReceiverOptions<K, V> implements ReceiverOptions<K, V> {
                 maxDeferredCommits,
                 maxDelayRebalance,
                 commitIntervalDuringDelay,
+                maxInFlightPerPartition,
+                eventLoopGroup,
+                eventLoopGroupThreads,
+                virtualThreads,
+                persistAckedOffsets,
+                offsetStore,
+                deserializationScheduler,
+                deserializationErrorHandler,
+                rawRecordFilter,
+                transactionMaxRecords,
+                transactionMaxBytes,
+                transactionMaxDuration,
                 subscribeTopics,
                 assignTopicPartitions,
                 subscribePattern,
@@ -451,6 +606,18 @@ class ImmutableReceiverOptions<K, V> implements ReceiverOptions<K, V> {
                 maxDeferredCommits,
                 maxDelayRebalance,
                 commitIntervalDuringDelay,
+                maxInFlightPerPartition,
+                eventLoopGroup,
+                eventLoopGroupThreads,
+                virtualThreads,
+                persistAckedOffsets,
+                offsetStore,
+                deserializationScheduler,
+                deserializationErrorHandler,
+                rawRecordFilter,
+                transactionMaxRecords,
+                transactionMaxBytes,
+                transactionMaxDuration,
                 Objects.requireNonNull(topics),
                 null,
                 null,
@@ -476,6 +643,18 @@ class ImmutableReceiverOptions<K, V> implements ReceiverOptions<K, V> {
                 maxDeferredCommits,
                 maxDelayRebalance,
                 commitIntervalDuringDelay,
+                maxInFlightPerPartition,
+                eventLoopGroup,
+                eventLoopGroupThreads,
+                virtualThreads,
+                persistAckedOffsets,
+                offsetStore,
+                deserializationScheduler,
+                deserializationErrorHandler,
+                rawRecordFilter,
+                transactionMaxRecords,
+                transactionMaxBytes,
+                transactionMaxDuration,
                 null,
                 null,
                 Objects.requireNonNull(pattern),
@@ -501,6 +680,18 @@ class ImmutableReceiverOptions<K, V> implements ReceiverOptions<K, V> {
                 maxDeferredCommits,
                 maxDelayRebalance,
                 commitIntervalDuringDelay,
+                maxInFlightPerPartition,
+                eventLoopGroup,
+                eventLoopGroupThreads,
+                virtualThreads,
+                persistAckedOffsets,
+                offsetStore,
+                deserializationScheduler,
+                deserializationErrorHandler,
+                rawRecordFilter,
+                transactionMaxRecords,
+                transactionMaxBytes,
+                transactionMaxDuration,
                 null,
                 Objects.requireNonNull(partitions),
                 null,
@@ -561,6 +752,18 @@ class ImmutableReceiverOptions<K, V> implements ReceiverOptions<K, V> {
                 maxDeferredCommits,
                 maxDelayRebalance,
                 commitIntervalDuringDelay,
+                maxInFlightPerPartition,
+                eventLoopGroup,
+                eventLoopGroupThreads,
+                virtualThreads,
+                persistAckedOffsets,
+                offsetStore,
+                deserializationScheduler,
+                deserializationErrorHandler,
+                rawRecordFilter,
+                transactionMaxRecords,
+                transactionMaxBytes,
+                transactionMaxDuration,
                 subscribeTopics,
                 assignTopicPartitions,
                 subscribePattern,
@@ -594,6 +797,18 @@ class ImmutableReceiverOptions<K, V> implements ReceiverOptions<K, V> {
                 maxDeferredCommits,
                 maxDelayRebalance,
                 commitIntervalDuringDelay,
+                maxInFlightPerPartition,
+                eventLoopGroup,
+                eventLoopGroupThreads,
+                virtualThreads,
+                persistAckedOffsets,
+                offsetStore,
+                deserializationScheduler,
+                deserializationErrorHandler,
+                rawRecordFilter,
+                transactionMaxRecords,
+                transactionMaxBytes,
+                transactionMaxDuration,
                 subscribeTopics,
                 assignTopicPartitions,
                 subscribePattern,
@@ -627,6 +842,18 @@ class ImmutableReceiverOptions<K, V> implements ReceiverOptions<K, V> {
                 maxDeferredCommits,
                 maxDelayRebalance,
                 commitIntervalDuringDelay,
+                maxInFlightPerPartition,
+                eventLoopGroup,
+                eventLoopGroupThreads,
+                virtualThreads,
+                persistAckedOffsets,
+                offsetStore,
+                deserializationScheduler,
+                deserializationErrorHandler,
+                rawRecordFilter,
+                transactionMaxRecords,
+                transactionMaxBytes,
+                transactionMaxDuration,
                 subscribeTopics,
                 assignTopicPartitions,
                 subscribePattern,
@@ -660,6 +887,18 @@ class ImmutableReceiverOptions<K, V> implements ReceiverOptions<K, V> {
                 maxDeferredCommits,
                 maxDelayRebalance,
                 commitIntervalDuringDelay,
+                maxInFlightPerPartition,
+                eventLoopGroup,
+                eventLoopGroupThreads,
+                virtualThreads,
+                persistAckedOffsets,
+                offsetStore,
+                deserializationScheduler,
+                deserializationErrorHandler,
+                rawRecordFilter,
+                transactionMaxRecords,
+                transactionMaxBytes,
+                transactionMaxDuration,
                 subscribeTopics,
                 assignTopicPartitions,
                 subscribePattern,
@@ -690,6 +929,18 @@ class ImmutableReceiverOptions<K, V> implements ReceiverOptions<K, V> {
             maxDeferred,
             maxDelayRebalance,
             commitIntervalDuringDelay,
+            maxInFlightPerPartition,
+            eventLoopGroup,
+            eventLoopGroupThreads,
+            virtualThreads,
+            persistAckedOffsets,
+            offsetStore,
+            deserializationScheduler,
+            deserializationErrorHandler,
+            rawRecordFilter,
+            transactionMaxRecords,
+            transactionMaxBytes,
+            transactionMaxDuration,
             subscribeTopics,
             assignTopicPartitions,
             subscribePattern,
@@ -720,6 +971,18 @@ class ImmutableReceiverOptions<K, V> implements ReceiverOptions<K, V> {
                 maxDeferredCommits,
                 maxDelay,
                 commitIntervalDuringDelay,
+                maxInFlightPerPartition,
+                eventLoopGroup,
+                eventLoopGroupThreads,
+                virtualThreads,
+                persistAckedOffsets,
+                offsetStore,
+                deserializationScheduler,
+                deserializationErrorHandler,
+                rawRecordFilter,
+                transactionMaxRecords,
+                transactionMaxBytes,
+                transactionMaxDuration,
                 subscribeTopics,
                 assignTopicPartitions,
                 subscribePattern,
@@ -749,6 +1012,18 @@ class ImmutableReceiverOptions<K, V> implements ReceiverOptions<K, V> {
                 maxDeferredCommits,
                 maxDelayRebalance,
                 interval,
+                maxInFlightPerPartition,
+                eventLoopGroup,
+                eventLoopGroupThreads,
+                virtualThreads,
+                persistAckedOffsets,
+                offsetStore,
+                deserializationScheduler,
+                deserializationErrorHandler,
+                rawRecordFilter,
+                transactionMaxRecords,
+                transactionMaxBytes,
+                transactionMaxDuration,
                 subscribeTopics,
                 assignTopicPartitions,
                 subscribePattern,
@@ -756,6 +1031,493 @@ class ImmutableReceiverOptions<K, V> implements ReceiverOptions<K, V> {
             );
     }
 
+    @Override
+    public int maxInFlightPerPartition() {
+        return this.maxInFlightPerPartition;
+    }
+
+    @Override
+    public ReceiverOptions<K, V> maxInFlightPerPartition(int maxInFlight) {
+        if (maxInFlight < 0)
+            throw new IllegalArgumentException("Max in-flight records per partition must be >= 0");
+
+        return new ImmutableReceiverOptions<>(
+                properties,
+                assignListeners,
+                revokeListeners,
+                keyDeserializer,
+                valueDeserializer,
+                pollTimeout,
+                closeTimeout,
+                commitInterval,
+                commitBatchSize,
+                atmostOnceCommitAheadSize,
+                maxCommitAttempts,
+                commitRetryInterval,
+                maxDeferredCommits,
+                maxDelayRebalance,
+                commitIntervalDuringDelay,
+                maxInFlight,
+                eventLoopGroup,
+                eventLoopGroupThreads,
+                virtualThreads,
+                persistAckedOffsets,
+                offsetStore,
+                deserializationScheduler,
+                deserializationErrorHandler,
+                rawRecordFilter,
+                transactionMaxRecords,
+                transactionMaxBytes,
+                transactionMaxDuration,
+                subscribeTopics,
+                assignTopicPartitions,
+                subscribePattern,
+                schedulerSupplier
+        );
+    }
+
+    @Override
+    public String eventLoopGroup() {
+        return eventLoopGroup;
+    }
+
+    @Override
+    public int eventLoopGroupThreads() {
+        return eventLoopGroupThreads;
+    }
+
+    @Override
+    public ReceiverOptions<K, V> eventLoopGroup(String name, int threads) {
+        Objects.requireNonNull(name);
+        if (threads <= 0)
+            throw new IllegalArgumentException("Event loop group threads must be > 0");
+
+        return new ImmutableReceiverOptions<>(
+                properties,
+                assignListeners,
+                revokeListeners,
+                keyDeserializer,
+                valueDeserializer,
+                pollTimeout,
+                closeTimeout,
+                commitInterval,
+                commitBatchSize,
+                atmostOnceCommitAheadSize,
+                maxCommitAttempts,
+                commitRetryInterval,
+                maxDeferredCommits,
+                maxDelayRebalance,
+                commitIntervalDuringDelay,
+                maxInFlightPerPartition,
+                name,
+                threads,
+                virtualThreads,
+                persistAckedOffsets,
+                offsetStore,
+                deserializationScheduler,
+                deserializationErrorHandler,
+                rawRecordFilter,
+                transactionMaxRecords,
+                transactionMaxBytes,
+                transactionMaxDuration,
+                subscribeTopics,
+                assignTopicPartitions,
+                subscribePattern,
+                schedulerSupplier
+        );
+    }
+
+    @Override
+    public boolean virtualThreads() {
+        return virtualThreads;
+    }
+
+    @Override
+    public ReceiverOptions<K, V> virtualThreads(boolean virtualThreads) {
+        return new ImmutableReceiverOptions<>(
+                properties,
+                assignListeners,
+                revokeListeners,
+                keyDeserializer,
+                valueDeserializer,
+                pollTimeout,
+                closeTimeout,
+                commitInterval,
+                commitBatchSize,
+                atmostOnceCommitAheadSize,
+                maxCommitAttempts,
+                commitRetryInterval,
+                maxDeferredCommits,
+                maxDelayRebalance,
+                commitIntervalDuringDelay,
+                maxInFlightPerPartition,
+                eventLoopGroup,
+                eventLoopGroupThreads,
+                virtualThreads,
+                persistAckedOffsets,
+                offsetStore,
+                deserializationScheduler,
+                deserializationErrorHandler,
+                rawRecordFilter,
+                transactionMaxRecords,
+                transactionMaxBytes,
+                transactionMaxDuration,
+                subscribeTopics,
+                assignTopicPartitions,
+                subscribePattern,
+                schedulerSupplier
+        );
+    }
+
+    @Override
+    public boolean persistAckedOffsets() {
+        return persistAckedOffsets;
+    }
+
+    @Override
+    public ReceiverOptions<K, V> persistAckedOffsets(boolean persistAckedOffsets) {
+        return new ImmutableReceiverOptions<>(
+                properties,
+                assignListeners,
+                revokeListeners,
+                keyDeserializer,
+                valueDeserializer,
+                pollTimeout,
+                closeTimeout,
+                commitInterval,
+                commitBatchSize,
+                atmostOnceCommitAheadSize,
+                maxCommitAttempts,
+                commitRetryInterval,
+                maxDeferredCommits,
+                maxDelayRebalance,
+                commitIntervalDuringDelay,
+                maxInFlightPerPartition,
+                eventLoopGroup,
+                eventLoopGroupThreads,
+                virtualThreads,
+                persistAckedOffsets,
+                offsetStore,
+                deserializationScheduler,
+                deserializationErrorHandler,
+                rawRecordFilter,
+                transactionMaxRecords,
+                transactionMaxBytes,
+                transactionMaxDuration,
+                subscribeTopics,
+                assignTopicPartitions,
+                subscribePattern,
+                schedulerSupplier
+        );
+    }
+
+    @Override
+    public OffsetStore offsetStore() {
+        return offsetStore;
+    }
+
+    @Override
+    public ReceiverOptions<K, V> offsetStore(OffsetStore offsetStore) {
+        return new ImmutableReceiverOptions<>(
+                properties,
+                assignListeners,
+                revokeListeners,
+                keyDeserializer,
+                valueDeserializer,
+                pollTimeout,
+                closeTimeout,
+                commitInterval,
+                commitBatchSize,
+                atmostOnceCommitAheadSize,
+                maxCommitAttempts,
+                commitRetryInterval,
+                maxDeferredCommits,
+                maxDelayRebalance,
+                commitIntervalDuringDelay,
+                maxInFlightPerPartition,
+                eventLoopGroup,
+                eventLoopGroupThreads,
+                virtualThreads,
+                persistAckedOffsets,
+                offsetStore,
+                deserializationScheduler,
+                deserializationErrorHandler,
+                rawRecordFilter,
+                transactionMaxRecords,
+                transactionMaxBytes,
+                transactionMaxDuration,
+                subscribeTopics,
+                assignTopicPartitions,
+                subscribePattern,
+                schedulerSupplier
+        );
+    }
+
+    @Override
+    public Scheduler deserializationScheduler() {
+        return deserializationScheduler;
+    }
+
+    @Override
+    public ReceiverOptions<K, V> deserializationScheduler(Scheduler deserializationScheduler) {
+        return new ImmutableReceiverOptions<>(
+                properties,
+                assignListeners,
+                revokeListeners,
+                keyDeserializer,
+                valueDeserializer,
+                pollTimeout,
+                closeTimeout,
+                commitInterval,
+                commitBatchSize,
+                atmostOnceCommitAheadSize,
+                maxCommitAttempts,
+                commitRetryInterval,
+                maxDeferredCommits,
+                maxDelayRebalance,
+                commitIntervalDuringDelay,
+                maxInFlightPerPartition,
+                eventLoopGroup,
+                eventLoopGroupThreads,
+                virtualThreads,
+                persistAckedOffsets,
+                offsetStore,
+                deserializationScheduler,
+                deserializationErrorHandler,
+                rawRecordFilter,
+                transactionMaxRecords,
+                transactionMaxBytes,
+                transactionMaxDuration,
+                subscribeTopics,
+                assignTopicPartitions,
+                subscribePattern,
+                schedulerSupplier
+        );
+    }
+
+    @Override
+    public BiConsumer<ConsumerRecord<byte[], byte[]>, Throwable> deserializationErrorHandler() {
+        return deserializationErrorHandler;
+    }
+
+    @Override
+    public ReceiverOptions<K, V> deserializationErrorHandler(BiConsumer<ConsumerRecord<byte[], byte[]>, Throwable> deserializationErrorHandler) {
+        return new ImmutableReceiverOptions<>(
+                properties,
+                assignListeners,
+                revokeListeners,
+                keyDeserializer,
+                valueDeserializer,
+                pollTimeout,
+                closeTimeout,
+                commitInterval,
+                commitBatchSize,
+                atmostOnceCommitAheadSize,
+                maxCommitAttempts,
+                commitRetryInterval,
+                maxDeferredCommits,
+                maxDelayRebalance,
+                commitIntervalDuringDelay,
+                maxInFlightPerPartition,
+                eventLoopGroup,
+                eventLoopGroupThreads,
+                virtualThreads,
+                persistAckedOffsets,
+                offsetStore,
+                deserializationScheduler,
+                deserializationErrorHandler,
+                rawRecordFilter,
+                transactionMaxRecords,
+                transactionMaxBytes,
+                transactionMaxDuration,
+                subscribeTopics,
+                assignTopicPartitions,
+                subscribePattern,
+                schedulerSupplier
+        );
+    }
+
+    @Override
+    public RawRecordFilter rawRecordFilter() {
+        return rawRecordFilter;
+    }
+
+    @Override
+    public ReceiverOptions<K, V> rawRecordFilter(RawRecordFilter rawRecordFilter) {
+        return new ImmutableReceiverOptions<>(
+                properties,
+                assignListeners,
+                revokeListeners,
+                keyDeserializer,
+                valueDeserializer,
+                pollTimeout,
+                closeTimeout,
+                commitInterval,
+                commitBatchSize,
+                atmostOnceCommitAheadSize,
+                maxCommitAttempts,
+                commitRetryInterval,
+                maxDeferredCommits,
+                maxDelayRebalance,
+                commitIntervalDuringDelay,
+                maxInFlightPerPartition,
+                eventLoopGroup,
+                eventLoopGroupThreads,
+                virtualThreads,
+                persistAckedOffsets,
+                offsetStore,
+                deserializationScheduler,
+                deserializationErrorHandler,
+                rawRecordFilter,
+                transactionMaxRecords,
+                transactionMaxBytes,
+                transactionMaxDuration,
+                subscribeTopics,
+                assignTopicPartitions,
+                subscribePattern,
+                schedulerSupplier
+        );
+    }
+
+    @Override
+    public int transactionMaxRecords() {
+        return transactionMaxRecords;
+    }
+
+    @Override
+    public ReceiverOptions<K, V> transactionMaxRecords(int maxRecords) {
+        if (maxRecords < 0)
+            throw new IllegalArgumentException("Transaction max records must be >= 0");
+
+        return new ImmutableReceiverOptions<>(
+                properties,
+                assignListeners,
+                revokeListeners,
+                keyDeserializer,
+                valueDeserializer,
+                pollTimeout,
+                closeTimeout,
+                commitInterval,
+                commitBatchSize,
+                atmostOnceCommitAheadSize,
+                maxCommitAttempts,
+                commitRetryInterval,
+                maxDeferredCommits,
+                maxDelayRebalance,
+                commitIntervalDuringDelay,
+                maxInFlightPerPartition,
+                eventLoopGroup,
+                eventLoopGroupThreads,
+                virtualThreads,
+                persistAckedOffsets,
+                offsetStore,
+                deserializationScheduler,
+                deserializationErrorHandler,
+                rawRecordFilter,
+                maxRecords,
+                transactionMaxBytes,
+                transactionMaxDuration,
+                subscribeTopics,
+                assignTopicPartitions,
+                subscribePattern,
+                schedulerSupplier
+        );
+    }
+
+    @Override
+    public long transactionMaxBytes() {
+        return transactionMaxBytes;
+    }
+
+    @Override
+    public ReceiverOptions<K, V> transactionMaxBytes(long maxBytes) {
+        if (maxBytes < 0)
+            throw new IllegalArgumentException("Transaction max bytes must be >= 0");
+
+        return new ImmutableReceiverOptions<>(
+                properties,
+                assignListeners,
+                revokeListeners,
+                keyDeserializer,
+                valueDeserializer,
+                pollTimeout,
+                closeTimeout,
+                commitInterval,
+                commitBatchSize,
+                atmostOnceCommitAheadSize,
+                maxCommitAttempts,
+                commitRetryInterval,
+                maxDeferredCommits,
+                maxDelayRebalance,
+                commitIntervalDuringDelay,
+                maxInFlightPerPartition,
+                eventLoopGroup,
+                eventLoopGroupThreads,
+                virtualThreads,
+                persistAckedOffsets,
+                offsetStore,
+                deserializationScheduler,
+                deserializationErrorHandler,
+                rawRecordFilter,
+                transactionMaxRecords,
+                maxBytes,
+                transactionMaxDuration,
+                subscribeTopics,
+                assignTopicPartitions,
+                subscribePattern,
+                schedulerSupplier
+        );
+    }
+
+    @Override
+    public Duration transactionMaxDuration() {
+        if (transactionMaxDuration == null && (transactionMaxRecords > 0 || transactionMaxBytes > 0)) {
+            // an idle topic must not keep a grouped transaction open
+            return DEFAULT_TRANSACTION_MAX_DURATION;
+        }
+        return transactionMaxDuration;
+    }
+
+    @Override
+    public ReceiverOptions<K, V> transactionMaxDuration(Duration maxDuration) {
+        if (maxDuration == null || maxDuration.isNegative() || maxDuration.isZero())
+            throw new IllegalArgumentException("Transaction max duration must be > 0");
+
+        return new ImmutableReceiverOptions<>(
+                properties,
+                assignListeners,
+                revokeListeners,
+                keyDeserializer,
+                valueDeserializer,
+                pollTimeout,
+                closeTimeout,
+                commitInterval,
+                commitBatchSize,
+                atmostOnceCommitAheadSize,
+                maxCommitAttempts,
+                commitRetryInterval,
+                maxDeferredCommits,
+                maxDelayRebalance,
+                commitIntervalDuringDelay,
+                maxInFlightPerPartition,
+                eventLoopGroup,
+                eventLoopGroupThreads,
+                virtualThreads,
+                persistAckedOffsets,
+                offsetStore,
+                deserializationScheduler,
+                deserializationErrorHandler,
+                rawRecordFilter,
+                transactionMaxRecords,
+                transactionMaxBytes,
+                maxDuration,
+                subscribeTopics,
+                assignTopicPartitions,
+                subscribePattern,
+                schedulerSupplier
+        );
+    }
+
     @Override
     public Supplier<Scheduler> schedulerSupplier() {
         return schedulerSupplier;
@@ -779,6 +1541,18 @@ class ImmutableReceiverOptions<K, V> implements ReceiverOptions<K, V> {
                 maxDeferredCommits,
                 maxDelayRebalance,
                 commitIntervalDuringDelay,
+                maxInFlightPerPartition,
+                eventLoopGroup,
+                eventLoopGroupThreads,
+                virtualThreads,
+                persistAckedOffsets,
+                offsetStore,
+                deserializationScheduler,
+                deserializationErrorHandler,
+                rawRecordFilter,
+                transactionMaxRecords,
+                transactionMaxBytes,
+                transactionMaxDuration,
                 subscribeTopics,
                 assignTopicPartitions,
                 subscribePattern,
@@ -804,6 +1578,18 @@ class ImmutableReceiverOptions<K, V> implements ReceiverOptions<K, V> {
                 maxDeferredCommits,
                 maxDelayRebalance,
                 commitIntervalDuringDelay,
+                maxInFlightPerPartition,
+                eventLoopGroup,
+                eventLoopGroupThreads,
+                virtualThreads,
+                persistAckedOffsets,
+                offsetStore,
+                deserializationScheduler,
+                deserializationErrorHandler,
+                rawRecordFilter,
+                transactionMaxRecords,
+                transactionMaxBytes,
+                transactionMaxDuration,
                 subscribeTopics,
                 assignTopicPartitions,
                 subscribePattern,
@@ -851,6 +1637,18 @@ class ImmutableReceiverOptions<K, V> implements ReceiverOptions<K, V> {
             maxDeferredCommits,
             maxDelayRebalance,
             commitIntervalDuringDelay,
+            maxInFlightPerPartition,
+            eventLoopGroup,
+            eventLoopGroupThreads,
+            virtualThreads,
+            persistAckedOffsets,
+            offsetStore,
+            deserializationScheduler,
+            deserializationErrorHandler,
+            rawRecordFilter,
+            transactionMaxRecords,
+            transactionMaxBytes,
+            transactionMaxDuration,
             subscribeTopics,
             assignTopicPartitions,
             subscribePattern
@@ -878,6 +1676,18 @@ class ImmutableReceiverOptions<K, V> implements ReceiverOptions<K, V> {
                 && Objects.equals(maxDeferredCommits, that.maxDeferredCommits)
                 && Objects.equals(maxDelayRebalance, that.maxDelayRebalance)
                 && Objects.equals(commitIntervalDuringDelay, that.commitIntervalDuringDelay)
+                && Objects.equals(maxInFlightPerPartition, that.maxInFlightPerPartition)
+                && Objects.equals(eventLoopGroup, that.eventLoopGroup)
+                && Objects.equals(eventLoopGroupThreads, that.eventLoopGroupThreads)
+                && Objects.equals(virtualThreads, that.virtualThreads)
+                && Objects.equals(persistAckedOffsets, that.persistAckedOffsets)
+                && Objects.equals(offsetStore, that.offsetStore)
+                && Objects.equals(deserializationScheduler, that.deserializationScheduler)
+                && Objects.equals(deserializationErrorHandler, that.deserializationErrorHandler)
+                && Objects.equals(rawRecordFilter, that.rawRecordFilter)
+                && Objects.equals(transactionMaxRecords, that.transactionMaxRecords)
+                && Objects.equals(transactionMaxBytes, that.transactionMaxBytes)
+                && Objects.equals(transactionMaxDuration, that.transactionMaxDuration)
                 && Objects.equals(subscribeTopics, that.subscribeTopics)
                 && Objects.equals(assignTopicPartitions, that.assignTopicPartitions)
                 && Objects.equals(subscribePattern, that.subscribePattern);
@@ -19,13 +19,17 @@ package reactor.kafka.receiver;
 import org.apache.kafka.clients.consumer.Consumer;
 import org.apache.kafka.clients.consumer.ConsumerConfig;
 import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.common.TopicPartition;
+import org.reactivestreams.Publisher;
 import reactor.core.publisher.Flux;
+import reactor.core.publisher.GroupedFlux;
 import reactor.core.publisher.Mono;
 import reactor.kafka.receiver.internals.ConsumerFactory;
 import reactor.kafka.receiver.internals.DefaultKafkaReceiver;
 import reactor.kafka.sender.KafkaSender;
 import reactor.kafka.sender.TransactionManager;
 
+import java.util.Map;
 import java.util.function.Function;
 
 /**
@@ -97,6 +101,246 @@ public interface KafkaReceiver<K, V> {
         return receive(null);
     }
 
+    /**
+     * Starts a Kafka consumer that consumes the records of a range of offsets of each of the
+     * specified partitions and completes when all the ranges have been consumed. The partitions
+     * are assigned manually, ignoring the subscriptions or assignment configured for this
+     * receiver, and the consumer seeks to the start of each range when they are assigned. Each
+     * partition is paused when the position of the consumer reaches the end of its range, so
+     * that no records are fetched past the range. A range whose end is beyond the last offset
+     * of its partition is completed when records up to its end are produced.
+     * <p>
+     * Every record must be acknowledged using {@link ReceiverOffset#acknowledge()} in order
+     * to commit the offset corresponding to the record, like {@link #receive(Integer)}.
+     *
+     * @param ranges the range of offsets to consume by partition
+     * @param prefetch amount of prefetched batches
+     * @return Flux of inbound receiver records that completes at the end of all ranges
+     * @since 1.3.16
+     */
+    Flux<ReceiverRecord<K, V>> receiveRange(Map<TopicPartition, OffsetRange> ranges, Integer prefetch);
+
+    /**
+     * Starts a Kafka consumer that consumes the records of a range of offsets of each of the
+     * specified partitions and completes when all the ranges have been consumed.
+     * See {@link #receiveRange(Map, Integer)}.
+     *
+     * @param ranges the range of offsets to consume by partition
+     * @return Flux of inbound receiver records that completes at the end of all ranges
+     * @since 1.3.16
+     */
+    default Flux<ReceiverRecord<K, V>> receiveRange(Map<TopicPartition, OffsetRange> ranges) {
+        return receiveRange(ranges, null);
+    }
+
+    /**
+     * Starts a Kafka consumer that consumes the partitions assigned with
+     * {@link ReceiverOptions#assignment(java.util.Collection)} up to a snapshot of their end
+     * offsets and completes. The end offsets are captured when the first records are polled,
+     * and records produced later are not consumed. All partitions are fetched concurrently
+     * and each partition is paused when it reaches the end of the snapshot. This is intended
+     * for loading state from compacted topics at startup.
+     * <p>
+     * Every record must be acknowledged using {@link ReceiverOffset#acknowledge()} in order
+     * to commit the offset corresponding to the record, like {@link #receive(Integer)}.
+     *
+     * @param prefetch amount of prefetched batches
+     * @return Flux of inbound receiver records that completes at the end of the snapshot
+     * @since 1.3.16
+     */
+    Flux<ReceiverRecord<K, V>> receiveSnapshot(Integer prefetch);
+
+    /**
+     * Starts a Kafka consumer that consumes the partitions assigned with
+     * {@link ReceiverOptions#assignment(java.util.Collection)} up to a snapshot of their end
+     * offsets and completes. See {@link #receiveSnapshot(Integer)}.
+     *
+     * @return Flux of inbound receiver records that completes at the end of the snapshot
+     * @since 1.3.16
+     */
+    default Flux<ReceiverRecord<K, V>> receiveSnapshot() {
+        return receiveSnapshot(null);
+    }
+
+    /**
+     * Starts a Kafka consumer that consumes the partitions assigned with
+     * {@link ReceiverOptions#assignment(java.util.Collection)} up to a snapshot of their end
+     * offsets, like {@link #receiveSnapshot(Integer)}, and then continues consuming new records.
+     * The returned Flux emits two inner Flux: the first one emits the records of the snapshot and
+     * completes when all partitions have reached the end of the snapshot, the second one emits
+     * the records produced after the snapshot. Inner Flux must be consumed in order, for example
+     * using {@link Flux#concatMap(Function)}.
+     *
+     * @param prefetch amount of prefetched batches
+     * @return Flux of the records of the snapshot followed by the records produced after the snapshot
+     * @since 1.3.16
+     */
+    Flux<Flux<ReceiverRecord<K, V>>> receiveSnapshotThenTail(Integer prefetch);
+
+    /**
+     * Starts a Kafka consumer that consumes the partitions assigned with
+     * {@link ReceiverOptions#assignment(java.util.Collection)} up to a snapshot of their end
+     * offsets and then continues consuming new records. See {@link #receiveSnapshotThenTail(Integer)}.
+     *
+     * @return Flux of the records of the snapshot followed by the records produced after the snapshot
+     * @since 1.3.16
+     */
+    default Flux<Flux<ReceiverRecord<K, V>>> receiveSnapshotThenTail() {
+        return receiveSnapshotThenTail(null);
+    }
+
+    /**
+     * Starts a Kafka consumer that consumes records from the subscriptions or partition
+     * assignments configured for this receiver, like {@link #receive(Integer)}. Records are
+     * dispatched as {@link ReceiverRecordView} instances that reference the consumer records
+     * instead of copying them, and whose {@link ReceiverOffset} is created only when requested.
+     * <p>
+     * Every record must be acknowledged using {@link ReceiverOffset#acknowledge()} in order
+     * to commit the offset corresponding to the record. Acknowledged records are committed
+     * based on the configured commit interval and commit batch size in {@link ReceiverOptions}.
+     *
+     * @param prefetch amount of prefetched batches
+     * @return Flux of inbound receiver records that are committed only after acknowledgement
+     * @since 1.3.16
+     */
+    Flux<ReceiverRecordView<K, V>> receiveViews(Integer prefetch);
+
+    /**
+     * Starts a Kafka consumer that consumes records from the subscriptions or partition
+     * assignments configured for this receiver, like {@link #receive()}. Records are
+     * dispatched as {@link ReceiverRecordView} instances that reference the consumer records
+     * instead of copying them, and whose {@link ReceiverOffset} is created only when requested.
+     * <p>
+     * Every record must be acknowledged using {@link ReceiverOffset#acknowledge()} in order
+     * to commit the offset corresponding to the record. Acknowledged records are committed
+     * based on the configured commit interval and commit batch size in {@link ReceiverOptions}.
+     *
+     * @return Flux of inbound receiver records that are committed only after acknowledgement
+     * @since 1.3.16
+     */
+    default Flux<ReceiverRecordView<K, V>> receiveViews() {
+        return receiveViews(null);
+    }
+
+    /**
+     * Starts a Kafka consumer that consumes records from the subscriptions or partition
+     * assignments configured for this receiver, like {@link #receive(Integer)}. Records are
+     * polled as byte arrays and their key and value are deserialized only on the first call to
+     * {@link ConsumerRecord#key()} or {@link ConsumerRecord#value()}, using the deserializers
+     * configured in {@link ReceiverOptions}. The result is cached. Records filtered by topic,
+     * partition, offset or timestamp are never deserialized. If a key or value cannot be
+     * deserialized, the accessor throws a {@link org.apache.kafka.common.errors.SerializationException}.
+     * Deserializers created from the configured classes are closed when the flux terminates, so
+     * records must be accessed before.
+     * <p>
+     * Every record must be acknowledged using {@link ReceiverOffset#acknowledge()} in order
+     * to commit the offset corresponding to the record. Acknowledged records are committed
+     * based on the configured commit interval and commit batch size in {@link ReceiverOptions}.
+     *
+     * @param prefetch amount of prefetched batches
+     * @return Flux of inbound receiver records that are committed only after acknowledgement
+     * @since 1.3.16
+     */
+    Flux<ReceiverRecord<K, V>> receiveLazy(Integer prefetch);
+
+    /**
+     * Starts a Kafka consumer that consumes records from the subscriptions or partition
+     * assignments configured for this receiver, like {@link #receive()}, deserializing the key
+     * and value of each record only when they are first accessed. See {@link #receiveLazy(Integer)}.
+     *
+     * @return Flux of inbound receiver records that are committed only after acknowledgement
+     * @since 1.3.16
+     */
+    default Flux<ReceiverRecord<K, V>> receiveLazy() {
+        return receiveLazy(null);
+    }
+
+    /**
+     * Starts a Kafka consumer that consumes records from the subscriptions or partition
+     * assignments configured for this receiver and processes them concurrently using
+     * <code>processor</code>. Records with the same key are processed sequentially in the order
+     * in which they were received, records with different keys may be processed concurrently
+     * on up to <code>concurrency</code> threads. Records without a key are ordered by partition.
+     * <p>
+     * Each record is acknowledged automatically when the publisher returned by <code>processor</code>
+     * for that record completes. Since records complete out of order, this mode requires out of order
+     * commits to be enabled using {@link ReceiverOptions#maxDeferredCommits(int)}; offsets are only
+     * committed up to the last record of each partition for which all previous records have been
+     * processed. If the publisher returned by <code>processor</code> fails, the returned Flux
+     * is terminated with that error and the record is not acknowledged.
+     *
+     * @param concurrency maximum number of records processed concurrently
+     * @param processor function invoked for each record, returning a publisher that completes
+     *        when the record has been processed
+     * @return Flux of the results of <code>processor</code> for all received records
+     * @since 1.3.16
+     */
+    <T> Flux<T> receiveKeyOrdered(int concurrency, Function<? super ReceiverRecord<K, V>, ? extends Publisher<T>> processor);
+
+    /**
+     * Starts a Kafka consumer that consumes records from the subscriptions or partition
+     * assignments configured for this receiver and returns one {@link GroupedFlux} per assigned
+     * partition, keyed by the partition. A group is emitted when its partition is assigned and
+     * completes, after its buffered records, when the partition is revoked; a partition that is
+     * assigned again is emitted in a new group.
+     * <p>
+     * Back pressure is applied per partition: a partition whose group has <code>prefetch</code>
+     * undelivered records is paused, while the other partitions keep being fetched. Every record
+     * must be acknowledged using {@link ReceiverOffset#acknowledge()} in order to commit its offset.
+     *
+     * @param prefetch maximum number of undelivered records per partition
+     * @return Flux of partition groups of inbound receiver records that are committed only after acknowledgement
+     * @since 1.3.16
+     */
+    Flux<GroupedFlux<TopicPartition, ReceiverRecord<K, V>>> receivePerPartition(Integer prefetch);
+
+    /**
+     * Starts a Kafka consumer that consumes records from the subscriptions or partition
+     * assignments configured for this receiver and returns one {@link GroupedFlux} per assigned
+     * partition, keyed by the partition. A group is emitted when its partition is assigned and
+     * completes, after its buffered records, when the partition is revoked; a partition that is
+     * assigned again is emitted in a new group.
+     * <p>
+     * Back pressure is applied per partition: a partition whose group has 256 undelivered records
+     * is paused, while the other partitions keep being fetched. Every record must be acknowledged
+     * using {@link ReceiverOffset#acknowledge()} in order to commit its offset.
+     *
+     * @return Flux of partition groups of inbound receiver records that are committed only after acknowledgement
+     * @since 1.3.16
+     */
+    default Flux<GroupedFlux<TopicPartition, ReceiverRecord<K, V>>> receivePerPartition() {
+        return receivePerPartition(null);
+    }
+
+    /**
+     * Returns a {@link Flux} containing each batch of consumer records returned by {@link Consumer#poll(long)}.
+     * The maximum number of records returned in each batch can be configured on {@link ReceiverOptions} by setting
+     * the consumer property {@link ConsumerConfig#MAX_POLL_RECORDS_CONFIG}. Records are not wrapped individually;
+     * each batch must be acknowledged using {@link ReceiverBatch#acknowledge()} or committed using
+     * {@link ReceiverBatch#commit()}, which advances every partition of the batch to its last offset.
+     * This avoids per-record overhead for applications that process whole batches, for example bulk writes.
+     *
+     * @param prefetch amount of prefetched batches
+     * @return Flux of consumer record batches that are committed only after acknowledgement
+     * @since 1.3.16
+     */
+    Flux<ReceiverBatch<K, V>> receiveBatch(Integer prefetch);
+
+    /**
+     * Returns a {@link Flux} containing each batch of consumer records returned by {@link Consumer#poll(long)}.
+     * The maximum number of records returned in each batch can be configured on {@link ReceiverOptions} by setting
+     * the consumer property {@link ConsumerConfig#MAX_POLL_RECORDS_CONFIG}. Records are not wrapped individually;
+     * each batch must be acknowledged using {@link ReceiverBatch#acknowledge()} or committed using
+     * {@link ReceiverBatch#commit()}, which advances every partition of the batch to its last offset.
+     * This avoids per-record overhead for applications that process whole batches, for example bulk writes.
+     *
+     * @return Flux of consumer record batches that are committed only after acknowledgement
+     * @since 1.3.16
+     */
+    default Flux<ReceiverBatch<K, V>> receiveBatch() {
+        return receiveBatch(null);
+    }
+
     /**
      * Returns a {@link Flux} containing each batch of consumer records returned by {@link Consumer#poll(long)}.
      * The maximum number of records returned in each batch can be configured on {@link ReceiverOptions} by setting
@@ -157,6 +401,37 @@ public interface KafkaReceiver<K, V> {
         return receiveAtmostOnce(null);
     }
 
+    /**
+     * Returns a {@link Flux} of consumer records that are committed before they are dispatched to
+     * provide atmost-once delivery semantics, with one commit for each batch of records returned by
+     * {@link Consumer#poll(long)}. The offsets following the last record of each partition of a batch
+     * are committed synchronously before the first record of the batch is dispatched.
+     * <p>
+     * This mode is much cheaper than {@link #receiveAtmostOnce(Integer)} for small records, but the
+     * number of records that may be lost on each partition if the consuming application crashes is
+     * bounded by the size of a batch, configured with the consumer property
+     * {@link ConsumerConfig#MAX_POLL_RECORDS_CONFIG}, rather than by
+     * {@link ReceiverOptions#atmostOnceCommitAheadSize()}. When the returned Flux terminates, offsets
+     * of records that were committed but not dispatched are committed again, so that these records are
+     * delivered after a restart.
+     *
+     * @param prefetch amount of prefetched batches
+     * @return Flux of consumer records whose offsets have been committed prior to dispatch
+     * @since 1.3.16
+     */
+    Flux<ConsumerRecord<K, V>> receiveAtmostOnceBatched(Integer prefetch);
+
+    /**
+     * Returns a {@link Flux} of consumer records that are committed once per poll batch before they
+     * are dispatched. See {@link #receiveAtmostOnceBatched(Integer)}.
+     *
+     * @return Flux of consumer records whose offsets have been committed prior to dispatch
+     * @since 1.3.16
+     */
+    default Flux<ConsumerRecord<K, V>> receiveAtmostOnceBatched() {
+        return receiveAtmostOnceBatched(null);
+    }
+
     /**
      * Returns a {@link Flux} of consumer record batches that may be used for exactly once
      * delivery semantics. A new transaction is started for each inner Flux and it is the
@@ -0,0 +1,146 @@
+/*
+ * Copyright (c) 2023 VMware Inc. or its affiliates, All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package reactor.kafka.receiver;
+
+import org.apache.kafka.clients.consumer.Consumer;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.ParallelFlux;
+import reactor.kafka.receiver.internals.ConsumerFactory;
+import reactor.kafka.receiver.internals.DefaultKafkaReceiverPool;
+
+import java.util.function.Function;
+
+/**
+ * A pool of Kafka consumers in the same consumer group that receive the subscriptions of
+ * one {@link ReceiverOptions} instance. Each consumer has its own event loop, so records of
+ * different partitions are polled and committed concurrently. The consumers are created when
+ * the receive flux is subscribed to and closed together when it terminates; an error on any
+ * consumer terminates the whole pool.
+ * <p>
+ * If a client id is configured, each consumer uses the client id with a <code>-index</code>
+ * suffix so that consumer metrics remain distinct.
+ *
+ * @param <K> incoming record key type
+ * @param <V> incoming record value type
+ * @since 1.3.16
+ */
+public interface KafkaReceiverPool<K, V> {
+
+    /**
+     * Creates a pool of <code>consumers</code> reactive Kafka receivers with the specified
+     * configuration options. A subscription using group management must be set on the options.
+     *
+     * @param options Configuration options of the receivers of this pool
+     * @param consumers the initial number of consumers
+     * @return new receiver pool instance
+     */
+    static <K, V> KafkaReceiverPool<K, V> create(ReceiverOptions<K, V> options, int consumers) {
+        return new DefaultKafkaReceiverPool<>(ConsumerFactory.INSTANCE, options, consumers);
+    }
+
+    /**
+     * Creates a pool of <code>consumers</code> reactive Kafka receivers with the specified
+     * configuration options. A subscription using group management must be set on the options.
+     *
+     * @param factory A custom consumer factory other than the default.
+     * @param options Configuration options of the receivers of this pool
+     * @param consumers the initial number of consumers
+     * @return new receiver pool instance
+     */
+    static <K, V> KafkaReceiverPool<K, V> create(ConsumerFactory factory, ReceiverOptions<K, V> options, int consumers) {
+        return new DefaultKafkaReceiverPool<>(factory, options, consumers);
+    }
+
+    /**
+     * Starts the consumers of this pool and merges their records into one flux, as
+     * {@link KafkaReceiver#receive(Integer)} does for a single consumer. Records must be
+     * acknowledged as described in {@link KafkaReceiver#receive(Integer)}. The pool may be
+     * resized while the flux is active using {@link #resize(int)}.
+     *
+     * @param prefetch amount of prefetched batches per consumer
+     * @return flux of inbound receiver records of all consumers of this pool
+     */
+    Flux<ReceiverRecord<K, V>> receive(Integer prefetch);
+
+    /**
+     * Starts the consumers of this pool and merges their records into one flux.
+     *
+     * @return flux of inbound receiver records of all consumers of this pool
+     * @see #receive(Integer)
+     */
+    default Flux<ReceiverRecord<K, V>> receive() {
+        return receive(null);
+    }
+
+    /**
+     * Starts the consumers of this pool and exposes the records of each consumer on its own
+     * rail, so that records are processed on the thread that delivers them without being merged.
+     * The number of rails is the size of the pool when this method is invoked; the pool cannot be
+     * resized while the returned flux is active. The pool receives with one flux at a time: rails of
+     * another flux returned by this method or by {@link #receive(Integer)} fail with
+     * {@link IllegalStateException} while the consumers of the active flux are running.
+     *
+     * @param prefetch amount of prefetched batches per consumer
+     * @return parallel flux with one rail of inbound receiver records per consumer
+     */
+    ParallelFlux<ReceiverRecord<K, V>> receiveParallel(Integer prefetch);
+
+    /**
+     * Starts the consumers of this pool with one rail per consumer.
+     *
+     * @return parallel flux with one rail of inbound receiver records per consumer
+     * @see #receiveParallel(Integer)
+     */
+    default ParallelFlux<ReceiverRecord<K, V>> receiveParallel() {
+        return receiveParallel(null);
+    }
+
+    /**
+     * Changes the number of consumers of this pool, for example to follow consumer lag.
+     * If the pool is receiving, new consumers are started and join the group, and surplus
+     * consumers are closed after committing acknowledged offsets; the group is then rebalanced
+     * and records that were not acknowledged are redelivered to the remaining consumers.
+     * Otherwise, the new size is used the next time the pool is started.
+     *
+     * @param consumers the new number of consumers
+     * @throws IllegalArgumentException if <code>consumers</code> is not positive
+     * @throws IllegalStateException if the pool is receiving with {@link #receiveParallel(Integer)}
+     */
+    void resize(int consumers);
+
+    /**
+     * Returns the number of consumers of this pool.
+     * @return the number of consumers
+     */
+    int size();
+
+    /**
+     * Invokes the specified function on the Kafka {@link Consumer} of each active receiver of
+     * this pool, on the thread of its event loop as {@link KafkaReceiver#doOnConsumer(Function)}
+     * does. This may be used to collect the metrics of all consumers or to pause and resume all
+     * assigned partitions:
+     * <pre>
+     * {@code
+     *     pool.doOnConsumers(consumer -> { consumer.pause(consumer.assignment()); return true; })
+     * }
+     * </pre>
+     *
+     * @param function A function that takes Kafka {@link Consumer} as parameter
+     * @return Flux that emits the value returned by <code>function</code> for each consumer
+     */
+    <T> Flux<T> doOnConsumers(Function<Consumer<K, V>, ? extends T> function);
+}
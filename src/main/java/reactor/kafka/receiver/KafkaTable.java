@@ -0,0 +1,125 @@
+/*
+ * Copyright (c) 2023 VMware Inc. or its affiliates, All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package reactor.kafka.receiver;
+
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.common.serialization.Serializer;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.kafka.receiver.internals.ConsumerFactory;
+import reactor.kafka.receiver.internals.DefaultKafkaTable;
+import reactor.util.annotation.Nullable;
+
+import java.nio.file.Path;
+
+/**
+ * A key-value table materialized from a compacted topic. The latest value of each key is kept
+ * outside the Java heap as serialized bytes, so that garbage collection times do not grow with
+ * the size of the table; records with a null value (tombstones) remove their key. Values are
+ * deserialized on each lookup.
+ * <p>
+ * The table consumes the partitions assigned with {@link ReceiverOptions#assignment(java.util.Collection)},
+ * which must all belong to the same topic, without committing offsets. If a checkpoint file is
+ * configured, the table is restored from the last checkpoint when it starts and only records
+ * following the offsets stored with the checkpoint are consumed; otherwise, all partitions are
+ * consumed from the beginning.
+ *
+ * @param <K> record key type
+ * @param <V> record value type
+ * @since 1.3.16
+ */
+public interface KafkaTable<K, V> {
+
+    /**
+     * Creates a table with the specified configuration options.
+     *
+     * @param options Configuration options of the receiver of the table, with a partition assignment
+     * @param keySerializer serializer of lookup keys, which must serialize keys as the producers of the topic do
+     * @param checkpoint the checkpoint file of the table, or null to consume from the beginning on each start
+     * @return new table instance
+     */
+    static <K, V> KafkaTable<K, V> create(ReceiverOptions<K, V> options, Serializer<K> keySerializer,
+                                          @Nullable Path checkpoint) {
+        return new DefaultKafkaTable<>(ConsumerFactory.INSTANCE, options, keySerializer, checkpoint);
+    }
+
+    /**
+     * Creates a table with the specified configuration options.
+     *
+     * @param factory A custom consumer factory other than the default.
+     * @param options Configuration options of the receiver of the table, with a partition assignment
+     * @param keySerializer serializer of lookup keys, which must serialize keys as the producers of the topic do
+     * @param checkpoint the checkpoint file of the table, or null to consume from the beginning on each start
+     * @return new table instance
+     */
+    static <K, V> KafkaTable<K, V> create(ConsumerFactory factory, ReceiverOptions<K, V> options,
+                                          Serializer<K> keySerializer, @Nullable Path checkpoint) {
+        return new DefaultKafkaTable<>(factory, options, keySerializer, checkpoint);
+    }
+
+    /**
+     * Starts consuming the topic of the table and returns the records applied to the table,
+     * including tombstones, after they have been applied. Records are deserialized on first access
+     * and must not be acknowledged. Subscribers share a single consumer, which is started by the first
+     * subscriber and closed when all subscribers have cancelled; the table keeps its contents while
+     * it is not consuming. Applications that only use lookups may subscribe with
+     * <code>changes().subscribe()</code>.
+     *
+     * @return flux of the records applied to the table
+     */
+    Flux<ConsumerRecord<K, V>> changes();
+
+    /**
+     * Returns a Mono that completes when the table contains all records that were in the assigned
+     * partitions when it started consuming, or fails if consuming fails before.
+     *
+     * @return Mono that completes when the table is loaded
+     */
+    Mono<Void> ready();
+
+    /**
+     * Returns the value of a key.
+     *
+     * @param key the key to look up
+     * @return the latest value of <code>key</code>, or null if the table does not contain it
+     */
+    @Nullable
+    V get(K key);
+
+    /**
+     * Returns the number of keys in the table.
+     *
+     * @return the number of keys
+     */
+    int size();
+
+    /**
+     * Writes the contents of the table and the offsets of its partitions to the checkpoint file,
+     * replacing the previous checkpoint. Records are not applied while the checkpoint is written.
+     *
+     * @return Mono that completes when the checkpoint is written, or fails with {@link IllegalStateException}
+     *         if the table has no checkpoint file
+     */
+    Mono<Void> checkpoint();
+
+    /**
+     * Closes the key and value deserializers that the table created from the classes configured in
+     * {@link ReceiverOptions}. The table must not be used once it is closed, and subscriptions to
+     * {@link #changes()} should be cancelled before.
+     */
+    void close();
+}
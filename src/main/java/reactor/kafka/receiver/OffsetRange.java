@@ -0,0 +1,86 @@
+/*
+ * Copyright (c) 2023 VMware Inc. or its affiliates, All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package reactor.kafka.receiver;
+
+/**
+ * A range of offsets of a partition consumed by {@link KafkaReceiver#receiveRange(java.util.Map)},
+ * from a start offset inclusive to an end offset exclusive.
+ *
+ * @since 1.3.16
+ */
+public final class OffsetRange {
+
+    private final long start;
+
+    private final long end;
+
+    private OffsetRange(long start, long end) {
+        this.start = start;
+        this.end = end;
+    }
+
+    /**
+     * Creates a range of offsets.
+     * @param start the first offset of the range
+     * @param end the offset following the last offset of the range
+     * @return the offset range
+     */
+    public static OffsetRange of(long start, long end) {
+        if (start < 0 || end < start) {
+            throw new IllegalArgumentException("Invalid offset range [" + start + ", " + end + ")");
+        }
+        return new OffsetRange(start, end);
+    }
+
+    /**
+     * Returns the first offset of this range.
+     * @return the start offset, inclusive
+     */
+    public long start() {
+        return start;
+    }
+
+    /**
+     * Returns the offset following the last offset of this range.
+     * @return the end offset, exclusive
+     */
+    public long end() {
+        return end;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (o == null || getClass() != o.getClass()) {
+            return false;
+        }
+        OffsetRange that = (OffsetRange) o;
+        return start == that.start && end == that.end;
+    }
+
+    @Override
+    public int hashCode() {
+        return Long.hashCode(start) * 31 + Long.hashCode(end);
+    }
+
+    @Override
+    public String toString() {
+        return "[" + start + ", " + end + ")";
+    }
+}
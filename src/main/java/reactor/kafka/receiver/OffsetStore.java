@@ -0,0 +1,58 @@
+/*
+ * Copyright (c) 2023 VMware Inc. or its affiliates, All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package reactor.kafka.receiver;
+
+import org.apache.kafka.clients.consumer.OffsetAndMetadata;
+import org.apache.kafka.common.TopicPartition;
+import reactor.core.publisher.Mono;
+
+import java.util.Collection;
+import java.util.Map;
+
+/**
+ * External store for the offsets consumed by a {@link KafkaReceiver}, used instead of Kafka
+ * commits when configured with {@link ReceiverOptions#offsetStore(OffsetStore)}. This allows
+ * applications to store offsets atomically with the results of processing, for example in
+ * the same database transaction.
+ *
+ * @since 1.3.16
+ */
+public interface OffsetStore {
+
+    /**
+     * Stores the offsets of the next records to consume. The receiver does not invoke this method
+     * again until the returned {@link Mono} terminates, so each invocation contains the latest
+     * acknowledged offset of each partition since the previous one. Errors are handled as commit
+     * failures.
+     *
+     * @param offsets the offsets of the next records to consume, with metadata
+     * @return Mono that completes when the offsets have been stored
+     */
+    Mono<Void> store(Map<TopicPartition, OffsetAndMetadata> offsets);
+
+    /**
+     * Loads the stored offsets of assigned partitions. The receiver seeks each partition to its
+     * stored offset; partitions without a stored offset are consumed from the position determined
+     * by the consumer configuration. The returned {@link Mono} is awaited on the event thread of
+     * the receiver during the assignment, which delays the rebalance and, with a shared event loop
+     * group, the other receivers of the group.
+     *
+     * @param partitions the assigned partitions
+     * @return Mono of the stored offsets of the partitions that have one
+     */
+    Mono<Map<TopicPartition, OffsetAndMetadata>> load(Collection<TopicPartition> partitions);
+}
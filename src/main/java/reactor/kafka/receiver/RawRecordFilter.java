@@ -0,0 +1,45 @@
+/*
+ * Copyright (c) 2023 VMware Inc. or its affiliates, All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package reactor.kafka.receiver;
+
+import reactor.util.annotation.Nullable;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Selects the records delivered by a {@link KafkaReceiver} before they are deserialized, when
+ * configured with {@link ReceiverOptions#rawRecordFilter(RawRecordFilter)}. The filter is invoked
+ * on the event thread of the receiver for every polled record and must not block.
+ *
+ * @since 1.3.16
+ */
+@FunctionalInterface
+public interface RawRecordFilter {
+
+    /**
+     * Returns true if a record must be delivered, false if it must be skipped. Skipped records
+     * are acknowledged by the receiver.
+     *
+     * @param topic the topic of the record
+     * @param partition the partition of the record
+     * @param offset the offset of the record
+     * @param timestamp the timestamp of the record
+     * @param key a read-only view of the serialized key, or null if the record has no key
+     * @return true to deliver the record
+     */
+    boolean test(String topic, int partition, long offset, long timestamp, @Nullable ByteBuffer key);
+}
@@ -0,0 +1,84 @@
+/*
+ * Copyright (c) 2023 VMware Inc. or its affiliates, All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package reactor.kafka.receiver;
+
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.consumer.ConsumerRecords;
+import org.apache.kafka.clients.consumer.RetriableCommitFailedException;
+import org.apache.kafka.common.TopicPartition;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Represents the records returned by one poll of the consumer, dispatched by
+ * {@link KafkaReceiver#receiveBatch()}. Records are exposed as returned by the consumer,
+ * grouped by partition, and are acknowledged or committed together.
+ *
+ * @param <K> Incoming record key type
+ * @param <V> Incoming record value type
+ * @since 1.3.16
+ */
+public interface ReceiverBatch<K, V> extends Iterable<ConsumerRecord<K, V>> {
+
+    /**
+     * Returns the records of this batch.
+     * @return records returned by the consumer poll
+     */
+    ConsumerRecords<K, V> records();
+
+    /**
+     * Returns the partitions that have records in this batch.
+     * @return partitions of this batch
+     */
+    Set<TopicPartition> partitions();
+
+    /**
+     * Returns the records of this batch for the specified partition, in offset order.
+     * @param partition topic partition
+     * @return records of the partition, empty if this batch has no records for it
+     */
+    List<ConsumerRecord<K, V>> records(TopicPartition partition);
+
+    /**
+     * Returns the number of records in this batch.
+     * @return record count
+     */
+    int count();
+
+    /**
+     * Acknowledges all the records of this batch, which advances the offset of each partition
+     * to its last record in the batch. The offsets will be committed automatically based on the
+     * commit configuration parameters {@link ReceiverOptions#commitInterval()}
+     * and {@link ReceiverOptions#commitBatchSize()}. All acknowledged offsets are committed
+     * if possible when the receiver {@link Flux} terminates.
+     */
+    void acknowledge();
+
+    /**
+     * Acknowledges all the records of this batch and commits all acknowledged offsets.
+     * <p>
+     * This method commits asynchronously. {@link Mono#block()} may be invoked on the returned Mono to
+     * wait for completion of the commit. If commit fails with {@link RetriableCommitFailedException}
+     * the commit operation is retried {@link ReceiverOptions#maxCommitAttempts()} times before the
+     * returned Mono is failed.
+     * @return Mono that completes when commit operation completes.
+     */
+    Mono<Void> commit();
+}
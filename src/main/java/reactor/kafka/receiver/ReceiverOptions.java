@@ -18,9 +18,11 @@ package reactor.kafka.receiver;
 
 import org.apache.kafka.clients.consumer.ConsumerConfig;
 import org.apache.kafka.clients.consumer.ConsumerRebalanceListener;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
 import org.apache.kafka.clients.consumer.KafkaConsumer;
 import org.apache.kafka.clients.consumer.RetriableCommitFailedException;
 import org.apache.kafka.common.TopicPartition;
+import org.apache.kafka.common.errors.SerializationException;
 import org.apache.kafka.common.serialization.Deserializer;
 import reactor.core.scheduler.Scheduler;
 import reactor.util.annotation.NonNull;
@@ -32,6 +34,7 @@ import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Properties;
+import java.util.function.BiConsumer;
 import java.util.function.Consumer;
 import java.util.function.Supplier;
 import java.util.regex.Pattern;
@@ -282,6 +285,198 @@ public interface ReceiverOptions<K, V> {
         return this;
     }
 
+    /**
+     * Set to greater than 0 to apply back pressure per partition. If the number of records
+     * of a partition that have been received but not yet acknowledged reaches this value,
+     * only that partition is paused until some of its records are acknowledged; the other
+     * partitions of the assignment keep being fetched. Only applies to receives whose records
+     * are acknowledged with {@link ReceiverOffset#acknowledge()}, or automatically with
+     * {@link KafkaReceiver#receiveAutoAck()}; it is ignored by {@link KafkaReceiver#receiveAtmostOnce()}
+     * and {@link KafkaReceiver#receiveExactlyOnce(reactor.kafka.sender.TransactionManager)}. Default 0 (disabled).
+     * @param maxInFlight the maximum number of unacknowledged records per partition.
+     * @return options updated with the max in-flight records per partition.
+     * @since 1.3.16
+     */
+    default ReceiverOptions<K, V> maxInFlightPerPartition(int maxInFlight) {
+        return this;
+    }
+
+    /**
+     * Runs the consumer event loop on a pool of <code>threads</code> event threads shared by
+     * all receivers configured with the same group <code>name</code>, instead of a dedicated
+     * thread per receiver. Each consumer is confined to one thread of the pool. Polls do not
+     * block in this mode; a consumer that polls no records polls again after {@link #pollTimeout()},
+     * leaving the thread to the other consumers in the meantime. The pool is created by the
+     * first receiver of the group, with its number of threads, and disposed of when the last
+     * receiver of the group is closed.
+     * <p>
+     * Consumers sharing a thread are served one at a time, so any operation that blocks the
+     * event thread of one receiver delays all the others confined to the same thread: waiting
+     * for acknowledgements during a rebalance with {@link #maxDelayRebalance(Duration)},
+     * synchronous commits with at-most-once delivery, waiting for commits when partitions are
+     * revoked or the receiver is closed, closing a consumer and loading offsets from an
+     * {@link #offsetStore(OffsetStore)}. A consumer whose poll returned no records is only polled
+     * again once {@link #pollTimeout()} has elapsed, which adds up to {@link #pollTimeout()} of
+     * latency to the first records that arrive after an idle period; reduce the poll timeout for
+     * latency-sensitive receivers.
+     * @param name the name of the event loop group
+     * @param threads the number of event threads of the group
+     * @return options updated with the event loop group.
+     * @since 1.3.16
+     */
+    default ReceiverOptions<K, V> eventLoopGroup(String name, int threads) {
+        return this;
+    }
+
+    /**
+     * Set to true to run the consumer event loop on virtual threads when the JDK supports
+     * them (Java 21 or later); platform threads are used otherwise. The event loop spends most
+     * of its time blocked in {@link KafkaConsumer#poll(long)}, so virtual threads allow many
+     * more receivers per JVM. Default false.
+     * @param virtualThreads true to use virtual event threads
+     * @return options updated with the virtual threads flag.
+     * @since 1.3.16
+     */
+    default ReceiverOptions<K, V> virtualThreads(boolean virtualThreads) {
+        return this;
+    }
+
+    /**
+     * Set to true to store the offsets that have been acknowledged out of order but cannot be
+     * committed yet, because an earlier record has not been acknowledged, in the metadata of
+     * the committed offsets. When the partition is assigned again, after a restart or a
+     * rebalance, these records are skipped instead of being delivered again. Only applies
+     * when out of order commits are enabled with {@link #maxDeferredCommits(int)}. Default false.
+     * <p>
+     * The committed offset of each newly assigned partition is looked up on the event thread
+     * when its first records are polled, which costs one request to the group coordinator per
+     * partition that receives records after a rebalance. Partitions without records are not looked
+     * up. With an {@link #offsetStore(OffsetStore)}, the stored offsets are used instead.
+     * @param persistAckedOffsets true to store acknowledged offsets in the commit metadata
+     * @return options updated with the flag.
+     * @since 1.3.16
+     */
+    default ReceiverOptions<K, V> persistAckedOffsets(boolean persistAckedOffsets) {
+        return this;
+    }
+
+    /**
+     * Sets an external store for consumed offsets. Acknowledged offsets are written to the
+     * store instead of being committed to Kafka, with at most one write in progress; offsets
+     * acknowledged meanwhile are coalesced per partition into the next write. When partitions
+     * are assigned, the consumer seeks to the offsets loaded from the store before the assign
+     * listeners are invoked. Applies to manual and auto acknowledgement and at-most-once
+     * delivery. Default null, offsets are committed to Kafka.
+     * <p>
+     * The event thread blocks while offsets are loaded on assignment, while offsets are stored
+     * with at-most-once delivery, and while a write in progress completes when partitions are
+     * revoked or the receiver is closed. With an {@link #eventLoopGroup(String, int)}, this also
+     * blocks the other receivers sharing the event thread, so the store should respond quickly.
+     * @param offsetStore the offset store
+     * @return options updated with the offset store.
+     * @since 1.3.16
+     * @see FileOffsetStore
+     */
+    default ReceiverOptions<K, V> offsetStore(@Nullable OffsetStore offsetStore) {
+        return this;
+    }
+
+    /**
+     * Sets a scheduler to deserialize records on, instead of deserializing them in
+     * {@link KafkaConsumer#poll(long)} on the event thread. The consumer then fetches keys and
+     * values as byte arrays and each polled batch is split into chunks of records that are
+     * deserialized in parallel with the key and value deserializers of these options; records
+     * of each partition are still delivered in order. Custom consumer factories must create
+     * consumers with byte array deserializers when this is set. Default null, records are
+     * deserialized by the consumer.
+     * <p>
+     * A single key deserializer and a single value deserializer are invoked concurrently from
+     * the threads of the scheduler, so they must be thread-safe, as the deserializers provided
+     * by Kafka are. Deserializers created from the configured deserializer classes are closed
+     * when the receiver is closed; deserializer instances set in these options are not.
+     * @param scheduler the scheduler to deserialize records on
+     * @return options updated with the deserialization scheduler.
+     * @since 1.3.16
+     * @see #deserializationErrorHandler(BiConsumer)
+     */
+    default ReceiverOptions<K, V> deserializationScheduler(@Nullable Scheduler scheduler) {
+        return this;
+    }
+
+    /**
+     * Sets a handler for records that cannot be deserialized when a
+     * {@link #deserializationScheduler(Scheduler) deserialization scheduler} is configured.
+     * The handler is invoked with the serialized record and the exception, and the record
+     * is acknowledged and not delivered. Without a handler, a deserialization failure terminates
+     * the receive flux with a {@link SerializationException}.
+     * @param handler the handler of records that cannot be deserialized
+     * @return options updated with the deserialization error handler.
+     * @since 1.3.16
+     */
+    default ReceiverOptions<K, V> deserializationErrorHandler(@Nullable BiConsumer<ConsumerRecord<byte[], byte[]>, Throwable> handler) {
+        return this;
+    }
+
+    /**
+     * Sets a filter that is applied to polled records before they are deserialized. The consumer
+     * then fetches keys and values as byte arrays and records are deserialized after filtering, on
+     * the {@link #deserializationScheduler(Scheduler) deserialization scheduler} if configured.
+     * Skipped records are not delivered and are acknowledged: with out of order commits, they are
+     * committed when all the previous records of the partition are acknowledged, otherwise they
+     * are committed immediately if no earlier record of the partition is in flight and with the
+     * next acknowledged record of the partition if there is one. Custom consumer factories must
+     * create consumers with byte array deserializers when this is set. Default null, all records
+     * are delivered.
+     * @param filter the filter selecting the records to deliver
+     * @return options updated with the raw record filter.
+     * @since 1.3.16
+     */
+    default ReceiverOptions<K, V> rawRecordFilter(@Nullable RawRecordFilter filter) {
+        return this;
+    }
+
+    /**
+     * Sets the number of records after which a transaction of {@link KafkaReceiver#receiveExactlyOnce(reactor.kafka.sender.TransactionManager)}
+     * is closed. If this, {@link #transactionMaxBytes(long)} or {@link #transactionMaxDuration(Duration)} is set,
+     * the records of consecutive polls are grouped into one transaction until one of the limits is reached;
+     * a transaction may exceed the limits by the records of its last poll. Default 0, no limit on the
+     * number of records. If no limit is set, each poll is processed in its own transaction.
+     * @param maxRecords the number of records that closes a transaction, or 0 for no limit
+     * @return options updated with the transaction record limit
+     * @since 1.3.16
+     */
+    default ReceiverOptions<K, V> transactionMaxRecords(int maxRecords) {
+        return this;
+    }
+
+    /**
+     * Sets the serialized size of keys and values after which a transaction of
+     * {@link KafkaReceiver#receiveExactlyOnce(reactor.kafka.sender.TransactionManager)} is closed.
+     * See {@link #transactionMaxRecords(int)}. Default 0, no limit on the size.
+     * @param maxBytes the number of bytes that closes a transaction, or 0 for no limit
+     * @return options updated with the transaction size limit
+     * @since 1.3.16
+     */
+    default ReceiverOptions<K, V> transactionMaxBytes(long maxBytes) {
+        return this;
+    }
+
+    /**
+     * Sets the duration after the first poll of a transaction of
+     * {@link KafkaReceiver#receiveExactlyOnce(reactor.kafka.sender.TransactionManager)} after which it is
+     * closed, even if no more records are polled. See {@link #transactionMaxRecords(int)}. Revocations
+     * wait for the open transaction, so this also bounds how long a rebalance may be delayed. Default
+     * 5 seconds when {@link #transactionMaxRecords(int)} or {@link #transactionMaxBytes(long)} is set,
+     * so that records are not held in an open transaction while the topic is idle. The duration of a
+     * grouped transaction is always limited.
+     * @param maxDuration the duration that closes a transaction, which must be positive
+     * @return options updated with the transaction duration limit
+     * @since 1.3.16
+     */
+    default ReceiverOptions<K, V> transactionMaxDuration(Duration maxDuration) {
+        return this;
+    }
+
     /**
      * Configures the Supplier for a Scheduler on which Records will be published
      * @return options instance with updated publishing Scheduler Supplier
@@ -463,6 +658,122 @@ public interface ReceiverOptions<K, V> {
         return 100;
     }
 
+    /**
+     * When greater than 0, a partition is paused while the number of its records that have
+     * been received but not yet acknowledged is at least this value.
+     * @return the maximum in-flight records per partition.
+     * @since 1.3.16
+     */
+    default int maxInFlightPerPartition() {
+        return 0;
+    }
+
+    /**
+     * Returns the name of the shared event loop group that runs the consumer event loop,
+     * or null if each receiver has a dedicated event thread.
+     * @return the event loop group name.
+     * @since 1.3.16
+     */
+    @Nullable
+    default String eventLoopGroup() {
+        return null;
+    }
+
+    /**
+     * Returns the number of event threads of the shared event loop group.
+     * @return the number of event threads.
+     * @since 1.3.16
+     */
+    default int eventLoopGroupThreads() {
+        return 0;
+    }
+
+    /**
+     * Returns true if the consumer event loop runs on virtual threads when the JDK supports them.
+     * @return the virtual threads flag.
+     * @since 1.3.16
+     */
+    default boolean virtualThreads() {
+        return false;
+    }
+
+    /**
+     * Returns true if offsets acknowledged out of order are stored in the commit metadata.
+     * @return the flag.
+     * @since 1.3.16
+     */
+    default boolean persistAckedOffsets() {
+        return false;
+    }
+
+    /**
+     * Returns the external store for consumed offsets, if offsets are not committed to Kafka.
+     * @return the offset store or null.
+     * @since 1.3.16
+     */
+    @Nullable
+    default OffsetStore offsetStore() {
+        return null;
+    }
+
+    /**
+     * Returns the scheduler that records are deserialized on, if they are not deserialized by the consumer.
+     * @return the deserialization scheduler or null.
+     * @since 1.3.16
+     */
+    @Nullable
+    default Scheduler deserializationScheduler() {
+        return null;
+    }
+
+    /**
+     * Returns the handler of records that cannot be deserialized on the deserialization scheduler.
+     * @return the deserialization error handler or null.
+     * @since 1.3.16
+     */
+    @Nullable
+    default BiConsumer<ConsumerRecord<byte[], byte[]>, Throwable> deserializationErrorHandler() {
+        return null;
+    }
+
+    /**
+     * Returns the filter applied to polled records before they are deserialized.
+     * @return the raw record filter or null.
+     * @since 1.3.16
+     */
+    @Nullable
+    default RawRecordFilter rawRecordFilter() {
+        return null;
+    }
+
+    /**
+     * Returns the number of records after which a transaction of exactly once receivers is closed.
+     * @return the transaction record limit, or 0 if there is no limit
+     * @since 1.3.16
+     */
+    default int transactionMaxRecords() {
+        return 0;
+    }
+
+    /**
+     * Returns the serialized size of records after which a transaction of exactly once receivers is closed.
+     * @return the transaction size limit, or 0 if there is no limit
+     * @since 1.3.16
+     */
+    default long transactionMaxBytes() {
+        return 0;
+    }
+
+    /**
+     * Returns the duration after which a transaction of exactly once receivers is closed.
+     * @return the transaction duration limit, or null if polls are not grouped into transactions
+     * @since 1.3.16
+     */
+    @Nullable
+    default Duration transactionMaxDuration() {
+        return null;
+    }
+
     /**
      * Returns the Supplier for a Scheduler that Records will be published on
      * @return Scheduler Supplier to use for publishing
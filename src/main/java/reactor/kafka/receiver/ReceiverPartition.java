@@ -17,6 +17,10 @@
 package reactor.kafka.receiver;
 
 import org.apache.kafka.common.TopicPartition;
+import reactor.kafka.receiver.internals.BulkSeek;
+
+import java.util.Collection;
+import java.util.Map;
 
 /**
  * Topic partition interface that supports <code>seek</code> operations
@@ -63,4 +67,27 @@ public interface ReceiverPartition {
      * @return current offset of this partition
      */
     long position();
+
+    /**
+     * Seeks each of the partitions to the offset that is greater than or equal to the timestamp,
+     * like {@link #seekToTimestamp(long)}, using a single
+     * {@link org.apache.kafka.clients.consumer.Consumer#offsetsForTimes(java.util.Map)} request
+     * for all the partitions of a consumer. Partitions without matching records are sought to the end.
+     * This is intended for assign listeners that rewind a large assignment.
+     * @param partitions the partitions to seek, typically all the assigned partitions
+     * @param timestamp the timestamp.
+     * @since 1.3.16
+     */
+    static void seekAllToTimestamp(Collection<? extends ReceiverPartition> partitions, long timestamp) {
+        BulkSeek.seekToTimestamp(partitions, timestamp);
+    }
+
+    /**
+     * Seeks each of the partitions to its offset, like {@link #seek(long)}.
+     * @param offsets the offsets to seek to by partition
+     * @since 1.3.16
+     */
+    static void seekAll(Map<? extends ReceiverPartition, Long> offsets) {
+        BulkSeek.seek(offsets);
+    }
 }
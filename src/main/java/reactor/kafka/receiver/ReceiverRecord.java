@@ -17,9 +17,7 @@
 package reactor.kafka.receiver;
 
 import org.apache.kafka.clients.consumer.ConsumerRecord;
-
-import java.lang.reflect.InvocationTargetException;
-import java.lang.reflect.Method;
+import reactor.kafka.receiver.internals.RecordChecksum;
 
 /**
  * Represents an incoming record dispatched by {@link KafkaReceiver}.
@@ -29,18 +27,6 @@ import java.lang.reflect.Method;
  */
 public class ReceiverRecord<K, V> extends ConsumerRecord<K, V> {
 
-    private static final Method CHECKSUM_METHOD;
-
-    static {
-        Method method;
-        try {
-            method = ConsumerRecord.class.getDeclaredMethod("checksum");
-        } catch (NoSuchMethodException | SecurityException e) {
-            method = null;
-        }
-        CHECKSUM_METHOD = method;
-    }
-
     private final ReceiverOffset receiverOffset;
 
     @SuppressWarnings("deprecation")
@@ -50,7 +36,7 @@ public class ReceiverRecord<K, V> extends ConsumerRecord<K, V> {
                 consumerRecord.offset(),
                 consumerRecord.timestamp(),
                 consumerRecord.timestampType(),
-                checksum(consumerRecord),
+                RecordChecksum.of(consumerRecord),
                 consumerRecord.serializedKeySize(),
                 consumerRecord.serializedValueSize(),
                 consumerRecord.key(),
@@ -58,18 +44,6 @@ public class ReceiverRecord<K, V> extends ConsumerRecord<K, V> {
         this.receiverOffset = receiverOffset;
     }
 
-    private static Long checksum(@SuppressWarnings("rawtypes") ConsumerRecord consumerRecord) {
-        Long checksum = -1L;
-        if (CHECKSUM_METHOD != null) {
-            try {
-                checksum = (Long) CHECKSUM_METHOD.invoke(consumerRecord);
-            } catch (IllegalAccessException | IllegalArgumentException | InvocationTargetException e) {
-                throw new IllegalStateException(e);
-            }
-        }
-        return checksum;
-    }
-
     /**
      * Returns an acknowledgeable offset instance that should be acknowledged after this
      * record has been consumed. Acknowledged records are automatically committed
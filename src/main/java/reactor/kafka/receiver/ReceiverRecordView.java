@@ -0,0 +1,100 @@
+/*
+ * Copyright (c) 2023 VMware Inc. or its affiliates, All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package reactor.kafka.receiver;
+
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+
+import java.util.function.Function;
+
+/**
+ * Represents an incoming record dispatched by {@link KafkaReceiver#receiveViews()}. Unlike
+ * {@link ReceiverRecord}, the {@link ConsumerRecord} returned by the consumer is not copied
+ * but referenced, and its {@link ReceiverOffset} is only created when it is requested.
+ *
+ * @param <K> Incoming record key type
+ * @param <V> Incoming record value type
+ * @since 1.3.16
+ */
+public final class ReceiverRecordView<K, V> {
+
+    private final ConsumerRecord<K, V> consumerRecord;
+
+    private final Function<? super ConsumerRecord<K, V>, ? extends ReceiverOffset> offsetFactory;
+
+    private volatile ReceiverOffset receiverOffset;
+
+    public ReceiverRecordView(ConsumerRecord<K, V> consumerRecord,
+                              Function<? super ConsumerRecord<K, V>, ? extends ReceiverOffset> offsetFactory) {
+        this.consumerRecord = consumerRecord;
+        this.offsetFactory = offsetFactory;
+    }
+
+    /**
+     * Returns the record as returned by the consumer.
+     * @return consumer record
+     */
+    public ConsumerRecord<K, V> record() {
+        return consumerRecord;
+    }
+
+    public String topic() {
+        return consumerRecord.topic();
+    }
+
+    public int partition() {
+        return consumerRecord.partition();
+    }
+
+    public long offset() {
+        return consumerRecord.offset();
+    }
+
+    public long timestamp() {
+        return consumerRecord.timestamp();
+    }
+
+    public K key() {
+        return consumerRecord.key();
+    }
+
+    public V value() {
+        return consumerRecord.value();
+    }
+
+    /**
+     * Returns an acknowledgeable offset instance that should be acknowledged after this
+     * record has been consumed. The instance is created on first use. Acknowledged records are
+     * automatically committed based on the commit batch size and commit interval configured for
+     * the {@link KafkaReceiver}. Acknowledged records may be also committed using {@link ReceiverOffset#commit()}.
+     *
+     * @return offset to acknowledge after record is processed
+     */
+    public ReceiverOffset receiverOffset() {
+        ReceiverOffset offset = this.receiverOffset;
+        if (offset == null) {
+            // a concurrent first call may create a second instance, acknowledging either is equivalent
+            offset = offsetFactory.apply(consumerRecord);
+            this.receiverOffset = offset;
+        }
+        return offset;
+    }
+
+    @Override
+    public String toString() {
+        return String.valueOf(consumerRecord);
+    }
+}
@@ -0,0 +1,62 @@
+/*
+ * Copyright (c) 2023 VMware Inc. or its affiliates, All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package reactor.kafka.receiver.internals;
+
+import java.util.Base64;
+import java.util.BitSet;
+
+/**
+ * Encodes the offsets acknowledged above a committed offset in the metadata of the commit.
+ * Bit <code>i</code> of the bitmap is set if offset <code>committedOffset + i</code> was
+ * acknowledged. The bitmap is stored in base64 with a prefix identifying the format, and
+ * is truncated to fit the default broker limit on metadata size; offsets that do not fit
+ * are delivered again after a restart, as they would be without metadata.
+ */
+final class AckedOffsetsMetadata {
+
+    static final String PREFIX = "reactor-kafka-acked:";
+
+    /** 3000 bytes are 4000 base64 characters, below the default offset.metadata.max.bytes of 4096 */
+    static final int MAX_BITS = 3000 * 8;
+
+    private AckedOffsetsMetadata() {
+    }
+
+    /**
+     * Returns the metadata for a bitmap of acknowledged offsets, or an empty string if no offsets are set.
+     */
+    static String encode(BitSet acked) {
+        if (acked.isEmpty()) {
+            return "";
+        }
+        return PREFIX + Base64.getEncoder().encodeToString(acked.toByteArray());
+    }
+
+    /**
+     * Returns the bitmap of acknowledged offsets of commit metadata, or null if the metadata was not encoded by this class.
+     */
+    static BitSet decode(String metadata) {
+        if (metadata == null || !metadata.startsWith(PREFIX)) {
+            return null;
+        }
+        try {
+            return BitSet.valueOf(Base64.getDecoder().decode(metadata.substring(PREFIX.length())));
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+}
@@ -19,12 +19,17 @@ package reactor.kafka.receiver.internals;
 import org.apache.kafka.clients.consumer.OffsetAndMetadata;
 import org.apache.kafka.common.TopicPartition;
 
+import java.util.Collection;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
 
 class AtmostOnceOffsets {
     private final Map<TopicPartition, Long> committedOffsets = new ConcurrentHashMap<>();
     private final Map<TopicPartition, Long> dispatchedOffsets = new ConcurrentHashMap<>();
+    /* First offset of the earliest committed batch of each partition with records that were not dispatched */
+    private final Map<TopicPartition, Long> batchStarts = new ConcurrentHashMap<>();
+    /* Last offset of the latest committed batch of each partition */
+    private final Map<TopicPartition, Long> batchEnds = new ConcurrentHashMap<>();
 
     void onCommit(Map<TopicPartition, OffsetAndMetadata> offsets) {
         for (Map.Entry<TopicPartition, OffsetAndMetadata> entry : offsets.entrySet())
@@ -35,6 +40,34 @@ class AtmostOnceOffsets {
         dispatchedOffsets.put(topicPartition, offset);
     }
 
+    /**
+     * Records that a batch from <code>firstOffset</code> to <code>lastOffset</code> is committed before
+     * its records are dispatched, so that the commit is undone to the first record that was not dispatched.
+     * The batch starts the records to redeliver unless records of an earlier batch are still undispatched.
+     */
+    void onBatchCommit(TopicPartition topicPartition, long firstOffset, long lastOffset) {
+        Long previousEnd = batchEnds.get(topicPartition);
+        Long dispatched = dispatchedOffsets.get(topicPartition);
+        boolean previousDispatched = previousEnd == null || (dispatched != null && dispatched >= previousEnd);
+        if (previousDispatched || !batchStarts.containsKey(topicPartition)) {
+            batchStarts.put(topicPartition, firstOffset);
+        }
+        batchEnds.put(topicPartition, lastOffset);
+    }
+
+    /**
+     * Forgets the offsets of partitions that are assigned or revoked, which belong to an earlier
+     * assignment and must not be committed again.
+     */
+    void onAssignmentChange(Collection<TopicPartition> partitions) {
+        for (TopicPartition partition : partitions) {
+            committedOffsets.remove(partition);
+            dispatchedOffsets.remove(partition);
+            batchStarts.remove(partition);
+            batchEnds.remove(partition);
+        }
+    }
+
     long committedOffset(TopicPartition topicPartition) {
         Long offset = committedOffsets.get(topicPartition);
         return offset == null ? -1 : offset.longValue();
@@ -44,12 +77,25 @@ class AtmostOnceOffsets {
         boolean undoRequired = false;
         for (Map.Entry<TopicPartition, Long> entry : committedOffsets.entrySet()) {
             TopicPartition topicPartition = entry.getKey();
-            long offsetToCommit = dispatchedOffsets.get(entry.getKey()) + 1;
-            if (entry.getValue() > offsetToCommit) {
-                committableBatch.updateOffset(topicPartition, offsetToCommit);
+            long nextOffset = nextOffset(topicPartition);
+            // commit the offset of the first record that was not dispatched
+            if (nextOffset >= 0 && entry.getValue() > nextOffset) {
+                committableBatch.resetOffset(topicPartition, nextOffset);
                 undoRequired = true;
             }
         }
         return undoRequired;
     }
+
+    /**
+     * Returns the offset of the first record that was not dispatched, or -1 if unknown.
+     */
+    private long nextOffset(TopicPartition topicPartition) {
+        Long dispatched = dispatchedOffsets.get(topicPartition);
+        Long batchStart = batchStarts.get(topicPartition);
+        if (batchStart != null && (dispatched == null || dispatched < batchStart)) {
+            return batchStart;
+        }
+        return dispatched == null ? -1 : dispatched + 1;
+    }
 }
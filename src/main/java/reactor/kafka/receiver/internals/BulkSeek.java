@@ -0,0 +1,77 @@
+/*
+ * Copyright (c) 2023 VMware Inc. or its affiliates, All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package reactor.kafka.receiver.internals;
+
+import org.apache.kafka.clients.consumer.Consumer;
+import org.apache.kafka.clients.consumer.OffsetAndTimestamp;
+import org.apache.kafka.common.TopicPartition;
+import reactor.kafka.receiver.ReceiverPartition;
+
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Seeks many partitions of a consumer with a single <code>offsetsForTimes</code> request instead
+ * of one request per partition. Partitions that are not {@link SeekablePartition}s are sought
+ * one at a time.
+ */
+public final class BulkSeek {
+
+    private BulkSeek() {
+    }
+
+    /**
+     * Seeks each partition to the first offset with a timestamp greater than or equal to <code>timestamp</code>,
+     * or to the end of the partition if there is none.
+     */
+    public static void seekToTimestamp(Iterable<? extends ReceiverPartition> partitions, long timestamp) {
+        Map<Consumer<?, ?>, Map<TopicPartition, Long>> timestamps = new IdentityHashMap<>();
+        for (ReceiverPartition partition : partitions) {
+            if (partition instanceof SeekablePartition) {
+                timestamps.computeIfAbsent(((SeekablePartition) partition).consumer(), c -> new LinkedHashMap<>())
+                    .put(partition.topicPartition(), timestamp);
+            } else {
+                partition.seekToTimestamp(timestamp);
+            }
+        }
+        timestamps.forEach((consumer, consumerTimestamps) -> {
+            Map<TopicPartition, OffsetAndTimestamp> offsets = consumer.offsetsForTimes(consumerTimestamps);
+            List<TopicPartition> toEnd = new ArrayList<>();
+            for (TopicPartition topicPartition : consumerTimestamps.keySet()) {
+                OffsetAndTimestamp next = offsets.get(topicPartition);
+                if (next == null) {
+                    toEnd.add(topicPartition);
+                } else {
+                    consumer.seek(topicPartition, next.offset());
+                }
+            }
+            if (!toEnd.isEmpty()) {
+                consumer.seekToEnd(toEnd);
+            }
+        });
+    }
+
+    /**
+     * Seeks each partition to its offset.
+     */
+    public static void seek(Map<? extends ReceiverPartition, Long> offsets) {
+        offsets.forEach(ReceiverPartition::seek);
+    }
+}
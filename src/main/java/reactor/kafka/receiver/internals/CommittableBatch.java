@@ -16,6 +16,7 @@
 
 package reactor.kafka.receiver.internals;
 
+import org.apache.kafka.clients.consumer.ConsumerRecord;
 import org.apache.kafka.clients.consumer.ConsumerRecords;
 import org.apache.kafka.clients.consumer.OffsetAndMetadata;
 import org.apache.kafka.common.TopicPartition;
@@ -24,165 +25,494 @@ import org.slf4j.LoggerFactory;
 import reactor.core.publisher.MonoSink;
 
 import java.util.ArrayList;
+import java.util.BitSet;
 import java.util.Collection;
 import java.util.HashMap;
-import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
-import java.util.SortedSet;
-import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Predicate;
 
+/**
+ * Offsets acknowledged by the application that have not been committed yet.
+ * <p>
+ * Acknowledgements may arrive concurrently from many processing threads, so the ack path
+ * does not take a batch-wide lock: acknowledged offsets are kept per partition, either as an
+ * atomic offset (in order commits) or in an {@link OffsetWindow} guarded by its own monitor
+ * (out of order commits), and are merged when the event loop commits.
+ */
 class CommittableBatch {
 
     private static final Logger log = LoggerFactory.getLogger(CommittableBatch.class);
 
-    final Map<TopicPartition, Long> consumedOffsets = new HashMap<>();
-    final Map<TopicPartition, SortedSet<Long>> uncommitted = new HashMap<>();
-    final Map<TopicPartition, SortedSet<Long>> deferred = new HashMap<>();
-    private final Map<TopicPartition, Long> latestOffsets = new HashMap<>();
+    private static final long NONE = -1L;
+
+    final Map<TopicPartition, AtomicLong> consumedOffsets = new ConcurrentHashMap<>();
+    final Map<TopicPartition, OffsetWindow> uncommitted = new ConcurrentHashMap<>();
+    private final Map<TopicPartition, Long> latestOffsets = new ConcurrentHashMap<>();
+    private final Map<TopicPartition, ReceivedOffsets> receivedOffsets = new ConcurrentHashMap<>();
+    private final Map<TopicPartition, String> persistedAcks = new ConcurrentHashMap<>();
+    private final Map<TopicPartition, RestoredAcks> restoredAcks = new ConcurrentHashMap<>();
+    private final Map<TopicPartition, Long> resetOffsets = new ConcurrentHashMap<>();
     boolean outOfOrderCommits;
-    private int batchSize;
+    boolean persistAckedOffsets;
+    private final LongAdder batchSize = new LongAdder();
+    private final LongAdder deferredCount = new LongAdder();
+    private final Object ackMonitor = new Object();
+    private volatile boolean awaitingAck;
     private List<MonoSink<Void>> callbackEmitters = new ArrayList<>();
-    private int inPipeline;
 
-    public synchronized int updateOffset(TopicPartition topicPartition, long offset) {
+    public int updateOffset(TopicPartition topicPartition, long offset) {
         log.trace("Update offset {}@{}", topicPartition, offset);
         if (this.outOfOrderCommits) {
-            SortedSet<Long> uncommittedThisTP = this.uncommitted.get(topicPartition);
-            if (uncommittedThisTP != null && uncommittedThisTP.contains(offset)) {
-                SortedSet<Long> offsets = this.deferred.computeIfAbsent(topicPartition, tp -> new TreeSet<>());
-                if (offsets.add(offset)) {
-                    batchSize++;
-                    this.inPipeline--;
+            OffsetWindow uncommittedThisTP = this.uncommitted.get(topicPartition);
+            if (uncommittedThisTP != null) {
+                boolean acked;
+                synchronized (uncommittedThisTP) {
+                    // counted under the monitor so that partitionsRevoked subtracts it or it is dropped
+                    acked = !uncommittedThisTP.revoked && uncommittedThisTP.ack(offset);
+                    if (acked) {
+                        this.deferredCount.increment();
+                    }
+                }
+                if (acked) {
+                    signalAck();
                 }
             } else {
                 log.debug("No uncomitted offset for {}@{}, partition revoked?", topicPartition, offset);
             }
-        } else if (!((Long) offset).equals(consumedOffsets.put(topicPartition, offset))) {
-            batchSize++;
-            this.inPipeline--;
+        } else {
+            AtomicLong consumed = this.consumedOffsets.get(topicPartition);
+            if (consumed == null) {
+                consumed = this.consumedOffsets.computeIfAbsent(topicPartition, tp -> new AtomicLong(NONE));
+            }
+            if (consumed.get() != offset) {
+                // counted before the offset is set, so that a commit that takes the offset also takes its count
+                this.batchSize.increment();
+                consumed.set(offset);
+                signalAck();
+            }
+        }
+        return batchSize();
+    }
+
+    /**
+     * Commits <code>nextOffset</code> for a partition with the next commit, replacing the offsets
+     * acknowledged for it. Used to move a commit back to the first record that was not dispatched.
+     */
+    void resetOffset(TopicPartition topicPartition, long nextOffset) {
+        log.trace("Reset offset {}@{}", topicPartition, nextOffset);
+        this.resetOffsets.put(topicPartition, nextOffset);
+    }
+
+    /**
+     * Acknowledges the records of a partition from <code>firstOffset</code>
+     * to <code>lastOffset</code> as a single update.
+     */
+    public int updateOffsets(TopicPartition topicPartition, long firstOffset, long lastOffset) {
+        log.trace("Update offsets {}@{}-{}", topicPartition, firstOffset, lastOffset);
+        if (this.outOfOrderCommits) {
+            OffsetWindow uncommittedThisTP = this.uncommitted.get(topicPartition);
+            if (uncommittedThisTP != null) {
+                int acked = 0;
+                synchronized (uncommittedThisTP) {
+                    if (!uncommittedThisTP.revoked) {
+                        acked = uncommittedThisTP.ackRange(firstOffset, lastOffset);
+                        this.deferredCount.add(acked);
+                    }
+                }
+                signalAck();
+            } else {
+                log.debug("No uncomitted offsets for {}@{}-{}, partition revoked?", topicPartition, firstOffset, lastOffset);
+            }
+        } else {
+            AtomicLong consumed = this.consumedOffsets.get(topicPartition);
+            if (consumed == null) {
+                consumed = this.consumedOffsets.computeIfAbsent(topicPartition, tp -> new AtomicLong(NONE));
+            }
+            if (consumed.get() != lastOffset) {
+                this.batchSize.increment();
+                consumed.set(lastOffset);
+                signalAck();
+            }
         }
-        return batchSize;
+        return batchSize();
     }
 
     public synchronized void addCallbackEmitter(MonoSink<Void> emitter) {
         callbackEmitters.add(emitter);
     }
 
-    public synchronized boolean isEmpty() {
-        return batchSize == 0;
+    public boolean isEmpty() {
+        return batchSize() == 0;
     }
 
-    public synchronized int batchSize() {
-        return batchSize;
+    public int batchSize() {
+        return (int) (this.outOfOrderCommits ? this.deferredCount.sum() : this.batchSize.sum());
     }
 
-    public synchronized void addUncommitted(ConsumerRecords<?, ?> records) {
+    public void addUncommitted(ConsumerRecords<?, ?> records) {
         if (this.outOfOrderCommits) {
             records.partitions().forEach(tp -> {
-                SortedSet<Long> offsets = this.uncommitted.computeIfAbsent(tp, part -> new TreeSet<>());
-                records.records(tp).forEach(rec -> offsets.add(rec.offset()));
+                OffsetWindow offsets = this.uncommitted.computeIfAbsent(tp, part -> new OffsetWindow());
+                int dropped = 0;
+                synchronized (offsets) {
+                    for (ConsumerRecord<?, ?> record : records.records(tp)) {
+                        dropped += offsets.add(record.offset());
+                    }
+                }
+                if (dropped > 0) {
+                    // consumer was rewound, acknowledgements of the offsets received again are dropped
+                    this.deferredCount.add(-dropped);
+                }
+            });
+        } else {
+            records.partitions().forEach(tp -> {
+                List<? extends ConsumerRecord<?, ?>> partitionRecords = records.records(tp);
+                if (partitionRecords.isEmpty()) {
+                    return;
+                }
+                long first = partitionRecords.get(0).offset();
+                long last = partitionRecords.get(partitionRecords.size() - 1).offset();
+                ReceivedOffsets received = this.receivedOffsets.get(tp);
+                if (received == null || first <= received.last) {
+                    // first records or consumer was rewound
+                    this.receivedOffsets.put(tp, new ReceivedOffsets(first, last));
+                } else {
+                    received.last = last;
+                }
             });
         }
-        this.inPipeline += records.count();
     }
 
-    public synchronized void partitionsRevoked(Collection<TopicPartition> revoked) {
+    /**
+     * Returns the number of records of a partition that have been received but not acknowledged.
+     * With in order commits, this is estimated from the last received and the last acknowledged
+     * offsets, so gaps in the offsets of the partition are counted.
+     */
+    public int inFlight(TopicPartition topicPartition) {
+        if (this.outOfOrderCommits) {
+            OffsetWindow offsets = this.uncommitted.get(topicPartition);
+            if (offsets == null) {
+                return 0;
+            }
+            synchronized (offsets) {
+                return offsets.pendingCount();
+            }
+        }
+        ReceivedOffsets received = this.receivedOffsets.get(topicPartition);
+        if (received == null) {
+            return 0;
+        }
+        long acked = received.first - 1;
+        AtomicLong consumed = this.consumedOffsets.get(topicPartition);
+        if (consumed != null) {
+            acked = Math.max(acked, consumed.get());
+        }
+        Long latest = this.latestOffsets.get(topicPartition);
+        if (latest != null) {
+            acked = Math.max(acked, latest);
+        }
+        return (int) Math.max(0, Math.min(Integer.MAX_VALUE, received.last - acked));
+    }
+
+    /**
+     * Returns the number of records of some partitions that have been received but not acknowledged.
+     */
+    public int inFlight(Collection<TopicPartition> topicPartitions) {
+        long inFlight = 0;
+        for (TopicPartition topicPartition : topicPartitions) {
+            inFlight += inFlight(topicPartition);
+        }
+        return (int) Math.min(Integer.MAX_VALUE, inFlight);
+    }
+
+    /**
+     * Waits until a record is acknowledged or the timeout elapses, unless no records of
+     * <code>topicPartitions</code> are in flight. Only one thread may wait at a time.
+     */
+    public void awaitAck(Collection<TopicPartition> topicPartitions, long timeoutMillis) throws InterruptedException {
+        synchronized (this.ackMonitor) {
+            // Set before checking so that acknowledgements made after the check signal the monitor
+            this.awaitingAck = true;
+            try {
+                if (inFlight(topicPartitions) > 0) {
+                    this.ackMonitor.wait(timeoutMillis);
+                }
+            } finally {
+                this.awaitingAck = false;
+            }
+        }
+    }
+
+    private void signalAck() {
+        if (this.awaitingAck) {
+            synchronized (this.ackMonitor) {
+                this.ackMonitor.notifyAll();
+            }
+        }
+    }
+
+    public void partitionsRevoked(Collection<TopicPartition> revoked) {
         revoked.forEach(part -> {
-            this.uncommitted.remove(part);
-            this.deferred.remove(part);
+            this.receivedOffsets.remove(part);
+            this.persistedAcks.remove(part);
+            this.restoredAcks.remove(part);
+            OffsetWindow offsets = this.uncommitted.remove(part);
+            if (offsets != null) {
+                synchronized (offsets) {
+                    offsets.revoked = true;
+                    this.deferredCount.add(-offsets.deferredCount());
+                }
+            }
         });
     }
 
-    public synchronized int deferredCount() {
-        int count = 0;
-        for (SortedSet<Long> offsets : this.deferred.values()) {
-            count += offsets.size();
+    /**
+     * Restores the offsets above the committed offset of an assigned partition that were
+     * acknowledged before the partition was last revoked, from the metadata of the commit.
+     */
+    public void restoreAcks(TopicPartition topicPartition, OffsetAndMetadata committed) {
+        BitSet acked = committed == null ? null : AckedOffsetsMetadata.decode(committed.metadata());
+        if (acked == null || acked.isEmpty()) {
+            this.restoredAcks.remove(topicPartition);
+        } else {
+            log.debug("Restored {} acknowledged offsets above {}@{}", acked.cardinality(), topicPartition, committed.offset());
+            this.restoredAcks.put(topicPartition, new RestoredAcks(committed.offset(), acked));
+        }
+    }
+
+    /**
+     * Acknowledges the records that were acknowledged before the partition was assigned and
+     * returns the remaining records, which must be delivered. The records must have been added
+     * with {@link #addUncommitted(ConsumerRecords)}.
+     */
+    public <K, V> ConsumerRecords<K, V> skipRestoredAcks(ConsumerRecords<K, V> records) {
+        if (this.restoredAcks.isEmpty()) {
+            return records;
+        }
+        Map<TopicPartition, List<ConsumerRecord<K, V>>> remaining = new HashMap<>();
+        int skipped = 0;
+        for (TopicPartition tp : records.partitions()) {
+            List<ConsumerRecord<K, V>> partitionRecords = records.records(tp);
+            RestoredAcks acks = this.restoredAcks.get(tp);
+            if (acks == null || partitionRecords.isEmpty()) {
+                remaining.put(tp, partitionRecords);
+                continue;
+            }
+            List<ConsumerRecord<K, V>> delivered = new ArrayList<>(partitionRecords.size());
+            for (ConsumerRecord<K, V> record : partitionRecords) {
+                if (acks.contains(record.offset())) {
+                    updateOffset(tp, record.offset());
+                    skipped++;
+                } else {
+                    delivered.add(record);
+                }
+            }
+            long lastOffset = partitionRecords.get(partitionRecords.size() - 1).offset();
+            if (lastOffset >= acks.last() || partitionRecords.get(0).offset() < acks.committedOffset) {
+                // past the restored acks, or the consumer was rewound before the committed offset
+                this.restoredAcks.remove(tp);
+            }
+            if (!delivered.isEmpty()) {
+                remaining.put(tp, delivered);
+            }
+        }
+        if (skipped == 0) {
+            return records;
+        }
+        log.debug("Skipped {} records acknowledged before assignment", skipped);
+        return new ConsumerRecords<>(remaining);
+    }
+
+    /**
+     * Acknowledges the records matched by <code>skip</code> and returns the remaining records, which
+     * must be delivered. The records must have been added with {@link #addUncommitted(ConsumerRecords)}.
+     * With in order commits, acknowledging a skipped record would also commit the earlier records that
+     * are still in flight, so only the skipped records that precede all records in flight are
+     * acknowledged; the others are committed with the next acknowledged record of their partition.
+     */
+    public <K, V> ConsumerRecords<K, V> skip(ConsumerRecords<K, V> records, Predicate<ConsumerRecord<K, V>> skip) {
+        Map<TopicPartition, List<ConsumerRecord<K, V>>> remaining = new HashMap<>();
+        int skipped = 0;
+        for (TopicPartition tp : records.partitions()) {
+            List<ConsumerRecord<K, V>> partitionRecords = records.records(tp);
+            if (partitionRecords.isEmpty()) {
+                continue;
+            }
+            long first = partitionRecords.get(0).offset();
+            long last = partitionRecords.get(partitionRecords.size() - 1).offset();
+            // the records of this partition polled before are all acknowledged
+            boolean caughtUp = inFlight(tp) <= last - first + 1;
+            long firstSkipped = NONE;
+            long lastSkipped = NONE;
+            int prefixCount = 0;
+            List<ConsumerRecord<K, V>> delivered = new ArrayList<>(partitionRecords.size());
+            for (ConsumerRecord<K, V> record : partitionRecords) {
+                if (!skip.test(record)) {
+                    delivered.add(record);
+                    continue;
+                }
+                skipped++;
+                if (this.outOfOrderCommits) {
+                    updateOffset(tp, record.offset());
+                } else if (caughtUp && delivered.isEmpty()) {
+                    if (firstSkipped == NONE) {
+                        firstSkipped = record.offset();
+                    }
+                    lastSkipped = record.offset();
+                    prefixCount++;
+                }
+            }
+            if (prefixCount > 0) {
+                updateOffsets(tp, firstSkipped, lastSkipped);
+            }
+            if (!delivered.isEmpty()) {
+                remaining.put(tp, delivered);
+            }
+        }
+        if (skipped == 0) {
+            return records;
         }
-        return count;
+        log.trace("Skipped {} filtered records", skipped);
+        return new ConsumerRecords<>(remaining);
     }
 
-    public synchronized int getInPipeline() {
-        return this.inPipeline;
+    public int deferredCount() {
+        return (int) this.deferredCount.sum();
     }
 
-    public synchronized CommitArgs getAndClearOffsets() {
+    public CommitArgs getAndClearOffsets() {
         Map<TopicPartition, OffsetAndMetadata> offsetMap = new HashMap<>();
         if (this.outOfOrderCommits) {
-            this.deferred.forEach((tp, offsets) -> {
-                if (offsets.size() > 0) {
-                    long lastThisPart = -1;
-                    Iterator<Long> uncommittedIterator = this.uncommitted.get(tp).iterator();
-                    Iterator<Long> deferredIterator = offsets.iterator();
-
-                    while (deferredIterator.hasNext()) {
-                        Long earliestDeferredOffset = deferredIterator.next();
-                        Long earliestUncommittedOffset = uncommittedIterator.next();
-                        if (!earliestDeferredOffset.equals(earliestUncommittedOffset)) {
-                            break;
+            this.uncommitted.forEach((tp, offsets) -> {
+                long commitOffset = NONE;
+                String metadata = "";
+                synchronized (offsets) {
+                    int deferredThisPart = offsets.deferredCount();
+                    if (deferredThisPart > 0) {
+                        commitOffset = offsets.release();
+                        this.deferredCount.add(offsets.deferredCount() - deferredThisPart);
+                        if (this.persistAckedOffsets) {
+                            // acks above a gap are committed with the first offset of the window
+                            // until the gap is acknowledged
+                            long from = commitOffset >= 0 ? commitOffset : offsets.base();
+                            metadata = AckedOffsetsMetadata.encode(offsets.acked(from, AckedOffsetsMetadata.MAX_BITS));
+                            if (commitOffset < 0 && !metadata.isEmpty()
+                                    && !metadata.equals(this.persistedAcks.get(tp))) {
+                                commitOffset = from;
+                            }
                         }
-
-                        lastThisPart = earliestDeferredOffset;
-                        uncommittedIterator.remove();
-                        deferredIterator.remove();
                     }
-
-                    if (lastThisPart >= 0) {
-                        offsetMap.put(tp, new OffsetAndMetadata(lastThisPart + 1));
+                }
+                if (commitOffset >= 0) {
+                    if (this.persistAckedOffsets) {
+                        this.persistedAcks.put(tp, metadata);
                     }
+                    offsetMap.put(tp, new OffsetAndMetadata(commitOffset, metadata));
                 }
             });
-            batchSize = deferredCount();
         } else {
-            latestOffsets.putAll(consumedOffsets);
-            Iterator<Map.Entry<TopicPartition, Long>> iterator = consumedOffsets.entrySet().iterator();
-            while (iterator.hasNext()) {
-                Map.Entry<TopicPartition, Long> entry = iterator.next();
-                offsetMap.put(entry.getKey(), new OffsetAndMetadata(entry.getValue() + 1));
-                iterator.remove();
+            this.consumedOffsets.forEach((tp, consumed) -> {
+                long offset = consumed.getAndSet(NONE);
+                if (offset != NONE) {
+                    latestOffsets.put(tp, offset);
+                    offsetMap.put(tp, new OffsetAndMetadata(offset + 1));
+                }
+            });
+            // Acks are counted before their offset is set, so the count of every offset taken above
+            // is reset. An ack that races with the reset may have its count reset with its offset
+            // left for the next commit, which delays that commit but never triggers a spurious one.
+            this.batchSize.sumThenReset();
+        }
+        for (TopicPartition tp : this.resetOffsets.keySet()) {
+            Long nextOffset = this.resetOffsets.remove(tp);
+            if (nextOffset != null) {
+                latestOffsets.put(tp, nextOffset - 1);
+                offsetMap.put(tp, new OffsetAndMetadata(nextOffset));
             }
-            batchSize = 0;
         }
 
         List<MonoSink<Void>> currentCallbackEmitters;
-        if (!callbackEmitters.isEmpty()) {
-            currentCallbackEmitters = callbackEmitters;
-            callbackEmitters = new ArrayList<>();
-        } else
-            currentCallbackEmitters = null;
+        synchronized (this) {
+            if (!callbackEmitters.isEmpty()) {
+                currentCallbackEmitters = callbackEmitters;
+                callbackEmitters = new ArrayList<>();
+            } else
+                currentCallbackEmitters = null;
+        }
 
         return new CommitArgs(offsetMap, currentCallbackEmitters);
     }
 
-    public synchronized void restoreOffsets(CommitArgs commitArgs, boolean restoreCallbackEmitters) {
+    public void restoreOffsets(CommitArgs commitArgs, boolean restoreCallbackEmitters) {
         // Restore offsets that haven't been updated.
         if (outOfOrderCommits) {
             commitArgs.offsets.forEach((tp, offset) -> {
-                this.deferred.get(tp).add(offset.offset() - 1);
-                this.uncommitted.get(tp).add(offset.offset() - 1);
+                this.persistedAcks.remove(tp);
+                OffsetWindow offsets = this.uncommitted.get(tp);
+                if (offsets != null) {
+                    synchronized (offsets) {
+                        int deferredThisPart = offsets.deferredCount();
+                        offsets.restore(offset.offset());
+                        this.deferredCount.add(offsets.deferredCount() - deferredThisPart);
+                    }
+                }
             });
         } else {
             for (Map.Entry<TopicPartition, OffsetAndMetadata> entry : commitArgs.offsets.entrySet()) {
                 TopicPartition topicPart = entry.getKey();
                 long offset = entry.getValue().offset();
                 Long latestOffset = latestOffsets.get(topicPart);
-                if (latestOffset == null || latestOffset <= offset - 1)
-                    consumedOffsets.putIfAbsent(topicPart, offset - 1);
+                if (latestOffset == null || latestOffset <= offset - 1) {
+                    consumedOffsets.computeIfAbsent(topicPart, tp -> new AtomicLong(NONE))
+                        .compareAndSet(NONE, offset - 1);
+                }
             }
         }
         // If Mono is being failed after maxAttempts or due to fatal error, callback emitters
         // are not restored. Mono#retry will generate new callback emitters. If Mono status
         // is not being updated because commits are attempted again by KafkaReceiver, restore
         // the emitters for the next attempt.
-        if (restoreCallbackEmitters && commitArgs.callbackEmitters != null)
-            this.callbackEmitters = commitArgs.callbackEmitters;
+        if (restoreCallbackEmitters && commitArgs.callbackEmitters != null) {
+            synchronized (this) {
+                this.callbackEmitters = commitArgs.callbackEmitters;
+            }
+        }
     }
 
     @Override
-    public synchronized String toString() {
+    public String toString() {
         return String.valueOf(consumedOffsets);
     }
 
+    private static final class ReceivedOffsets {
+        private final long first;
+        private volatile long last;
+        ReceivedOffsets(long first, long last) {
+            this.first = first;
+            this.last = last;
+        }
+    }
+
+    private static final class RestoredAcks {
+        private final long committedOffset;
+        private final BitSet acked;
+        RestoredAcks(long committedOffset, BitSet acked) {
+            this.committedOffset = committedOffset;
+            this.acked = acked;
+        }
+        boolean contains(long offset) {
+            long index = offset - committedOffset;
+            return index >= 0 && index < Integer.MAX_VALUE && acked.get((int) index);
+        }
+        long last() {
+            return committedOffset + acked.length() - 1;
+        }
+    }
+
     public static class CommitArgs {
         private final Map<TopicPartition, OffsetAndMetadata> offsets;
         private final List<MonoSink<Void>> callbackEmitters;
@@ -17,6 +17,7 @@
 package reactor.kafka.receiver.internals;
 
 import org.apache.kafka.clients.consumer.ConsumerRebalanceListener;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
 import org.apache.kafka.clients.consumer.ConsumerRecords;
 import org.apache.kafka.clients.consumer.OffsetAndMetadata;
 import org.apache.kafka.common.TopicPartition;
@@ -34,9 +35,12 @@ import reactor.core.publisher.Sinks;
 import reactor.core.publisher.Sinks.EmitResult;
 import reactor.core.scheduler.Scheduler;
 import reactor.core.scheduler.Schedulers;
+import reactor.kafka.receiver.OffsetStore;
+import reactor.kafka.receiver.RawRecordFilter;
 import reactor.kafka.receiver.ReceiverOptions;
 import reactor.kafka.receiver.ReceiverPartition;
 
+import java.nio.ByteBuffer;
 import java.time.Duration;
 import java.util.ArrayList;
 import java.util.Collection;
@@ -45,6 +49,7 @@ import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
@@ -87,6 +92,35 @@ class ConsumerEventLoop<K, V> implements Sinks.EmitFailureHandler {
 
     final AtomicBoolean awaitingTransaction;
 
+    /*
+     * Set while a transaction that groups several polls is open. Revocations wait for the transaction,
+     * but the consumer is not paused, as it is while awaiting a transaction, so that more records are polled.
+     */
+    final AtomicBoolean transactionOpen = new AtomicBoolean();
+
+    final PartitionGroups<K, V> partitionGroups;
+
+    /*
+     * End offsets of the partitions consumed up to a range, or null if partitions are consumed without limit.
+     */
+    final OffsetLimits offsetLimits;
+
+    /*
+     * When the event thread is shared with other consumers, polls must not block it.
+     */
+    final boolean sharedEventLoop;
+
+    /*
+     * External store that acknowledged offsets are written to instead of being committed, or null.
+     */
+    final OffsetStore offsetStore;
+
+    /*
+     * Assigned partitions whose acknowledged offsets are restored from their committed metadata when
+     * their first records are polled, so that idle partitions are not looked up. Event thread only.
+     */
+    final Set<TopicPartition> pendingAckRestores = new HashSet<>();
+
     volatile long requested;
     @SuppressWarnings("rawtypes")
     static final AtomicLongFieldUpdater<ConsumerEventLoop> REQUESTED = AtomicLongFieldUpdater.newUpdater(
@@ -103,6 +137,22 @@ class ConsumerEventLoop<K, V> implements Sinks.EmitFailureHandler {
         Predicate<Throwable> isRetriableException,
         Sinks.Many<ConsumerRecords<K, V>> sink,
         AtomicBoolean awaitingTransaction
+    ) {
+        this(ackMode, atmostOnceOffsets, receiverOptions, eventScheduler, consumer, isRetriableException, sink,
+            awaitingTransaction, null, null);
+    }
+
+    ConsumerEventLoop(
+        AckMode ackMode,
+        AtmostOnceOffsets atmostOnceOffsets,
+        ReceiverOptions<K, V> receiverOptions,
+        Scheduler eventScheduler,
+        org.apache.kafka.clients.consumer.Consumer<K, V> consumer,
+        Predicate<Throwable> isRetriableException,
+        Sinks.Many<ConsumerRecords<K, V>> sink,
+        AtomicBoolean awaitingTransaction,
+        PartitionGroups<K, V> partitionGroups,
+        OffsetLimits offsetLimits
     ) {
         this.ackMode = ackMode;
         this.atmostOnceOffsets = atmostOnceOffsets;
@@ -112,10 +162,20 @@ class ConsumerEventLoop<K, V> implements Sinks.EmitFailureHandler {
         this.isRetriableException = isRetriableException;
         this.sink = sink;
         this.awaitingTransaction = awaitingTransaction;
+        this.partitionGroups = partitionGroups;
+        this.offsetLimits = offsetLimits;
+        this.sharedEventLoop = receiverOptions.eventLoopGroup() != null;
+        this.offsetStore = receiverOptions.offsetStore();
 
         this.pollEvent = new PollEvent();
 
+        if (partitionGroups != null) {
+            partitionGroups.onDrained(this::onPartitionDrained);
+        }
+
         commitEvent.commitBatch.outOfOrderCommits = receiverOptions.maxDeferredCommits() > 0;
+        commitEvent.commitBatch.persistAckedOffsets = commitEvent.commitBatch.outOfOrderCommits
+            && receiverOptions.persistAckedOffsets();
 
         eventScheduler.schedule(new SubscribeEvent());
 
@@ -152,45 +212,86 @@ class ConsumerEventLoop<K, V> implements Sinks.EmitFailureHandler {
             log.debug("onRequest.toAdd {}, paused {}", toAdd, pollEvent.isPaused());
         }
         Operators.addCap(REQUESTED, this, toAdd);
-        if (pollEvent.isPaused()) {
+        if (pollEvent.isPaused() && !sharedEventLoop) {
             consumer.wakeup();
         }
         pollEvent.schedule();
     }
 
+    private void onPartitionDrained() {
+        if (isActive.get()) {
+            if (!sharedEventLoop) {
+                consumer.wakeup();
+            }
+            pollEvent.schedule();
+        }
+    }
+
     private void onPartitionsRevoked(Collection<TopicPartition> partitions) {
         log.debug("onPartitionsRevoked {}", partitions);
         if (!partitions.isEmpty()) {
             // It is safe to use the consumer here since we are in a poll()
             if (ackMode != AckMode.ATMOST_ONCE) {
+                commitEvent.awaitStore(System.currentTimeMillis() + receiverOptions.maxDelayRebalance().toMillis());
                 commitEvent.runIfRequired(true);
                 long maxDelayRebalance = receiverOptions.maxDelayRebalance().toMillis();
                 if (isActive.get() && maxDelayRebalance > 0) {
-                    long interval = receiverOptions.commitIntervalDuringDelay();
-                    int inPipeline = commitEvent.commitBatch.getInPipeline();
-                    if (inPipeline > 0 || this.awaitingTransaction.get()) {
-                        long end = maxDelayRebalance + System.currentTimeMillis();
-                        do {
-                            try {
-                                log.debug("Rebalancing; waiting for {} records in pipeline", inPipeline);
-                                Thread.sleep(interval);
-                                commitEvent.runIfRequired(true);
-                            } catch (InterruptedException e) {
-                                Thread.currentThread().interrupt();
-                                break;
-                            }
-                            inPipeline = commitEvent.commitBatch.getInPipeline();
-                        } while (isActive.get() && (inPipeline > 0 || this.awaitingTransaction.get())
-                                && System.currentTimeMillis() < end);
-                    }
+                    awaitRevokedDrained(partitions, maxDelayRebalance);
                 }
             }
             for (Consumer<Collection<ReceiverPartition>> onRevoke : receiverOptions.revokeListeners()) {
                 onRevoke.accept(toSeekable(partitions));
             }
+            if (partitionGroups != null) {
+                partitionGroups.onRevoked(partitions);
+            }
         }
     }
 
+    /*
+     * Delays the revocation until the records of the revoked partitions have been acknowledged,
+     * waking up on each acknowledgement, and commits them. Records of other partitions that are
+     * still in the pipeline do not delay the revocation.
+     */
+    private void awaitRevokedDrained(Collection<TopicPartition> partitions, long maxDelayRebalance) {
+        CommittableBatch commitBatch = commitEvent.commitBatch;
+        int inFlight = commitBatch.inFlight(partitions);
+        if (inFlight == 0 && !transactionPending()) {
+            return;
+        }
+        long interval = receiverOptions.commitIntervalDuringDelay();
+        long now = System.currentTimeMillis();
+        long end = now + maxDelayRebalance;
+        long nextCommit = now + interval;
+        do {
+            log.debug("Rebalancing; waiting for {} records of revoked partitions in pipeline", inFlight);
+            long timeout = Math.max(1, Math.min(end, nextCommit) - now);
+            try {
+                if (inFlight > 0) {
+                    commitBatch.awaitAck(partitions, timeout);
+                } else {
+                    // only waiting for a transaction, whose completion is not signalled
+                    Thread.sleep(timeout);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+            now = System.currentTimeMillis();
+            if (now >= nextCommit) {
+                commitEvent.runIfRequired(true);
+                nextCommit = now + interval;
+            }
+            inFlight = commitBatch.inFlight(partitions);
+        } while (isActive.get() && (inFlight > 0 || transactionPending()) && now < end);
+        commitEvent.awaitStore(end);
+        commitEvent.runIfRequired(true);
+    }
+
+    private boolean transactionPending() {
+        return this.awaitingTransaction.get() || this.transactionOpen.get();
+    }
+
     private Collection<ReceiverPartition> toSeekable(Collection<TopicPartition> partitions) {
         List<ReceiverPartition> seekableList = new ArrayList<>(partitions.size());
         for (TopicPartition partition : partitions)
@@ -242,6 +343,9 @@ class ConsumerEventLoop<K, V> implements Sinks.EmitFailureHandler {
                         @Override
                         public void onPartitionsAssigned(Collection<TopicPartition> partitions) {
                             log.debug("onPartitionsAssigned {}", partitions);
+                            atmostOnceOffsets.onAssignmentChange(partitions);
+                            ConsumerEventLoop.this.pollEvent.pausedForInFlight.removeAll(partitions);
+                            pendingAckRestores.removeAll(partitions);
                             boolean repausedAll = false;
                             if (!partitions.isEmpty() && ConsumerEventLoop.this.pollEvent.pausedByUs.get()) {
                                 log.debug("Rebalance during back pressure, re-pausing new assignments");
@@ -263,11 +367,36 @@ class ConsumerEventLoop<K, V> implements Sinks.EmitFailureHandler {
                                     consumer.pause(toRepause);
                                 }
                             }
+                            Map<TopicPartition, OffsetAndMetadata> stored = null;
+                            if (offsetStore != null && !partitions.isEmpty()) {
+                                stored = offsetStore.load(partitions).block();
+                                if (stored != null) {
+                                    stored.forEach((partition, offset) -> {
+                                        log.debug("Seeking {} to stored offset {}", partition, offset.offset());
+                                        consumer.seek(partition, offset.offset());
+                                    });
+                                }
+                            }
+                            if (ConsumerEventLoop.this.pollEvent.commitBatch.persistAckedOffsets) {
+                                for (TopicPartition partition : partitions) {
+                                    if (offsetStore != null) {
+                                        ConsumerEventLoop.this.pollEvent.commitBatch.restoreAcks(partition,
+                                            stored == null ? null : stored.get(partition));
+                                    } else {
+                                        // committed offsets are looked up when records of the partition are polled
+                                        ConsumerEventLoop.this.pollEvent.commitBatch.restoreAcks(partition, null);
+                                        pendingAckRestores.add(partition);
+                                    }
+                                }
+                            }
                             // onAssign methods may perform seek. It is safe to use the consumer here since we are in a poll()
                             for (Consumer<Collection<ReceiverPartition>> onAssign :
                                     receiverOptions.assignListeners()) {
                                 onAssign.accept(toSeekable(partitions));
                             }
+                            if (partitionGroups != null) {
+                                partitionGroups.onAssigned(partitions);
+                            }
                             if (log.isTraceEnabled()) {
                                 try {
                                     List<String> positions = new ArrayList<>();
@@ -286,6 +415,8 @@ class ConsumerEventLoop<K, V> implements Sinks.EmitFailureHandler {
                         public void onPartitionsRevoked(Collection<TopicPartition> partitions) {
                             ConsumerEventLoop.this.onPartitionsRevoked(partitions);
                             ConsumerEventLoop.this.pollEvent.commitBatch.partitionsRevoked(partitions);
+                            atmostOnceOffsets.onAssignmentChange(partitions);
+                            ConsumerEventLoop.this.pollEvent.pausedForInFlight.removeAll(partitions);
                         }
                     })
                     .accept(consumer);
@@ -310,6 +441,22 @@ class ConsumerEventLoop<K, V> implements Sinks.EmitFailureHandler {
 
         private final CommittableBatch commitBatch = commitEvent.commitBatch;
 
+        /*
+         * Records are only acknowledged through the commit batch with manual and auto acknowledgement,
+         * so the limit does not apply to at-most-once and exactly-once receives.
+         */
+        private final int maxInFlightPerPartition = ackMode == AckMode.MANUAL_ACK || ackMode == AckMode.AUTO_ACK
+            ? receiverOptions.maxInFlightPerPartition()
+            : 0;
+
+        private final RawRecordFilter rawRecordFilter = receiverOptions.rawRecordFilter();
+
+        /*
+         * Partitions paused because too many of their records are in flight or buffered in their
+         * partition group, only accessed on the event thread.
+         */
+        final Set<TopicPartition> pausedForInFlight = new HashSet<>();
+
         @Override
         public void run() {
             try {
@@ -330,6 +477,7 @@ class ConsumerEventLoop<K, V> implements Sinks.EmitFailureHandler {
                             if (pausedByUs.getAndSet(false)) {
                                 Set<TopicPartition> toResume = new HashSet<>(consumer.assignment());
                                 toResume.removeAll(ConsumerEventLoop.this.pausedByUser);
+                                toResume.removeAll(this.pausedForInFlight);
                                 consumer.resume(toResume);
                                 if (log.isDebugEnabled()) {
                                     log.debug("Resumed partitions: " + toResume);
@@ -352,24 +500,67 @@ class ConsumerEventLoop<K, V> implements Sinks.EmitFailureHandler {
                         }
                     }
 
+                    if (this.maxInFlightPerPartition > 0 || partitionGroups != null) {
+                        pauseOrResumeForInFlight();
+                    }
+
                     ConsumerRecords<K, V> records;
                     try {
-                        records = consumer.poll(pollTimeout.toMillis());
+                        records = consumer.poll(sharedEventLoop ? 0L : pollTimeout.toMillis());
                     } catch (WakeupException e) {
                         log.debug("Consumer woken");
                         records = ConsumerRecords.empty();
                     }
 
                     if (isActive.get()) {
-                        schedule();
+                        if (sharedEventLoop && records.isEmpty()) {
+                            // leave the shared event thread to other consumers instead of blocking in poll
+                            scheduleAfterPollTimeout();
+                        } else {
+                            schedule();
+                        }
+                    }
+
+                    boolean complete = false;
+                    if (offsetLimits != null && !offsetLimits.isReleased()) {
+                        offsetLimits.capture(consumer);
+                        Set<TopicPartition> polled = records.partitions();
+                        records = offsetLimits.limit(records);
+                        Collection<TopicPartition> finished = offsetLimits.finish(consumer, polled);
+                        if (!finished.isEmpty()) {
+                            // kept paused like the partitions paused by the user
+                            ConsumerEventLoop.this.pausedByUser.addAll(finished);
+                            consumer.pause(finished);
+                            log.debug("Paused - reached the end of the range of {}", finished);
+                        }
+                        complete = offsetLimits.isComplete();
                     }
 
                     if (!records.isEmpty()) {
+                        if (!pendingAckRestores.isEmpty()) {
+                            restorePendingAcks(records);
+                        }
                         this.commitBatch.addUncommitted(records);
+                        records = this.commitBatch.skipRestoredAcks(records);
+                        if (this.rawRecordFilter != null) {
+                            records = this.commitBatch.skip(records, this::isFiltered);
+                        }
+                    }
+
+                    if (!records.isEmpty()) {
                         r = Operators.produced(REQUESTED, ConsumerEventLoop.this, 1);
                         log.debug("Emitting {} records, requested now {}", records.count(), r);
                         sink.emitNext(records, ConsumerEventLoop.this);
                     }
+
+                    if (complete) {
+                        if (offsetLimits.isTail()) {
+                            endSnapshot();
+                        } else {
+                            log.debug("Reached the end of the ranges of all partitions");
+                            sink.emitComplete(ConsumerEventLoop.this);
+                        }
+                    }
                 }
             } catch (Exception e) {
                 if (isActive.get()) {
@@ -379,13 +570,88 @@ class ConsumerEventLoop<K, V> implements Sinks.EmitFailureHandler {
             }
         }
 
+        /*
+         * Emits the end of snapshot marker and resumes the partitions paused at the end of the snapshot.
+         */
+        @SuppressWarnings("unchecked")
+        private void endSnapshot() {
+            log.debug("Reached the end of the snapshot of all partitions");
+            offsetLimits.release();
+            sink.emitNext((ConsumerRecords<K, V>) OffsetLimits.END_OF_SNAPSHOT, ConsumerEventLoop.this);
+            Set<TopicPartition> toResume = new HashSet<>(offsetLimits.partitions());
+            ConsumerEventLoop.this.pausedByUser.removeAll(toResume);
+            toResume.removeAll(this.pausedForInFlight);
+            if (!toResume.isEmpty() && !pausedByUs.get()) {
+                consumer.resume(toResume);
+            }
+        }
+
+        /*
+         * Returns true if a record polled as byte arrays is rejected by the raw record filter.
+         */
+        private boolean isFiltered(ConsumerRecord<K, V> record) {
+            Object key = record.key();
+            ByteBuffer keyBuffer = key == null ? null : ByteBuffer.wrap((byte[]) key).asReadOnlyBuffer();
+            return !this.rawRecordFilter.test(record.topic(), record.partition(), record.offset(), record.timestamp(),
+                keyBuffer);
+        }
+
+        /*
+         * Pauses the partitions that have too many records in flight, so that a slow partition
+         * does not stall the others, and resumes them once enough records are acknowledged.
+         */
+        private void pauseOrResumeForInFlight() {
+            List<TopicPartition> toPause = new ArrayList<>();
+            List<TopicPartition> toResume = new ArrayList<>();
+            boolean pausedNow = false;
+            for (TopicPartition partition : consumer.assignment()) {
+                if (isFull(partition)) {
+                    // pause again in case the partition was resumed by the application
+                    pausedNow |= this.pausedForInFlight.add(partition);
+                    toPause.add(partition);
+                } else if (this.pausedForInFlight.remove(partition)) {
+                    toResume.add(partition);
+                }
+            }
+            if (!toPause.isEmpty()) {
+                consumer.pause(toPause);
+                if (pausedNow) {
+                    log.debug("Paused - too many records in flight for {}", toPause);
+                }
+            }
+            toResume.removeAll(ConsumerEventLoop.this.pausedByUser);
+            if (!toResume.isEmpty() && !pausedByUs.get()) {
+                consumer.resume(toResume);
+                log.debug("Resumed - records in flight processed for {}", toResume);
+            }
+        }
+
+        /*
+         * Restores the acknowledged offsets of newly assigned partitions with polled records, with
+         * one committed offset lookup per partition.
+         */
+        private void restorePendingAcks(ConsumerRecords<K, V> records) {
+            for (TopicPartition partition : records.partitions()) {
+                if (!records.records(partition).isEmpty() && pendingAckRestores.remove(partition)) {
+                    this.commitBatch.restoreAcks(partition, consumer.committed(partition));
+                }
+            }
+        }
+
+        private boolean isFull(TopicPartition partition) {
+            return this.maxInFlightPerPartition > 0
+                    && this.commitBatch.inFlight(partition) >= this.maxInFlightPerPartition
+                || partitionGroups != null && partitionGroups.isFull(partition);
+        }
+
         /*
          * Race condition where onRequest was called to increase requested but we
          * hadn't yet paused the consumer; wake immediately in this case.
          */
         private boolean checkAndSetPausedByUs() {
             boolean pausedNow = !pausedByUs.getAndSet(true);
-            if (pausedNow && requested > 0 && (!commitEvent.retrying.get() || commitEvent.cooperativeRetry)) {
+            if (pausedNow && !sharedEventLoop && requested > 0
+                    && (!commitEvent.retrying.get() || commitEvent.cooperativeRetry)) {
                 consumer.wakeup();
             }
             return pausedNow;
@@ -397,6 +663,12 @@ class ConsumerEventLoop<K, V> implements Sinks.EmitFailureHandler {
             }
         }
 
+        private void scheduleAfterPollTimeout() {
+            if (!this.scheduled.getAndSet(true)) {
+                eventScheduler.schedule(this, pollTimeout.toMillis(), TimeUnit.MILLISECONDS);
+            }
+        }
+
         boolean isPaused() {
             return pausedByUs.get();
         }
@@ -406,12 +678,18 @@ class ConsumerEventLoop<K, V> implements Sinks.EmitFailureHandler {
         final CommittableBatch commitBatch = new CommittableBatch();
         private final AtomicBoolean isPending = new AtomicBoolean();
         private final AtomicInteger inProgress = new AtomicInteger();
+        /* Notified when a write to the offset store completes */
+        private final Object storeMonitor = new Object();
         private final AtomicInteger consecutiveCommitFailures = new AtomicInteger();
         private final AtomicBoolean retrying = new AtomicBoolean();
         private boolean cooperativeRetry;
 
         @Override
         public void run() {
+            if (offsetStore != null && inProgress.get() > 0) {
+                // offsets acknowledged meanwhile are coalesced into the write after the current one
+                return;
+            }
             if (!isPending.compareAndSet(true, false)) {
                 return;
             }
@@ -424,7 +702,11 @@ class ConsumerEventLoop<K, V> implements Sinks.EmitFailureHandler {
                                 if (log.isDebugEnabled()) {
                                     log.debug("Sync committing: " + commitArgs.offsets());
                                 }
-                                consumer.commitSync(commitArgs.offsets());
+                                if (offsetStore != null) {
+                                    offsetStore.store(commitArgs.offsets()).block();
+                                } else {
+                                    consumer.commitSync(commitArgs.offsets());
+                                }
                                 handleSuccess(commitArgs, commitArgs.offsets());
                                 atmostOnceOffsets.onCommit(commitArgs.offsets());
                                 break;
@@ -433,6 +715,10 @@ class ConsumerEventLoop<K, V> implements Sinks.EmitFailureHandler {
                                 break;
                             case AUTO_ACK:
                             case MANUAL_ACK:
+                                if (offsetStore != null) {
+                                    store(commitArgs);
+                                    break;
+                                }
                                 inProgress.incrementAndGet();
                                 try {
                                     if (log.isDebugEnabled()) {
@@ -462,6 +748,54 @@ class ConsumerEventLoop<K, V> implements Sinks.EmitFailureHandler {
             }
         }
 
+        private void store(CommittableBatch.CommitArgs commitArgs) {
+            inProgress.incrementAndGet();
+            if (log.isDebugEnabled()) {
+                log.debug("Storing offsets: " + commitArgs.offsets());
+            }
+            try {
+                offsetStore.store(commitArgs.offsets())
+                    .subscribe(null,
+                        e -> onStored(commitArgs, e instanceof Exception ? (Exception) e : new RuntimeException(e)),
+                        () -> onStored(commitArgs, null));
+            } catch (Throwable e) {
+                inProgress.decrementAndGet();
+                throw e;
+            }
+        }
+
+        private void onStored(CommittableBatch.CommitArgs commitArgs, Exception exception) {
+            synchronized (storeMonitor) {
+                inProgress.decrementAndGet();
+                storeMonitor.notifyAll();
+            }
+            Runnable task = () -> {
+                if (exception == null) {
+                    handleSuccess(commitArgs, commitArgs.offsets());
+                } else {
+                    handleFailure(commitArgs, exception);
+                }
+                if (isActive.get()) {
+                    runIfRequired(false);
+                }
+            };
+            try {
+                eventScheduler.schedule(task);
+            } catch (RejectedExecutionException e) {
+                // event loop closed, complete the callbacks on this thread
+                task.run();
+            }
+        }
+
+        /*
+         * Waits until the write to the offset store in progress, if any, has completed.
+         */
+        void awaitStore(long endTimeMillis) {
+            if (offsetStore != null) {
+                waitFor(endTimeMillis);
+            }
+        }
+
         void runIfRequired(boolean force) {
             if (force)
                 isPending.set(true);
@@ -526,6 +860,20 @@ class ConsumerEventLoop<K, V> implements Sinks.EmitFailureHandler {
         }
 
         private void waitFor(long endTimeMillis) {
+            if (offsetStore != null) {
+                synchronized (storeMonitor) {
+                    long remaining;
+                    while (inProgress.get() > 0 && (remaining = endTimeMillis - System.currentTimeMillis()) > 0) {
+                        try {
+                            storeMonitor.wait(remaining);
+                        } catch (InterruptedException e) {
+                            Thread.currentThread().interrupt();
+                            return;
+                        }
+                    }
+                }
+                return;
+            }
             while (inProgress.get() > 0 && endTimeMillis - System.currentTimeMillis() > 0) {
                 consumer.poll(1L);
             }
@@ -558,6 +906,7 @@ class ConsumerEventLoop<K, V> implements Sinks.EmitFailureHandler {
                                 forceCommit = atmostOnceOffsets.undoCommitAhead(commitEvent.commitBatch);
                             // For exactly-once, offsets are committed by a producer, consumer may be closed immediately
                             if (ackMode != AckMode.EXACTLY_ONCE) {
+                                commitEvent.awaitStore(closeEndTimeMillis);
                                 commitEvent.runIfRequired(forceCommit);
                                 commitEvent.waitFor(closeEndTimeMillis);
                             }
@@ -18,6 +18,7 @@ package reactor.kafka.receiver.internals;
 
 import org.apache.kafka.clients.consumer.Consumer;
 import org.apache.kafka.clients.consumer.KafkaConsumer;
+import org.apache.kafka.common.serialization.ByteArrayDeserializer;
 
 import reactor.kafka.receiver.ReceiverOptions;
 
@@ -28,7 +29,14 @@ public class ConsumerFactory {
     protected ConsumerFactory() {
     }
 
+    @SuppressWarnings({ "unchecked", "rawtypes" })
     public <K, V> Consumer<K, V> createConsumer(ReceiverOptions<K, V> config) {
+        if (Deserializers.pollsSerialized(config)) {
+            // records are filtered or deserialized off the event thread by the receiver
+            return (Consumer) new KafkaConsumer<>(config.consumerProperties(),
+                                                  new ByteArrayDeserializer(),
+                                                  new ByteArrayDeserializer());
+        }
         return new KafkaConsumer<>(config.consumerProperties(),
                                    config.keyDeserializer(),
                                    config.valueDeserializer());
@@ -26,6 +26,7 @@ import reactor.core.publisher.Mono;
 import reactor.core.publisher.Sinks;
 import reactor.core.scheduler.Scheduler;
 import reactor.kafka.receiver.KafkaReceiver;
+import reactor.kafka.receiver.ReceiverBatch;
 import reactor.kafka.receiver.ReceiverOffset;
 import reactor.kafka.receiver.ReceiverOptions;
 
@@ -35,6 +36,8 @@ import java.lang.reflect.Proxy;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
 import java.util.Set;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.function.Function;
@@ -81,6 +84,8 @@ class ConsumerHandler<K, V> {
     private final Sinks.Many<ConsumerRecords<K, V>> sink =
         Sinks.many().unicast().onBackpressureBuffer();
 
+    private final ParallelDeserializer<K, V> parallelDeserializer;
+
     private Consumer<K, V> consumerProxy;
 
     ConsumerHandler(
@@ -88,11 +93,26 @@ class ConsumerHandler<K, V> {
         Consumer<K, V> consumer,
         Predicate<Throwable> isRetriableException,
         AckMode ackMode
+    ) {
+        this(receiverOptions, consumer, isRetriableException, ackMode, null, null);
+    }
+
+    ConsumerHandler(
+        ReceiverOptions<K, V> receiverOptions,
+        Consumer<K, V> consumer,
+        Predicate<Throwable> isRetriableException,
+        AckMode ackMode,
+        PartitionGroups<K, V> partitionGroups,
+        OffsetLimits offsetLimits
     ) {
         this.receiverOptions = receiverOptions;
         this.consumer = consumer;
 
-        eventScheduler = KafkaSchedulers.newEvent(receiverOptions.groupId());
+        String eventLoopGroup = receiverOptions.eventLoopGroup();
+        eventScheduler = eventLoopGroup == null
+            ? KafkaSchedulers.newEvent(receiverOptions.groupId(), receiverOptions.virtualThreads())
+            : KafkaSchedulers.newSharedEvent(eventLoopGroup, receiverOptions.eventLoopGroupThreads(),
+                receiverOptions.virtualThreads());
 
         consumerEventLoop = new ConsumerEventLoop<>(
             ackMode,
@@ -102,17 +122,43 @@ class ConsumerHandler<K, V> {
             consumer,
             isRetriableException,
             sink,
-            awaitingTransaction
+            awaitingTransaction,
+            partitionGroups,
+            offsetLimits
         );
         eventScheduler.init();
+
+        if (Deserializers.deserializedByReceiver(receiverOptions)) {
+            // With in order commits, acknowledging a skipped record would also commit the earlier records
+            // that are still being processed, it is committed with the next acknowledged record instead
+            boolean outOfOrderCommits = receiverOptions.maxDeferredCommits() > 0;
+            parallelDeserializer = new ParallelDeserializer<>(receiverOptions, record -> {
+                if (outOfOrderCommits) {
+                    new CommittableOffset<>(
+                        new TopicPartition(record.topic(), record.partition()),
+                        record.offset(),
+                        consumerEventLoop.commitEvent,
+                        receiverOptions.commitBatchSize()
+                    ).acknowledge();
+                }
+            });
+        } else {
+            parallelDeserializer = null;
+        }
     }
 
     public Flux<ConsumerRecords<K, V>> receive() {
-        return sink.asFlux().doOnRequest(consumerEventLoop::onRequest);
+        Flux<ConsumerRecords<K, V>> records = sink.asFlux().doOnRequest(consumerEventLoop::onRequest);
+        return parallelDeserializer == null ? records : parallelDeserializer.deserialize(records);
     }
 
     public Mono<Void> close() {
-        return consumerEventLoop.stop().doFinally(__ -> eventScheduler.dispose());
+        return consumerEventLoop.stop().doFinally(__ -> {
+            eventScheduler.dispose();
+            if (parallelDeserializer != null) {
+                parallelDeserializer.close();
+            }
+        });
     }
 
     public <T> Mono<T> doOnConsumer(Function<Consumer<K, V>, ? extends T> function) {
@@ -149,6 +195,40 @@ class ConsumerHandler<K, V> {
         return Mono.empty();
     }
 
+    /**
+     * Commits the offset following the last record of each partition of a batch, before the batch is
+     * dispatched. Records must be reported with {@link #onDispatch(ConsumerRecord)} when they are
+     * dispatched, so that offsets of records that were not dispatched are committed again on close.
+     */
+    public Mono<Void> commitBatch(ConsumerRecords<K, V> records) {
+        CommittableBatch commitBatch = consumerEventLoop.commitEvent.commitBatch;
+        for (TopicPartition partition : records.partitions()) {
+            List<ConsumerRecord<K, V>> partitionRecords = records.records(partition);
+            if (partitionRecords.isEmpty()) {
+                continue;
+            }
+            long firstOffset = partitionRecords.get(0).offset();
+            long lastOffset = partitionRecords.get(partitionRecords.size() - 1).offset();
+            atmostOnceOffsets.onBatchCommit(partition, firstOffset, lastOffset);
+            commitBatch.updateOffsets(partition, firstOffset, lastOffset);
+        }
+        return Mono.create(emitter -> {
+            commitBatch.addCallbackEmitter(emitter);
+            consumerEventLoop.commitEvent.scheduleIfRequired();
+        });
+    }
+
+    /**
+     * Marks a transaction that groups several polls as open, so that revocations wait for it.
+     */
+    void transactionOpen(boolean open) {
+        consumerEventLoop.transactionOpen.set(open);
+    }
+
+    public void onDispatch(ConsumerRecord<K, V> record) {
+        atmostOnceOffsets.onDispatch(new TopicPartition(record.topic(), record.partition()), record.offset());
+    }
+
     public void acknowledge(ConsumerRecord<K, V> record) {
         toCommittableOffset(record).acknowledge();
     }
@@ -162,6 +242,14 @@ class ConsumerHandler<K, V> {
         );
     }
 
+    public ReceiverBatch<K, V> toCommittableBatch(ConsumerRecords<K, V> records) {
+        return new CommittableRecords<>(
+            records,
+            consumerEventLoop.commitEvent,
+            receiverOptions.commitBatchSize()
+        );
+    }
+
     @SuppressWarnings("unchecked")
     private Consumer<K, V> consumerProxy() {
         if (consumerProxy != null) {
@@ -257,4 +345,91 @@ class ConsumerHandler<K, V> {
             return topicPartition + "@" + commitOffset;
         }
     }
+
+    private static class CommittableRecords<K, V> implements ReceiverBatch<K, V> {
+
+        private final ConsumerRecords<K, V> records;
+
+        private final ConsumerEventLoop<K, V>.CommitEvent commitEvent;
+
+        private final int commitBatchSize;
+
+        private final AtomicBoolean acknowledged = new AtomicBoolean(false);
+
+        CommittableRecords(
+            ConsumerRecords<K, V> records,
+            ConsumerEventLoop<K, V>.CommitEvent commitEvent,
+            int commitBatchSize
+        ) {
+            this.records = records;
+            this.commitEvent = commitEvent;
+            this.commitBatchSize = commitBatchSize;
+        }
+
+        @Override
+        public ConsumerRecords<K, V> records() {
+            return records;
+        }
+
+        @Override
+        public Set<TopicPartition> partitions() {
+            return records.partitions();
+        }
+
+        @Override
+        public List<ConsumerRecord<K, V>> records(TopicPartition partition) {
+            return records.records(partition);
+        }
+
+        @Override
+        public int count() {
+            return records.count();
+        }
+
+        @Override
+        public Iterator<ConsumerRecord<K, V>> iterator() {
+            return records.iterator();
+        }
+
+        @Override
+        public Mono<Void> commit() {
+            if (maybeUpdateOffsets() > 0)
+                return Mono.create(emitter -> {
+                    commitEvent.commitBatch.addCallbackEmitter(emitter);
+                    commitEvent.scheduleIfRequired();
+                });
+            else
+                return Mono.empty();
+        }
+
+        @Override
+        public void acknowledge() {
+            long uncommittedCount = maybeUpdateOffsets();
+            if (commitBatchSize > 0 && uncommittedCount >= commitBatchSize)
+                commitEvent.scheduleIfRequired();
+        }
+
+        private int maybeUpdateOffsets() {
+            if (!acknowledged.compareAndSet(false, true))
+                return commitEvent.commitBatch.batchSize();
+            int batchSize = 0;
+            for (TopicPartition partition : records.partitions()) {
+                List<ConsumerRecord<K, V>> partitionRecords = records.records(partition);
+                if (partitionRecords.isEmpty()) {
+                    continue;
+                }
+                batchSize = commitEvent.commitBatch.updateOffsets(
+                    partition,
+                    partitionRecords.get(0).offset(),
+                    partitionRecords.get(partitionRecords.size() - 1).offset()
+                );
+            }
+            return batchSize;
+        }
+
+        @Override
+        public String toString() {
+            return "ReceiverBatch(" + records.count() + " records from " + records.partitions() + ")";
+        }
+    }
 }
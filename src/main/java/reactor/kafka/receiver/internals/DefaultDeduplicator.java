@@ -0,0 +1,247 @@
+/*
+ * Copyright (c) 2023 VMware Inc. or its affiliates, All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package reactor.kafka.receiver.internals;
+
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.common.TopicPartition;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+import reactor.kafka.receiver.Deduplicator;
+import reactor.kafka.receiver.ReceiverOffset;
+import reactor.kafka.receiver.ReceiverRecord;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Duration;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import java.util.function.LongSupplier;
+
+public class DefaultDeduplicator<K, V> implements Deduplicator<K, V> {
+
+    private static final Logger log = LoggerFactory.getLogger(DefaultDeduplicator.class);
+
+    private static final int MAGIC = 0x524b4401;
+
+    private final Function<? super ConsumerRecord<K, V>, byte[]> idExtractor;
+
+    private final int maxIdsPerPartition;
+
+    private final long maxAgeMillis;
+
+    private final Path snapshot;
+
+    private final LongSupplier clock;
+
+    private final Map<TopicPartition, RecentIds> partitions = new ConcurrentHashMap<>();
+
+    private final AtomicLong duplicates = new AtomicLong();
+
+    private boolean restored;
+
+    public DefaultDeduplicator(Function<? super ConsumerRecord<K, V>, byte[]> idExtractor, int maxIdsPerPartition,
+                               Duration maxAge, Path snapshot) {
+        this(idExtractor, maxIdsPerPartition, maxAge, snapshot, System::currentTimeMillis);
+    }
+
+    DefaultDeduplicator(Function<? super ConsumerRecord<K, V>, byte[]> idExtractor, int maxIdsPerPartition,
+                        Duration maxAge, Path snapshot, LongSupplier clock) {
+        if (maxIdsPerPartition <= 0) {
+            throw new IllegalArgumentException("maxIdsPerPartition must be > 0");
+        }
+        if (maxAge.isNegative() || maxAge.isZero()) {
+            throw new IllegalArgumentException("maxAge must be > 0");
+        }
+        this.idExtractor = idExtractor;
+        this.maxIdsPerPartition = maxIdsPerPartition;
+        this.maxAgeMillis = maxAge.toMillis();
+        this.snapshot = snapshot;
+        this.clock = clock;
+    }
+
+    @Override
+    public Flux<ReceiverRecord<K, V>> apply(Flux<ReceiverRecord<K, V>> records) {
+        Flux<ReceiverRecord<K, V>> deduplicated = records.handle((record, sink) -> {
+            byte[] id = idExtractor.apply(record);
+            if (id == null) {
+                sink.next(record);
+                return;
+            }
+            long fingerprint = fingerprint(id);
+            RecentIds ids = partitions.computeIfAbsent(record.receiverOffset().topicPartition(),
+                partition -> new RecentIds(maxIdsPerPartition, maxAgeMillis));
+            if (ids.contains(fingerprint, clock.getAsLong())) {
+                log.trace("Dropping duplicate record {}", record);
+                duplicates.incrementAndGet();
+                record.receiverOffset().acknowledge();
+            } else {
+                sink.next(new ReceiverRecord<>(record, new RememberingOffset(record.receiverOffset(), ids, fingerprint)));
+            }
+        });
+        if (snapshot == null) {
+            return deduplicated;
+        }
+        return Mono.fromRunnable(this::restore)
+            .subscribeOn(Schedulers.boundedElastic())
+            .thenMany(deduplicated);
+    }
+
+    @Override
+    public long duplicates() {
+        return duplicates.get();
+    }
+
+    @Override
+    public Mono<Void> snapshot() {
+        if (snapshot == null) {
+            return Mono.error(new IllegalStateException("No snapshot file is configured for this deduplicator"));
+        }
+        return Mono.<Void>fromRunnable(this::write)
+            .subscribeOn(Schedulers.boundedElastic());
+    }
+
+    @Override
+    public void forget(Collection<TopicPartition> partitions) {
+        log.debug("Forgetting recent ids of partitions {}", partitions);
+        // direct memory of the removed ids is released when they are no longer referenced
+        this.partitions.keySet().removeAll(partitions);
+    }
+
+    private synchronized void write() {
+        restore();
+        try {
+            Path parent = snapshot.toAbsolutePath().getParent();
+            Path temp = Files.createTempFile(parent, snapshot.getFileName().toString(), ".tmp");
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temp)))) {
+                Map<TopicPartition, RecentIds> partitions = new HashMap<>(this.partitions);
+                out.writeInt(MAGIC);
+                out.writeInt(partitions.size());
+                for (Map.Entry<TopicPartition, RecentIds> entry : partitions.entrySet()) {
+                    out.writeUTF(entry.getKey().topic());
+                    out.writeInt(entry.getKey().partition());
+                    entry.getValue().writeTo(out);
+                }
+            }
+            Files.move(temp, snapshot, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to write snapshot " + snapshot, e);
+        }
+    }
+
+    /**
+     * Loads the snapshot the first time records are received or a snapshot is written.
+     */
+    private synchronized void restore() {
+        if (restored) {
+            return;
+        }
+        if (Files.exists(snapshot)) {
+            try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(snapshot)))) {
+                if (in.readInt() != MAGIC) {
+                    throw new IOException("Not a deduplicator snapshot");
+                }
+                int count = in.readInt();
+                for (int i = 0; i < count; i++) {
+                    TopicPartition partition = new TopicPartition(in.readUTF(), in.readInt());
+                    partitions.computeIfAbsent(partition, p -> new RecentIds(maxIdsPerPartition, maxAgeMillis))
+                        .readFrom(in);
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException("Failed to read snapshot " + snapshot, e);
+            }
+            log.debug("Restored recent ids of {} partitions from {}", partitions.size(), snapshot);
+        }
+        restored = true;
+    }
+
+    /**
+     * Returns the 64-bit FNV-1a hash of an id, with the finalizer of MurmurHash3 to spread the bits
+     * used by the hash table.
+     */
+    static long fingerprint(byte[] id) {
+        long hash = 0xcbf29ce484222325L;
+        for (byte b : id) {
+            hash ^= b & 0xff;
+            hash *= 0x100000001b3L;
+        }
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        hash *= 0xc4ceb9fe1a85ec53L;
+        hash ^= hash >>> 33;
+        return hash;
+    }
+
+    /**
+     * Remembers the id of a record when it is acknowledged or committed.
+     */
+    private final class RememberingOffset implements ReceiverOffset {
+
+        private final ReceiverOffset delegate;
+
+        private final RecentIds ids;
+
+        private final long fingerprint;
+
+        RememberingOffset(ReceiverOffset delegate, RecentIds ids, long fingerprint) {
+            this.delegate = delegate;
+            this.ids = ids;
+            this.fingerprint = fingerprint;
+        }
+
+        @Override
+        public TopicPartition topicPartition() {
+            return delegate.topicPartition();
+        }
+
+        @Override
+        public long offset() {
+            return delegate.offset();
+        }
+
+        @Override
+        public void acknowledge() {
+            ids.add(fingerprint, clock.getAsLong());
+            delegate.acknowledge();
+        }
+
+        @Override
+        public Mono<Void> commit() {
+            ids.add(fingerprint, clock.getAsLong());
+            return delegate.commit();
+        }
+
+        @Override
+        public String toString() {
+            return delegate.toString();
+        }
+    }
+}
@@ -17,20 +17,33 @@
 package reactor.kafka.receiver.internals;
 
 import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.consumer.ConsumerRecords;
+import org.apache.kafka.clients.consumer.OffsetAndMetadata;
 import org.apache.kafka.clients.consumer.RetriableCommitFailedException;
 import org.apache.kafka.common.TopicPartition;
 import org.apache.kafka.common.errors.RebalanceInProgressException;
+import org.apache.kafka.common.serialization.Deserializer;
+import org.reactivestreams.Publisher;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import reactor.core.publisher.Flux;
+import reactor.core.publisher.GroupedFlux;
 import reactor.core.publisher.Mono;
 import reactor.core.scheduler.Scheduler;
 import reactor.core.scheduler.Schedulers;
 import reactor.kafka.receiver.KafkaReceiver;
+import reactor.kafka.receiver.OffsetRange;
+import reactor.kafka.receiver.ReceiverBatch;
+import reactor.kafka.receiver.ReceiverOffset;
 import reactor.kafka.receiver.ReceiverOptions;
 import reactor.kafka.receiver.ReceiverRecord;
+import reactor.kafka.receiver.ReceiverRecordView;
 import reactor.kafka.sender.TransactionManager;
+import reactor.util.concurrent.Queues;
 
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
 import java.util.function.BiFunction;
 import java.util.function.Function;
 import java.util.function.Predicate;
@@ -68,6 +81,177 @@ public class DefaultKafkaReceiver<K, V> implements KafkaReceiver<K, V> {
         });
     }
 
+    @Override
+    public Flux<ReceiverRecord<K, V>> receiveRange(Map<TopicPartition, OffsetRange> ranges, Integer prefetch) {
+        if (ranges.isEmpty()) {
+            return Flux.empty();
+        }
+        return Flux.defer(() -> {
+            Map<TopicPartition, OffsetRange> rangesCopy = new HashMap<>(ranges);
+            Map<TopicPartition, Long> endOffsets = new HashMap<>();
+            rangesCopy.forEach((partition, range) -> endOffsets.put(partition, range.end()));
+            ReceiverOptions<K, V> rangeOptions = receiverOptions
+                .assignment(rangesCopy.keySet())
+                .addAssignListener(partitions -> partitions.forEach(partition ->
+                    partition.seek(rangesCopy.get(partition.topicPartition()).start())));
+            OffsetLimits offsetLimits = new OffsetLimits(endOffsets);
+            return withHandler(AckMode.MANUAL_ACK, null, offsetLimits, rangeOptions, (scheduler, handler) ->
+                receiverRecords(handler.receive(), handler, scheduler, prefetch));
+        });
+    }
+
+    @Override
+    public Flux<ReceiverRecord<K, V>> receiveSnapshot(Integer prefetch) {
+        if (receiverOptions.assignment() == null) {
+            return Flux.error(new IllegalStateException("Receiving a snapshot requires a partition assignment"));
+        }
+        return Flux.defer(() -> withHandler(AckMode.MANUAL_ACK, null, OffsetLimits.snapshot(false), receiverOptions,
+            (scheduler, handler) -> receiverRecords(handler.receive(), handler, scheduler, prefetch)));
+    }
+
+    @Override
+    public Flux<Flux<ReceiverRecord<K, V>>> receiveSnapshotThenTail(Integer prefetch) {
+        if (receiverOptions.assignment() == null) {
+            return Flux.error(new IllegalStateException("Receiving a snapshot requires a partition assignment"));
+        }
+        return Flux.defer(() -> withHandler(AckMode.MANUAL_ACK, null, OffsetLimits.snapshot(true), receiverOptions,
+            (scheduler, handler) -> handler
+                .receive()
+                .windowUntil(records -> records == OffsetLimits.END_OF_SNAPSHOT)
+                .map(window -> receiverRecords(
+                    window.filter(records -> records != OffsetLimits.END_OF_SNAPSHOT), handler, scheduler, prefetch))));
+    }
+
+    private Flux<ReceiverRecord<K, V>> receiverRecords(
+        Flux<ConsumerRecords<K, V>> batches,
+        ConsumerHandler<K, V> handler,
+        Scheduler scheduler,
+        Integer prefetch
+    ) {
+        int prefetchCalculated = preparePublishOnQueueSize(prefetch);
+        return batches
+            .publishOn(scheduler, prefetchCalculated)
+            .flatMapIterable(it -> it, prefetchCalculated)
+            .map(record -> new ReceiverRecord<>(
+                record,
+                handler.toCommittableOffset(record)
+            ));
+    }
+
+    @Override
+    public Flux<ReceiverRecordView<K, V>> receiveViews(Integer prefetch) {
+        return withHandler(AckMode.MANUAL_ACK, (scheduler, handler) -> {
+            int prefetchCalculated = preparePublishOnQueueSize(prefetch);
+            Function<ConsumerRecord<K, V>, ReceiverOffset> offsetFactory = handler::toCommittableOffset;
+            return handler
+                .receive()
+                .publishOn(scheduler, prefetchCalculated)
+                .flatMapIterable(it -> it, prefetchCalculated)
+                .map(record -> new ReceiverRecordView<>(record, offsetFactory));
+        });
+    }
+
+    @Override
+    public Flux<ReceiverRecord<K, V>> receiveLazy(Integer prefetch) {
+        return Flux.defer(() -> {
+            Deserializer<K> keyDeserializer = Deserializers.keyDeserializer(receiverOptions);
+            Deserializer<V> valueDeserializer = Deserializers.valueDeserializer(receiverOptions);
+            return withHandler(AckMode.MANUAL_ACK, null, null, serializedOptions(), (scheduler, handler) -> {
+                int prefetchCalculated = preparePublishOnQueueSize(prefetch);
+                return handler
+                    .receive()
+                    .publishOn(scheduler, prefetchCalculated)
+                    .flatMapIterable(it -> it, prefetchCalculated)
+                    .map(record -> new LazyReceiverRecord<>(
+                        record,
+                        handler.toCommittableOffset(record),
+                        keyDeserializer,
+                        valueDeserializer
+                    ));
+            }).doFinally(signal -> {
+                Deserializers.closeIfCreated(keyDeserializer, receiverOptions.keyDeserializer());
+                Deserializers.closeIfCreated(valueDeserializer, receiverOptions.valueDeserializer());
+            });
+        });
+    }
+
+    /**
+     * Returns the options of a consumer that polls records as byte arrays, which are deserialized
+     * by the receiver. The generic types of the options are erased.
+     */
+    @SuppressWarnings({ "unchecked", "rawtypes" })
+    private ReceiverOptions<K, V> serializedOptions() {
+        return (ReceiverOptions) Deserializers.serializedOptions(receiverOptions);
+    }
+
+    @Override
+    public <T> Flux<T> receiveKeyOrdered(int concurrency, Function<? super ReceiverRecord<K, V>, ? extends Publisher<T>> processor) {
+        if (concurrency <= 0) {
+            return Flux.error(new IllegalArgumentException("concurrency must be > 0"));
+        }
+        if (receiverOptions.maxDeferredCommits() <= 0) {
+            return Flux.error(new IllegalStateException("Key ordered processing requires out of order commits, "
+                + "maxDeferredCommits must be > 0"));
+        }
+        // A fixed number of groups, each drained by its own worker, so groups are never abandoned
+        // and the number of records in process is bounded by the concurrency.
+        return Flux.using(
+            () -> Schedulers.newParallel("reactor-kafka-key-ordered", concurrency),
+            scheduler -> receive()
+                .groupBy(record -> keyGroup(record, concurrency))
+                .flatMap(group -> group
+                    .publishOn(scheduler)
+                    .concatMap(record -> Flux.<T>from(processor.apply(record))
+                        .doOnComplete(() -> record.receiverOffset().acknowledge())),
+                    concurrency),
+            Scheduler::dispose
+        );
+    }
+
+    static int keyGroup(ConsumerRecord<?, ?> record, int groups) {
+        Object key = record.key();
+        int hash;
+        if (key == null) {
+            hash = record.topic().hashCode() * 31 + record.partition();
+        } else if (key instanceof byte[]) {
+            hash = Arrays.hashCode((byte[]) key);
+        } else {
+            hash = key.hashCode();
+        }
+        return Math.floorMod(hash ^ (hash >>> 16), groups);
+    }
+
+    @Override
+    public Flux<GroupedFlux<TopicPartition, ReceiverRecord<K, V>>> receivePerPartition(Integer prefetch) {
+        return Flux.defer(() -> {
+            PartitionGroups<K, V> partitionGroups =
+                new PartitionGroups<>(prefetch != null ? prefetch : Queues.SMALL_BUFFER_SIZE);
+            return withHandler(AckMode.MANUAL_ACK, partitionGroups, (scheduler, handler) -> {
+                partitionGroups.deliverOn(scheduler);
+                Function<ConsumerRecord<K, V>, ReceiverOffset> offsetFactory = handler::toCommittableOffset;
+                // Records are routed on the event thread, which also pauses the partitions of full groups
+                Flux<GroupedFlux<TopicPartition, ReceiverRecord<K, V>>> routing = handler
+                    .receive()
+                    .doOnNext(records -> partitionGroups.route(records, offsetFactory))
+                    .doOnError(partitionGroups::terminate)
+                    .thenMany(Flux.empty());
+                return partitionGroups
+                    .groups()
+                    .mergeWith(routing)
+                    .doFinally(signal -> partitionGroups.terminate(null));
+            });
+        });
+    }
+
+    @Override
+    public Flux<ReceiverBatch<K, V>> receiveBatch(Integer prefetch) {
+        return withHandler(AckMode.MANUAL_ACK, (scheduler, handler) -> handler
+            .receive()
+            .filter(it -> !it.isEmpty())
+            .publishOn(scheduler, preparePublishOnQueueSize(prefetch))
+            .map(handler::toCommittableBatch));
+    }
+
     @Override
     public Flux<Flux<ConsumerRecord<K, V>>> receiveAutoAck(Integer prefetch) {
         return withHandler(AckMode.AUTO_ACK, (scheduler, handler) -> handler
@@ -92,28 +276,57 @@ public class DefaultKafkaReceiver<K, V> implements KafkaReceiver<K, V> {
                 .publishOn(scheduler, 1), preparePublishOnQueueSize(prefetch)));
     }
 
+    @Override
+    public Flux<ConsumerRecord<K, V>> receiveAtmostOnceBatched(Integer prefetch) {
+        return withHandler(AckMode.ATMOST_ONCE, (scheduler, handler) -> handler
+            .receive()
+            .filter(it -> !it.isEmpty())
+            .concatMap(records -> handler
+                .commitBatch(records)
+                .thenMany(Flux.fromIterable(records)), preparePublishOnQueueSize(prefetch))
+            .publishOn(scheduler)
+            .doOnNext(handler::onDispatch));
+    }
+
     @Override
     public Flux<Flux<ConsumerRecord<K, V>>> receiveExactlyOnce(TransactionManager transactionManager, Integer prefetch) {
         return withHandler(AckMode.EXACTLY_ONCE, (scheduler, handler) -> {
-            Flux<Flux<ConsumerRecord<K, V>>> resultFlux =
-                handler
-                    .receive()
-                    .filter(it -> !it.isEmpty())
-                    .map(consumerRecords -> {
-                        CommittableBatch offsetBatch = new CommittableBatch();
-                        for (ConsumerRecord<K, V> r : consumerRecords) {
-                            offsetBatch.updateOffset(new TopicPartition(r.topic(), r.partition()), r.offset());
-                        }
-
-                        return transactionManager.begin()
-                            .thenMany(Flux.defer(() -> {
+            boolean grouped = TransactionPolls.isGrouped(receiverOptions);
+            Flux<ConsumerRecords<K, V>> polls = handler
+                .receive()
+                .filter(it -> !it.isEmpty());
+            Flux<Flux<ConsumerRecords<K, V>>> transactions = grouped
+                ? new TransactionPolls<>(receiverOptions, Schedulers.parallel()).group(polls)
+                : polls.map(Flux::just);
+            Flux<Flux<ConsumerRecord<K, V>>> resultFlux = transactions
+                .map(transactionPolls -> {
+                    Map<TopicPartition, OffsetAndMetadata> offsets = new HashMap<>();
+                    return transactionManager.begin()
+                        .thenMany(Flux.defer(() -> {
+                            // a single poll pauses the consumer until the transaction completes, while
+                            // grouped polls keep polling until the transaction is closed
+                            if (grouped) {
+                                handler.transactionOpen(true);
+                            } else {
                                 handler.awaitingTransaction.getAndSet(true);
-                                return Flux.fromIterable(consumerRecords);
-                            }))
-                            .concatWith(transactionManager.sendOffsets(offsetBatch.getAndClearOffsets().offsets(),
-                                    handler.consumer.toString()))
-                            .doAfterTerminate(() -> handler.awaitingTransaction.set(false));
-                    });
+                            }
+                            return transactionPolls;
+                        }))
+                        .concatMapIterable(records -> {
+                            TransactionPolls.updateOffsets(offsets, records);
+                            return records;
+                        })
+                        .concatWith(Mono.defer(() -> {
+                            handler.awaitingTransaction.set(true);
+                            return offsets.isEmpty()
+                                ? Mono.empty()
+                                : transactionManager.<ConsumerRecord<K, V>>sendOffsets(offsets, handler.consumer.toString());
+                        }))
+                        .doAfterTerminate(() -> {
+                            handler.awaitingTransaction.set(false);
+                            handler.transactionOpen(false);
+                        });
+                });
             return resultFlux.publishOn(transactionManager.scheduler(), preparePublishOnQueueSize(prefetch));
         });
     }
@@ -128,13 +341,33 @@ public class DefaultKafkaReceiver<K, V> implements KafkaReceiver<K, V> {
     }
 
     private <T> Flux<T> withHandler(AckMode ackMode, BiFunction<Scheduler, ConsumerHandler<K, V>, Flux<T>> function) {
+        return withHandler(ackMode, null, function);
+    }
+
+    private <T> Flux<T> withHandler(
+        AckMode ackMode,
+        PartitionGroups<K, V> partitionGroups,
+        BiFunction<Scheduler, ConsumerHandler<K, V>, Flux<T>> function
+    ) {
+        return withHandler(ackMode, partitionGroups, null, receiverOptions, function);
+    }
+
+    private <T> Flux<T> withHandler(
+        AckMode ackMode,
+        PartitionGroups<K, V> partitionGroups,
+        OffsetLimits offsetLimits,
+        ReceiverOptions<K, V> handlerOptions,
+        BiFunction<Scheduler, ConsumerHandler<K, V>, Flux<T>> function
+    ) {
         return Flux.usingWhen(
             Mono.fromCallable(() -> consumerHandler = new ConsumerHandler<>(
-                receiverOptions,
-                consumerFactory.createConsumer(receiverOptions),
+                handlerOptions,
+                consumerFactory.createConsumer(handlerOptions),
                 // Always use the currently set value
                 e -> isRetriableException.test(e),
-                ackMode
+                ackMode,
+                partitionGroups,
+                offsetLimits
             )),
             handler -> Flux.using(
                 () -> Schedulers.single(receiverOptions.schedulerSupplier().get()),
@@ -0,0 +1,213 @@
+/*
+ * Copyright (c) 2023 VMware Inc. or its affiliates, All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package reactor.kafka.receiver.internals;
+
+import org.apache.kafka.clients.consumer.Consumer;
+import org.apache.kafka.clients.consumer.ConsumerConfig;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.ParallelFlux;
+import reactor.core.publisher.Sinks;
+import reactor.kafka.receiver.KafkaReceiverPool;
+import reactor.kafka.receiver.ReceiverOptions;
+import reactor.kafka.receiver.ReceiverRecord;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Function;
+
+public class DefaultKafkaReceiverPool<K, V> implements KafkaReceiverPool<K, V> {
+
+    private static final Logger log = LoggerFactory.getLogger(DefaultKafkaReceiverPool.class);
+
+    private final ConsumerFactory consumerFactory;
+
+    private final ReceiverOptions<K, V> receiverOptions;
+
+    private final List<Member> members = new ArrayList<>();
+
+    private int size;
+
+    private int nextMemberId;
+
+    /**
+     * Starts members of the active merged receive, null if the pool is not receiving or receiving in parallel.
+     */
+    private Sinks.Many<Member> additions;
+
+    /**
+     * Identifies the active parallel receive, whose rails start one member each; null once all its members have stopped.
+     */
+    private Object parallelReceive;
+
+    public DefaultKafkaReceiverPool(ConsumerFactory consumerFactory, ReceiverOptions<K, V> receiverOptions, int consumers) {
+        if (consumers <= 0) {
+            throw new IllegalArgumentException("consumers must be > 0");
+        }
+        this.consumerFactory = consumerFactory;
+        this.receiverOptions = receiverOptions;
+        this.size = consumers;
+    }
+
+    @Override
+    public Flux<ReceiverRecord<K, V>> receive(Integer prefetch) {
+        return Flux.defer(() -> {
+            Sinks.Many<Member> added = Sinks.many().unicast().onBackpressureBuffer();
+            synchronized (this) {
+                if (!members.isEmpty()) {
+                    return Flux.error(new IllegalStateException("Receiver pool is already receiving"));
+                }
+                additions = added;
+                for (int i = 0; i < size; i++) {
+                    addMember(added);
+                }
+            }
+            return added
+                .asFlux()
+                .flatMap(member -> member.receive(prefetch), Integer.MAX_VALUE)
+                .doFinally(signal -> {
+                    synchronized (this) {
+                        if (additions == added) {
+                            additions = null;
+                        }
+                        // Members added after the merged flux terminated are never subscribed to
+                        members.removeIf(member -> !member.subscribed);
+                    }
+                });
+        });
+    }
+
+    @Override
+    public ParallelFlux<ReceiverRecord<K, V>> receiveParallel(Integer prefetch) {
+        int rails = size();
+        Object receive = new Object();
+        @SuppressWarnings("unchecked")
+        Flux<ReceiverRecord<K, V>>[] consumers = new Flux[rails];
+        for (int i = 0; i < rails; i++) {
+            consumers[i] = Flux.defer(() -> {
+                synchronized (this) {
+                    if (additions != null || (parallelReceive != null && parallelReceive != receive)) {
+                        return Flux.error(new IllegalStateException("Receiver pool is already receiving"));
+                    }
+                    parallelReceive = receive;
+                    return newMember().receive(prefetch);
+                }
+            });
+        }
+        return ParallelFlux.from(consumers);
+    }
+
+    @Override
+    public synchronized void resize(int consumers) {
+        if (consumers <= 0) {
+            throw new IllegalArgumentException("consumers must be > 0");
+        }
+        if (additions == null && !members.isEmpty()) {
+            throw new IllegalStateException("Receiver pool cannot be resized while receiving in parallel");
+        }
+        log.debug("Resizing receiver pool from {} to {} consumers", size, consumers);
+        size = consumers;
+        if (additions == null) {
+            return;
+        }
+        while (members.size() < consumers) {
+            if (!addMember(additions)) {
+                break;
+            }
+        }
+        while (members.size() > consumers) {
+            members.remove(members.size() - 1).stop();
+        }
+    }
+
+    @Override
+    public synchronized int size() {
+        return size;
+    }
+
+    @Override
+    public <T> Flux<T> doOnConsumers(Function<Consumer<K, V>, ? extends T> function) {
+        List<Member> active;
+        synchronized (this) {
+            active = new ArrayList<>(members);
+        }
+        // Members that have not created their consumer yet are skipped
+        return Flux.fromIterable(active)
+            .filter(member -> member.receiver.consumerHandler != null)
+            .flatMap(member -> member.receiver.doOnConsumer(function));
+    }
+
+    // Must be invoked while holding the pool monitor
+    private boolean addMember(Sinks.Many<Member> added) {
+        Member member = newMember();
+        Sinks.EmitResult result = added.tryEmitNext(member);
+        if (result.isFailure()) {
+            log.debug("Receiver pool member not started: {}", result);
+            members.remove(member);
+            return false;
+        }
+        return true;
+    }
+
+    // Must be invoked while holding the pool monitor
+    private Member newMember() {
+        Member member = new Member(nextMemberId++);
+        members.add(member);
+        return member;
+    }
+
+    private synchronized void removeMember(Member member) {
+        members.remove(member);
+        if (members.isEmpty()) {
+            parallelReceive = null;
+        }
+    }
+
+    private ReceiverOptions<K, V> memberOptions(int id) {
+        Object clientId = receiverOptions.consumerProperty(ConsumerConfig.CLIENT_ID_CONFIG);
+        if (clientId == null || clientId.toString().isEmpty()) {
+            return receiverOptions;
+        }
+        return receiverOptions.consumerProperty(ConsumerConfig.CLIENT_ID_CONFIG, clientId + "-" + id);
+    }
+
+    private final class Member {
+
+        private final DefaultKafkaReceiver<K, V> receiver;
+
+        private final Sinks.Empty<Void> stopped = Sinks.empty();
+
+        private volatile boolean subscribed;
+
+        Member(int id) {
+            this.receiver = new DefaultKafkaReceiver<>(consumerFactory, memberOptions(id));
+        }
+
+        Flux<ReceiverRecord<K, V>> receive(Integer prefetch) {
+            return receiver
+                .receive(prefetch)
+                .doOnSubscribe(s -> subscribed = true)
+                .takeUntilOther(stopped.asMono())
+                .doFinally(signal -> removeMember(this));
+        }
+
+        void stop() {
+            stopped.tryEmitEmpty();
+        }
+    }
+}
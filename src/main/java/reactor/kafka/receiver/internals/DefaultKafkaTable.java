@@ -0,0 +1,180 @@
+/*
+ * Copyright (c) 2023 VMware Inc. or its affiliates, All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package reactor.kafka.receiver.internals;
+
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.common.TopicPartition;
+import org.apache.kafka.common.serialization.Deserializer;
+import org.apache.kafka.common.serialization.Serializer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+import reactor.core.scheduler.Schedulers;
+import reactor.kafka.receiver.KafkaTable;
+import reactor.kafka.receiver.ReceiverOptions;
+import reactor.kafka.receiver.ReceiverRecord;
+
+import java.nio.file.Path;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+public class DefaultKafkaTable<K, V> implements KafkaTable<K, V> {
+
+    private static final Logger log = LoggerFactory.getLogger(DefaultKafkaTable.class);
+
+    private final ConsumerFactory consumerFactory;
+
+    private final ReceiverOptions<K, V> receiverOptions;
+
+    private final Serializer<K> keySerializer;
+
+    private final Deserializer<K> keyDeserializer;
+
+    private final Deserializer<V> valueDeserializer;
+
+    private final Path checkpoint;
+
+    private final String topic;
+
+    private final OffHeapStore store = new OffHeapStore();
+
+    /**
+     * Offset of the next record of each partition, guarded by this table together with the store updates.
+     */
+    private final Map<TopicPartition, Long> offsets = new HashMap<>();
+
+    private final Sinks.Empty<Void> ready = Sinks.empty();
+
+    private final Flux<ConsumerRecord<K, V>> changes;
+
+    private boolean restored;
+
+    public DefaultKafkaTable(ConsumerFactory consumerFactory, ReceiverOptions<K, V> receiverOptions,
+                             Serializer<K> keySerializer, Path checkpoint) {
+        Collection<TopicPartition> assignment = receiverOptions.assignment();
+        if (assignment == null || assignment.isEmpty()) {
+            throw new IllegalArgumentException("A table requires a partition assignment");
+        }
+        Set<String> topics = assignment.stream().map(TopicPartition::topic).collect(Collectors.toSet());
+        if (topics.size() != 1) {
+            throw new IllegalArgumentException("The partitions of a table must belong to one topic: " + topics);
+        }
+        this.consumerFactory = consumerFactory;
+        this.receiverOptions = receiverOptions;
+        this.keySerializer = keySerializer;
+        this.keyDeserializer = Deserializers.keyDeserializer(receiverOptions);
+        this.valueDeserializer = Deserializers.valueDeserializer(receiverOptions);
+        this.checkpoint = checkpoint;
+        this.topic = topics.iterator().next();
+        this.changes = Mono.fromCallable(this::restore)
+            .subscribeOn(Schedulers.boundedElastic())
+            .flatMapMany(this::consume)
+            .publish()
+            .refCount();
+    }
+
+    @Override
+    public Flux<ConsumerRecord<K, V>> changes() {
+        return changes;
+    }
+
+    @Override
+    public Mono<Void> ready() {
+        return ready.asMono();
+    }
+
+    @Override
+    public V get(K key) {
+        byte[] value = store.get(keySerializer.serialize(topic, key));
+        return value == null ? null : valueDeserializer.deserialize(topic, value);
+    }
+
+    @Override
+    public int size() {
+        return store.size();
+    }
+
+    @Override
+    public Mono<Void> checkpoint() {
+        if (checkpoint == null) {
+            return Mono.error(new IllegalStateException("No checkpoint file is configured for this table"));
+        }
+        return Mono.<Void>fromRunnable(() -> {
+            synchronized (this) {
+                restore();
+                TableCheckpoint.write(checkpoint, offsets, store);
+            }
+        }).subscribeOn(Schedulers.boundedElastic());
+    }
+
+    @Override
+    public void close() {
+        Deserializers.closeIfCreated(keyDeserializer, receiverOptions.keyDeserializer());
+        Deserializers.closeIfCreated(valueDeserializer, receiverOptions.valueDeserializer());
+    }
+
+    /**
+     * Loads the checkpoint when the table is first started, so that a restarted table continues
+     * from its contents in memory instead.
+     * @return the offsets from which the partitions of the table must be consumed
+     */
+    private synchronized Map<TopicPartition, Long> restore() {
+        if (!restored) {
+            if (checkpoint != null) {
+                offsets.putAll(TableCheckpoint.read(checkpoint, store));
+                log.debug("Restored {} keys of table from {} at offsets {}", store.size(), checkpoint, offsets);
+            }
+            restored = true;
+        }
+        return new HashMap<>(offsets);
+    }
+
+    private Flux<ConsumerRecord<K, V>> consume(Map<TopicPartition, Long> startOffsets) {
+        ReceiverOptions<byte[], byte[]> tableOptions = Deserializers.serializedOptions(receiverOptions)
+            .addAssignListener(partitions -> partitions.forEach(partition -> {
+                Long offset = startOffsets.get(partition.topicPartition());
+                if (offset != null) {
+                    partition.seek(offset);
+                } else {
+                    partition.seekToBeginning();
+                }
+            }));
+        return new DefaultKafkaReceiver<>(consumerFactory, tableOptions)
+            .receiveSnapshotThenTail()
+            .index()
+            .concatMap(window -> {
+                Flux<ConsumerRecord<K, V>> applied = window.getT2().map(this::apply);
+                return window.getT1() == 0 ? applied.doOnComplete(ready::tryEmitEmpty) : applied;
+            })
+            .doOnError(ready::tryEmitError);
+    }
+
+    private ConsumerRecord<K, V> apply(ReceiverRecord<byte[], byte[]> record) {
+        synchronized (this) {
+            if (record.key() != null) {
+                store.put(record.key(), record.value());
+            }
+            offsets.put(new TopicPartition(record.topic(), record.partition()), record.offset() + 1);
+        }
+        return new LazyReceiverRecord<>(record, record.receiverOffset(), keyDeserializer, valueDeserializer);
+    }
+}
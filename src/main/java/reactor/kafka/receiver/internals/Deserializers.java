@@ -0,0 +1,109 @@
+/*
+ * Copyright (c) 2023 VMware Inc. or its affiliates, All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package reactor.kafka.receiver.internals;
+
+import org.apache.kafka.clients.consumer.ConsumerConfig;
+import org.apache.kafka.common.KafkaException;
+import org.apache.kafka.common.serialization.ByteArrayDeserializer;
+import org.apache.kafka.common.serialization.Deserializer;
+import org.apache.kafka.common.utils.Utils;
+import reactor.kafka.receiver.ReceiverOptions;
+
+import java.util.Map;
+
+/**
+ * Resolves the deserializers of a receiver that deserializes records itself instead of the consumer,
+ * from the deserializer instances or the deserializer classes configured in {@link ReceiverOptions}.
+ */
+final class Deserializers {
+
+    private Deserializers() {
+    }
+
+    /**
+     * Returns true if the consumer of a receiver polls keys and values as byte arrays, either
+     * to deserialize them in parallel or to filter them before they are deserialized.
+     */
+    static boolean pollsSerialized(ReceiverOptions<?, ?> receiverOptions) {
+        return receiverOptions.deserializationScheduler() != null || receiverOptions.rawRecordFilter() != null;
+    }
+
+    /**
+     * Returns true if records polled as byte arrays must be deserialized by the receiver, which is not the
+     * case if byte arrays are requested.
+     */
+    static boolean deserializedByReceiver(ReceiverOptions<?, ?> receiverOptions) {
+        return pollsSerialized(receiverOptions)
+            && !(receiverOptions.keyDeserializer() instanceof ByteArrayDeserializer
+                && receiverOptions.valueDeserializer() instanceof ByteArrayDeserializer);
+    }
+
+    /**
+     * Returns a copy of the options of a receiver whose consumer polls keys and values as byte arrays,
+     * which are then deserialized by the receiver or its caller.
+     */
+    @SuppressWarnings({ "unchecked", "rawtypes" })
+    static ReceiverOptions<byte[], byte[]> serializedOptions(ReceiverOptions<?, ?> receiverOptions) {
+        return ((ReceiverOptions) receiverOptions)
+            .withKeyDeserializer(new ByteArrayDeserializer())
+            .withValueDeserializer(new ByteArrayDeserializer())
+            .deserializationScheduler(null);
+    }
+
+    static <K> Deserializer<K> keyDeserializer(ReceiverOptions<K, ?> receiverOptions) {
+        return deserializer(receiverOptions.keyDeserializer(), receiverOptions.consumerProperties(),
+            ConsumerConfig.KEY_DESERIALIZER_CLASS_CONFIG, true);
+    }
+
+    static <V> Deserializer<V> valueDeserializer(ReceiverOptions<?, V> receiverOptions) {
+        return deserializer(receiverOptions.valueDeserializer(), receiverOptions.consumerProperties(),
+            ConsumerConfig.VALUE_DESERIALIZER_CLASS_CONFIG, false);
+    }
+
+    /**
+     * Closes a deserializer returned by {@link #keyDeserializer(ReceiverOptions)} or
+     * {@link #valueDeserializer(ReceiverOptions)} if it was created from its configured class
+     * rather than configured as an instance, which is owned by the application.
+     */
+    static void closeIfCreated(Deserializer<?> deserializer, Deserializer<?> configured) {
+        if (deserializer != configured) {
+            Utils.closeQuietly(deserializer, "deserializer");
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> Deserializer<T> deserializer(Deserializer<T> configured, Map<String, Object> properties,
+                                                    String config, boolean isKey) {
+        if (configured != null) {
+            return configured;
+        }
+        Object type = properties.get(config);
+        if (type == null) {
+            throw new IllegalStateException("No deserializer configured: " + config);
+        }
+        Deserializer<T> deserializer;
+        try {
+            deserializer = type instanceof Class
+                ? Utils.newInstance((Class<?>) type, Deserializer.class)
+                : Utils.newInstance(type.toString(), Deserializer.class);
+        } catch (ClassNotFoundException e) {
+            throw new KafkaException("Deserializer class not found: " + type, e);
+        }
+        deserializer.configure(properties, isKey);
+        return deserializer;
+    }
+}
@@ -16,11 +16,17 @@
 
 package reactor.kafka.receiver.internals;
 
+import java.util.HashMap;
+import java.util.Map;
 import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicLong;
 
+import reactor.core.Disposable;
 import reactor.core.scheduler.Scheduler;
 import reactor.core.scheduler.Schedulers;
+import reactor.kafka.internals.VirtualThreads;
 import reactor.util.Logger;
 import reactor.util.Loggers;
 
@@ -36,11 +42,121 @@ class KafkaSchedulers {
     }
 
     static Scheduler newEvent(String groupId) {
-        return Schedulers.newSingle(new EventThreadFactory(groupId));
+        return newEvent(groupId, false);
     }
 
+    static Scheduler newEvent(String groupId, boolean virtual) {
+        return Schedulers.newSingle(new EventThreadFactory(groupId, virtual));
+    }
+
+    /** Shared event loop groups by name, guarded by the map itself */
+    private static final Map<String, SharedEventLoopGroup> SHARED_EVENT_LOOP_GROUPS = new HashMap<>();
+
+    /**
+     * Returns an event scheduler that runs its tasks, one at a time, on a thread of the named
+     * shared event loop group. The group is created with <code>threads</code> event threads if it
+     * does not exist and is disposed when all of its event schedulers have been disposed.
+     */
+    static Scheduler newSharedEvent(String name, int threads) {
+        return newSharedEvent(name, threads, false);
+    }
+
+    static Scheduler newSharedEvent(String name, int threads, boolean virtual) {
+        synchronized (SHARED_EVENT_LOOP_GROUPS) {
+            SharedEventLoopGroup group = SHARED_EVENT_LOOP_GROUPS.get(name);
+            if (group == null) {
+                group = new SharedEventLoopGroup(name, threads, virtual);
+                SHARED_EVENT_LOOP_GROUPS.put(name, group);
+            }
+            group.refCount++;
+            return new SharedEventScheduler(group, Schedulers.single(group.pool));
+        }
+    }
+
+    private static void release(SharedEventLoopGroup group) {
+        synchronized (SHARED_EVENT_LOOP_GROUPS) {
+            if (--group.refCount == 0) {
+                SHARED_EVENT_LOOP_GROUPS.remove(group.name);
+                group.pool.dispose();
+            }
+        }
+    }
+
+    static final class SharedEventLoopGroup {
+
+        final String name;
+
+        final Scheduler pool;
+
+        int refCount;
+
+        SharedEventLoopGroup(String name, int threads, boolean virtual) {
+            this.name = name;
+            this.pool = Schedulers.newParallel(threads, new EventThreadFactory(name, virtual));
+        }
+    }
+
+    /**
+     * A single worker of a shared event loop group, so the tasks of one consumer never run concurrently.
+     */
+    static final class SharedEventScheduler implements Scheduler {
+
+        final SharedEventLoopGroup group;
+
+        final Scheduler worker;
+
+        final AtomicBoolean disposed = new AtomicBoolean();
+
+        SharedEventScheduler(SharedEventLoopGroup group, Scheduler worker) {
+            this.group = group;
+            this.worker = worker;
+        }
+
+        @Override
+        public Disposable schedule(Runnable task) {
+            return worker.schedule(task);
+        }
+
+        @Override
+        public Disposable schedule(Runnable task, long delay, TimeUnit unit) {
+            return worker.schedule(task, delay, unit);
+        }
+
+        @Override
+        public Disposable schedulePeriodically(Runnable task, long initialDelay, long period, TimeUnit unit) {
+            return worker.schedulePeriodically(task, initialDelay, period, unit);
+        }
+
+        @Override
+        public Worker createWorker() {
+            return worker.createWorker();
+        }
+
+        @Override
+        public void start() {
+            worker.start();
+        }
+
+        @Override
+        public boolean isDisposed() {
+            return disposed.get();
+        }
+
+        @Override
+        public void dispose() {
+            if (disposed.compareAndSet(false, true)) {
+                worker.dispose();
+                release(group);
+            }
+        }
+    }
+
+    /** Marks virtual event threads, which cannot be subclassed */
+    private static final ThreadLocal<Boolean> VIRTUAL_EVENT_THREAD = new ThreadLocal<>();
+
     static boolean isCurrentThreadFromScheduler() {
-        return Thread.currentThread() instanceof EventThreadFactory.EmitterThread;
+        return Thread.currentThread() instanceof EventThreadFactory.EmitterThread
+            || VIRTUAL_EVENT_THREAD.get() != null;
     }
 
     final static class EventThreadFactory implements ThreadFactory {
@@ -50,14 +166,32 @@ class KafkaSchedulers {
 
         final private String groupId;
 
+        final private boolean virtual;
+
         EventThreadFactory(String groupId) {
+            this(groupId, false);
+        }
+
+        EventThreadFactory(String groupId, boolean virtual) {
             this.groupId = groupId;
+            this.virtual = virtual && VirtualThreads.isSupported();
+            if (virtual && !this.virtual) {
+                log.warn("Virtual threads are not supported by this JDK, using platform event threads");
+            }
         }
 
         @Override
         public final Thread newThread(Runnable runnable) {
             String newThreadName = PREFIX + groupId + "-" + COUNTER_REFERENCE.incrementAndGet();
-            Thread t = new EmitterThread(runnable, newThreadName);
+            Thread t;
+            if (virtual) {
+                t = VirtualThreads.newThread(() -> {
+                    VIRTUAL_EVENT_THREAD.set(Boolean.TRUE);
+                    runnable.run();
+                }, newThreadName);
+            } else {
+                t = new EmitterThread(runnable, newThreadName);
+            }
             t.setUncaughtExceptionHandler(KafkaSchedulers::defaultUncaughtException);
             return t;
         }
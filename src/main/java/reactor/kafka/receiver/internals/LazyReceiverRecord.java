@@ -0,0 +1,97 @@
+/*
+ * Copyright (c) 2023 VMware Inc. or its affiliates, All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package reactor.kafka.receiver.internals;
+
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.common.errors.SerializationException;
+import org.apache.kafka.common.serialization.Deserializer;
+import reactor.kafka.receiver.ReceiverOffset;
+import reactor.kafka.receiver.ReceiverRecord;
+
+/**
+ * A {@link ReceiverRecord} created from a record polled as byte arrays, whose key and value are
+ * deserialized on first access and cached. Metadata like the topic, partition, offset and timestamp
+ * are available without deserializing. Concurrent first accesses may deserialize more than once,
+ * but always return equal results.
+ */
+final class LazyReceiverRecord<K, V> extends ReceiverRecord<K, V> {
+
+    private static final Object UNSET = new Object();
+
+    private final Deserializer<K> keyDeserializer;
+
+    private final Deserializer<V> valueDeserializer;
+
+    private volatile Object key = UNSET;
+
+    private volatile Object value = UNSET;
+
+    @SuppressWarnings("unchecked")
+    LazyReceiverRecord(ConsumerRecord<?, ?> serialized, ReceiverOffset receiverOffset,
+                       Deserializer<K> keyDeserializer, Deserializer<V> valueDeserializer) {
+        super((ConsumerRecord<K, V>) serialized, receiverOffset);
+        this.keyDeserializer = keyDeserializer;
+        this.valueDeserializer = valueDeserializer;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public K key() {
+        Object k = key;
+        if (k == UNSET) {
+            k = deserialize(keyDeserializer, super.key(), "key");
+            key = k;
+        }
+        return (K) k;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public V value() {
+        Object v = value;
+        if (v == UNSET) {
+            v = deserialize(valueDeserializer, super.value(), "value");
+            value = v;
+        }
+        return (V) v;
+    }
+
+    /**
+     * Returns true if the key or value has been deserialized.
+     */
+    boolean isDeserialized() {
+        return key != UNSET || value != UNSET;
+    }
+
+    private <T> T deserialize(Deserializer<T> deserializer, Object data, String name) {
+        if (data == null) {
+            return null;
+        }
+        try {
+            return deserializer.deserialize(topic(), (byte[]) data);
+        } catch (RuntimeException e) {
+            throw new SerializationException("Error deserializing " + name + " for partition " + topic() + "-"
+                + partition() + " at offset " + offset(), e);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "LazyReceiverRecord(topic = " + topic() + ", partition = " + partition() + ", offset = " + offset()
+            + ", deserialized = " + isDeserialized() + ")";
+    }
+}
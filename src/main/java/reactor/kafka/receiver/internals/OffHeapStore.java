@@ -0,0 +1,341 @@
+/*
+ * Copyright (c) 2023 VMware Inc. or its affiliates, All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package reactor.kafka.receiver.internals;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.BiConsumer;
+
+/**
+ * A map of byte array keys to byte array values whose entries are stored outside the heap, so
+ * that the number of entries does not increase garbage collection times. Entries are appended to
+ * chunks of direct memory and indexed by an open addressing hash table with linear probing, kept
+ * in two primitive arrays. Replaced and removed entries are reclaimed by copying the live entries
+ * to new chunks when they use less than half of the allocated memory.
+ * <p>
+ * Thread-safe, lookups may run concurrently with each other.
+ */
+final class OffHeapStore {
+
+    static final int DEFAULT_CHUNK_SIZE = 8 * 1024 * 1024;
+
+    private static final int HEADER_SIZE = 8;
+
+    private static final int INITIAL_CAPACITY = 1024;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private final int chunkSize;
+
+    private List<ByteBuffer> chunks = new ArrayList<>();
+
+    private ByteBuffer current;
+
+    /*
+     * Address of the entry of each slot plus one, or zero if the slot is empty. The address is the
+     * index of the chunk in the upper 32 bits and the position of the entry in the lower 32 bits.
+     */
+    private long[] slots = new long[INITIAL_CAPACITY];
+
+    private int[] hashes = new int[INITIAL_CAPACITY];
+
+    private int size;
+
+    private long usedBytes;
+
+    private long liveBytes;
+
+    OffHeapStore() {
+        this(DEFAULT_CHUNK_SIZE);
+    }
+
+    OffHeapStore(int chunkSize) {
+        this.chunkSize = chunkSize;
+    }
+
+    /**
+     * Returns the value of a key, or null if there is none.
+     */
+    byte[] get(byte[] key) {
+        int hash = hash(key);
+        lock.readLock().lock();
+        try {
+            int slot = find(key, hash);
+            return slot < 0 ? null : value(slots[slot] - 1);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Sets the value of a key, or removes the key if <code>value</code> is null.
+     */
+    void put(byte[] key, byte[] value) {
+        if (value == null) {
+            remove(key);
+            return;
+        }
+        int hash = hash(key);
+        lock.writeLock().lock();
+        try {
+            int slot = find(key, hash);
+            if (slot >= 0) {
+                liveBytes -= length(slots[slot] - 1);
+            } else {
+                if ((size + 1) * 2 > slots.length) {
+                    resize(slots.length * 2);
+                    slot = find(key, hash);
+                }
+                slot = ~slot;
+                size++;
+            }
+            slots[slot] = append(key, value) + 1;
+            hashes[slot] = hash;
+            liveBytes += HEADER_SIZE + key.length + value.length;
+            compactIfRequired();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Removes a key.
+     * @return true if the key was present
+     */
+    boolean remove(byte[] key) {
+        int hash = hash(key);
+        lock.writeLock().lock();
+        try {
+            int slot = find(key, hash);
+            if (slot < 0) {
+                return false;
+            }
+            liveBytes -= length(slots[slot] - 1);
+            delete(slot);
+            size--;
+            compactIfRequired();
+            return true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    int size() {
+        lock.readLock().lock();
+        try {
+            return size;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Returns the amount of direct memory allocated for entries.
+     */
+    long allocatedBytes() {
+        lock.readLock().lock();
+        try {
+            long allocated = 0;
+            for (ByteBuffer chunk : chunks) {
+                allocated += chunk.capacity();
+            }
+            return allocated;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Invokes <code>action</code> with each key and value, while preventing modifications.
+     */
+    void forEach(BiConsumer<byte[], byte[]> action) {
+        lock.readLock().lock();
+        try {
+            for (long slot : slots) {
+                if (slot != 0) {
+                    action.accept(key(slot - 1), value(slot - 1));
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    void clear() {
+        lock.writeLock().lock();
+        try {
+            chunks = new ArrayList<>();
+            current = null;
+            slots = new long[INITIAL_CAPACITY];
+            hashes = new int[INITIAL_CAPACITY];
+            size = 0;
+            usedBytes = 0;
+            liveBytes = 0;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Returns the slot of a key, or the complement of the empty slot where it would be inserted.
+     */
+    private int find(byte[] key, int hash) {
+        int mask = slots.length - 1;
+        int slot = hash & mask;
+        while (slots[slot] != 0) {
+            if (hashes[slot] == hash && keyEquals(slots[slot] - 1, key)) {
+                return slot;
+            }
+            slot = (slot + 1) & mask;
+        }
+        return ~slot;
+    }
+
+    /**
+     * Empties a slot, moving back the following entries of the probe sequence so that lookups do not
+     * stop at the emptied slot.
+     */
+    private void delete(int slot) {
+        int mask = slots.length - 1;
+        int next = slot;
+        while (true) {
+            next = (next + 1) & mask;
+            if (slots[next] == 0) {
+                break;
+            }
+            int home = hashes[next] & mask;
+            // the entry stays if its home slot is cyclically in (slot, next]
+            boolean stays = slot <= next ? slot < home && home <= next : slot < home || home <= next;
+            if (!stays) {
+                slots[slot] = slots[next];
+                hashes[slot] = hashes[next];
+                slot = next;
+            }
+        }
+        slots[slot] = 0;
+        hashes[slot] = 0;
+    }
+
+    private void resize(int capacity) {
+        long[] oldSlots = slots;
+        int[] oldHashes = hashes;
+        slots = new long[capacity];
+        hashes = new int[capacity];
+        int mask = capacity - 1;
+        for (int i = 0; i < oldSlots.length; i++) {
+            if (oldSlots[i] != 0) {
+                int slot = oldHashes[i] & mask;
+                while (slots[slot] != 0) {
+                    slot = (slot + 1) & mask;
+                }
+                slots[slot] = oldSlots[i];
+                hashes[slot] = oldHashes[i];
+            }
+        }
+    }
+
+    private long append(byte[] key, byte[] value) {
+        int length = HEADER_SIZE + key.length + value.length;
+        if (current == null || current.remaining() < length) {
+            current = ByteBuffer.allocateDirect(Math.max(chunkSize, length));
+            chunks.add(current);
+        }
+        long address = ((long) (chunks.size() - 1) << 32) | current.position();
+        current.putInt(key.length).putInt(value.length).put(key).put(value);
+        usedBytes += length;
+        return address;
+    }
+
+    /**
+     * Copies the live entries to new chunks if replaced and removed entries use more than half of the memory.
+     */
+    private void compactIfRequired() {
+        if (usedBytes <= chunkSize || usedBytes <= liveBytes * 2) {
+            return;
+        }
+        List<ByteBuffer> oldChunks = chunks;
+        chunks = new ArrayList<>();
+        current = null;
+        usedBytes = 0;
+        List<ByteBuffer> newChunks = chunks;
+        for (int slot = 0; slot < slots.length; slot++) {
+            if (slots[slot] != 0) {
+                chunks = oldChunks;
+                byte[] key = key(slots[slot] - 1);
+                byte[] value = value(slots[slot] - 1);
+                chunks = newChunks;
+                slots[slot] = append(key, value) + 1;
+            }
+        }
+    }
+
+    private byte[] key(long address) {
+        ByteBuffer chunk = chunks.get((int) (address >>> 32));
+        int position = (int) address;
+        byte[] key = new byte[chunk.getInt(position)];
+        read(chunk, position + HEADER_SIZE, key);
+        return key;
+    }
+
+    private byte[] value(long address) {
+        ByteBuffer chunk = chunks.get((int) (address >>> 32));
+        int position = (int) address;
+        byte[] value = new byte[chunk.getInt(position + 4)];
+        read(chunk, position + HEADER_SIZE + chunk.getInt(position), value);
+        return value;
+    }
+
+    private int length(long address) {
+        ByteBuffer chunk = chunks.get((int) (address >>> 32));
+        int position = (int) address;
+        return HEADER_SIZE + chunk.getInt(position) + chunk.getInt(position + 4);
+    }
+
+    private boolean keyEquals(long address, byte[] key) {
+        ByteBuffer chunk = chunks.get((int) (address >>> 32));
+        int position = (int) address;
+        if (chunk.getInt(position) != key.length) {
+            return false;
+        }
+        int start = position + HEADER_SIZE;
+        for (int i = 0; i < key.length; i++) {
+            if (chunk.get(start + i) != key[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static void read(ByteBuffer chunk, int position, byte[] destination) {
+        ByteBuffer view = chunk.duplicate();
+        view.position(position);
+        view.get(destination);
+    }
+
+    private static int hash(byte[] key) {
+        int hash = Arrays.hashCode(key);
+        return hash ^ (hash >>> 16);
+    }
+
+    @Override
+    public String toString() {
+        return "OffHeapStore{size=" + size + ", usedBytes=" + usedBytes + ", liveBytes=" + liveBytes + "}";
+    }
+}
@@ -0,0 +1,180 @@
+/*
+ * Copyright (c) 2023 VMware Inc. or its affiliates, All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package reactor.kafka.receiver.internals;
+
+import org.apache.kafka.clients.consumer.Consumer;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.consumer.ConsumerRecords;
+import org.apache.kafka.common.TopicPartition;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * End offsets, exclusive, up to which the records of each partition are consumed. Records at or
+ * after the end offset of their partition are dropped, and a partition is finished once the position
+ * of the consumer reaches its end offset, even if the last records of the range were removed by
+ * compaction. The end offsets are either specified as ranges or captured as a snapshot of the end
+ * offsets of the assignment when the first records are polled.
+ * <p>
+ * Only accessed on the event thread.
+ */
+final class OffsetLimits {
+
+    /**
+     * Emitted by the event loop after the last records of the snapshot when consumption continues
+     * past the snapshot. Identified by reference.
+     */
+    static final ConsumerRecords<?, ?> END_OF_SNAPSHOT = new ConsumerRecords<>(Collections.emptyMap());
+
+    private final boolean tail;
+
+    private Map<TopicPartition, Long> endOffsets;
+
+    private Set<TopicPartition> unfinished;
+
+    private boolean checkedAll;
+
+    private boolean released;
+
+    OffsetLimits(Map<TopicPartition, Long> endOffsets) {
+        this.tail = false;
+        this.endOffsets = endOffsets;
+        this.unfinished = new HashSet<>(endOffsets.keySet());
+    }
+
+    private OffsetLimits(boolean tail) {
+        this.tail = tail;
+    }
+
+    /**
+     * Returns limits to the end offsets of the assignment when the first records are polled.
+     * @param tail true to continue consuming past the snapshot instead of completing
+     */
+    static OffsetLimits snapshot(boolean tail) {
+        return new OffsetLimits(tail);
+    }
+
+    /**
+     * Returns true if records past the end offsets are consumed once all partitions are finished.
+     */
+    boolean isTail() {
+        return tail;
+    }
+
+    /**
+     * Returns true if the limits no longer apply because consumption continues past the snapshot.
+     */
+    boolean isReleased() {
+        return released;
+    }
+
+    /**
+     * Stops applying the limits once the snapshot has been consumed.
+     */
+    void release() {
+        released = true;
+    }
+
+    /**
+     * Captures the end offsets of the assignment if the limits are a snapshot that was not captured yet.
+     */
+    void capture(Consumer<?, ?> consumer) {
+        if (endOffsets == null) {
+            endOffsets = new HashMap<>(consumer.endOffsets(consumer.assignment()));
+            unfinished = new HashSet<>(endOffsets.keySet());
+        }
+    }
+
+    /**
+     * Returns the records below the end offsets of their partitions.
+     */
+    <K, V> ConsumerRecords<K, V> limit(ConsumerRecords<K, V> records) {
+        Map<TopicPartition, List<ConsumerRecord<K, V>>> limited = null;
+        for (TopicPartition partition : records.partitions()) {
+            List<ConsumerRecord<K, V>> partitionRecords = records.records(partition);
+            Long end = endOffsets.get(partition);
+            if (end == null || partitionRecords.isEmpty()
+                || partitionRecords.get(partitionRecords.size() - 1).offset() < end) {
+                continue;
+            }
+            if (limited == null) {
+                limited = new HashMap<>();
+                for (TopicPartition other : records.partitions()) {
+                    limited.put(other, records.records(other));
+                }
+            }
+            List<ConsumerRecord<K, V>> inRange = new ArrayList<>(partitionRecords.size());
+            for (ConsumerRecord<K, V> record : partitionRecords) {
+                if (record.offset() < end) {
+                    inRange.add(record);
+                }
+            }
+            if (inRange.isEmpty()) {
+                limited.remove(partition);
+            } else {
+                limited.put(partition, inRange);
+            }
+        }
+        return limited == null ? records : new ConsumerRecords<>(limited);
+    }
+
+    /**
+     * Returns the partitions that reached their end offset since the last invocation. Only the
+     * partitions that had records in the last poll are checked, except on the first invocation.
+     */
+    Collection<TopicPartition> finish(Consumer<?, ?> consumer, Set<TopicPartition> polled) {
+        Collection<TopicPartition> candidates = checkedAll ? polled : new ArrayList<>(unfinished);
+        checkedAll = true;
+        List<TopicPartition> finished = new ArrayList<>();
+        for (TopicPartition partition : candidates) {
+            if (!unfinished.contains(partition)) {
+                continue;
+            }
+            long end = endOffsets.get(partition);
+            if (consumer.position(partition) >= end) {
+                if (tail) {
+                    // records past the snapshot were dropped, fetch them again after the snapshot
+                    consumer.seek(partition, end);
+                }
+                unfinished.remove(partition);
+                finished.add(partition);
+            }
+        }
+        return finished;
+    }
+
+    /**
+     * Returns the partitions that are limited.
+     */
+    Set<TopicPartition> partitions() {
+        return endOffsets == null ? Collections.emptySet() : endOffsets.keySet();
+    }
+
+    /**
+     * Returns true if all partitions reached their end offset.
+     */
+    boolean isComplete() {
+        return unfinished.isEmpty();
+    }
+}
@@ -0,0 +1,276 @@
+/*
+ * Copyright (c) 2023 VMware Inc. or its affiliates, All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package reactor.kafka.receiver.internals;
+
+import java.util.Arrays;
+import java.util.BitSet;
+
+/**
+ * Tracks the offsets of one partition that have been received but not yet committed
+ * when out of order commits are enabled. Offsets in <code>[base, end)</code> are kept in
+ * two ring bitsets indexed by <code>offset &amp; mask</code>: one bit for offsets that were
+ * received and one for offsets that were acknowledged. Offsets that were never received
+ * (for example, gaps in compacted topics) are skipped when the window is released.
+ * <p>
+ * Not thread-safe, callers must synchronize.
+ */
+final class OffsetWindow {
+
+    private static final int INITIAL_WORDS = 8;
+
+    private long[] received = new long[INITIAL_WORDS];
+
+    private long[] acked = new long[INITIAL_WORDS];
+
+    private long mask = INITIAL_WORDS * 64L - 1;
+
+    private long base = -1;
+
+    private long end = -1;
+
+    private int pendingCount;
+
+    private int ackedCount;
+
+    private long restoredOffset = -1;
+
+    /**
+     * Set when the partition is revoked, so that acknowledgements that looked up the window
+     * before it was removed are not counted.
+     */
+    boolean revoked;
+
+    /**
+     * Adds a received offset to the window.
+     * @return the number of acknowledged offsets that were dropped because the consumer was rewound
+     */
+    int add(long offset) {
+        int dropped = 0;
+        if (base < 0 || offset < base) {
+            // first record or consumer was rewound, earlier offsets will be received again
+            dropped = clear();
+            base = offset;
+            end = offset;
+        } else if (offset >= end && pendingCount == 0 && ackedCount == 0) {
+            // window is empty, skip over any gap instead of growing the bitsets
+            base = offset;
+            end = offset;
+        }
+        if (offset >= end) {
+            ensureCapacity(offset - base + 1);
+            end = offset + 1;
+        }
+        int index = (int) (offset & mask);
+        long bit = 1L << index;
+        int word = index >>> 6;
+        if ((received[word] & bit) == 0) {
+            received[word] |= bit;
+            pendingCount++;
+        }
+        return dropped;
+    }
+
+    /**
+     * Acknowledges an offset.
+     * @return true if the offset was received and had not been acknowledged before
+     */
+    boolean ack(long offset) {
+        if (offset < base || offset >= end) {
+            return false;
+        }
+        int index = (int) (offset & mask);
+        long bit = 1L << index;
+        int word = index >>> 6;
+        if ((received[word] & bit) == 0 || (acked[word] & bit) != 0) {
+            return false;
+        }
+        acked[word] |= bit;
+        pendingCount--;
+        ackedCount++;
+        return true;
+    }
+
+    /**
+     * Acknowledges all received offsets from <code>firstOffset</code> to <code>lastOffset</code> inclusive.
+     * @return the number of offsets that had not been acknowledged before
+     */
+    int ackRange(long firstOffset, long lastOffset) {
+        long offset = Math.max(firstOffset, base);
+        long rangeEnd = Math.min(lastOffset + 1, end);
+        int count = 0;
+        while (offset < rangeEnd) {
+            int index = (int) (offset & mask);
+            int word = index >>> 6;
+            int bit = index & 63;
+            int bits = (int) Math.min(64 - bit, rangeEnd - offset);
+            long range = (bits == 64 ? -1L : (1L << bits) - 1) << bit;
+            long newlyAcked = received[word] & ~acked[word] & range;
+            acked[word] |= newlyAcked;
+            count += Long.bitCount(newlyAcked);
+            offset += bits;
+        }
+        pendingCount -= count;
+        ackedCount += count;
+        return count;
+    }
+
+    /**
+     * Releases the contiguous acknowledged offsets at the start of the window.
+     * @return the offset to commit or -1 if there is nothing to commit
+     */
+    long release() {
+        long lastAcked = -1;
+        long offset = base;
+        while (offset < end) {
+            int index = (int) (offset & mask);
+            int word = index >>> 6;
+            int bit = index & 63;
+            int bits = (int) Math.min(64 - bit, end - offset);
+            long range = (bits == 64 ? -1L : (1L << bits) - 1) << bit;
+            long pending = received[word] & ~acked[word] & range;
+            if (pending != 0) {
+                range &= (1L << Long.numberOfTrailingZeros(pending)) - 1;
+                bits = Long.bitCount(range);
+            }
+            long done = received[word] & range;
+            if (done != 0) {
+                lastAcked = offset + (63 - Long.numberOfLeadingZeros(done)) - bit;
+                ackedCount -= Long.bitCount(done);
+            }
+            received[word] &= ~range;
+            acked[word] &= ~range;
+            offset += bits;
+            if (pending != 0) {
+                break;
+            }
+        }
+        base = offset;
+        long commitOffset = lastAcked < 0 ? -1 : lastAcked + 1;
+        if (restoredOffset > commitOffset) {
+            commitOffset = restoredOffset;
+        }
+        restoredOffset = -1;
+        return commitOffset;
+    }
+
+    /**
+     * Restores an offset that was released but could not be committed.
+     */
+    void restore(long commitOffset) {
+        if (commitOffset > restoredOffset) {
+            restoredOffset = commitOffset;
+        }
+    }
+
+    /**
+     * Returns the number of acknowledged offsets that have not been released, including restored offsets.
+     */
+    int deferredCount() {
+        return restoredOffset < 0 ? ackedCount : ackedCount + 1;
+    }
+
+    /**
+     * Returns the acknowledged offsets that have not been released as a bitmap in which bit
+     * <code>i</code> is set if offset <code>from + i</code> was acknowledged, with at most
+     * <code>maxBits</code> bits.
+     */
+    BitSet acked(long from, int maxBits) {
+        long offset = Math.max(from, base);
+        long last = Math.min(end, from + maxBits);
+        if (offset >= last) {
+            return new BitSet();
+        }
+        // copies whole ring words, shifted to the position of their first offset in the bitmap
+        long[] words = new long[(int) ((last - from + 63) >>> 6)];
+        while (offset < last) {
+            int index = (int) (offset & mask);
+            int bit = index & 63;
+            int bits = (int) Math.min(64 - bit, last - offset);
+            long range = (bits == 64 ? -1L : (1L << bits) - 1) << bit;
+            long segment = (acked[index >>> 6] & range) >>> bit;
+            if (segment != 0) {
+                long position = offset - from;
+                int word = (int) (position >>> 6);
+                int shift = (int) (position & 63);
+                words[word] |= segment << shift;
+                if (shift + bits > 64) {
+                    words[word + 1] |= segment >>> (64 - shift);
+                }
+            }
+            offset += bits;
+        }
+        return BitSet.valueOf(words);
+    }
+
+    /**
+     * Returns the first offset of the window, which is the lowest offset that may be committed.
+     */
+    long base() {
+        return base;
+    }
+
+    /**
+     * Returns the number of received offsets that have not been acknowledged.
+     */
+    int pendingCount() {
+        return pendingCount;
+    }
+
+    private void ensureCapacity(long size) {
+        long capacity = mask + 1;
+        if (size <= capacity) {
+            return;
+        }
+        while (capacity < size) {
+            capacity <<= 1;
+        }
+        if (capacity > Integer.MAX_VALUE) {
+            throw new IllegalStateException("Too many uncommitted offsets: " + size);
+        }
+        long[] oldReceived = received;
+        long[] oldAcked = acked;
+        long oldMask = mask;
+        received = new long[(int) (capacity >>> 6)];
+        acked = new long[received.length];
+        mask = capacity - 1;
+        for (long offset = base; offset < end; offset++) {
+            int oldIndex = (int) (offset & oldMask);
+            long oldBit = 1L << oldIndex;
+            int index = (int) (offset & mask);
+            if ((oldReceived[oldIndex >>> 6] & oldBit) != 0) {
+                received[index >>> 6] |= 1L << index;
+            }
+            if ((oldAcked[oldIndex >>> 6] & oldBit) != 0) {
+                acked[index >>> 6] |= 1L << index;
+            }
+        }
+    }
+
+    private int clear() {
+        int dropped = ackedCount;
+        Arrays.fill(received, 0L);
+        Arrays.fill(acked, 0L);
+        pendingCount = 0;
+        ackedCount = 0;
+        return dropped;
+    }
+
+    @Override
+    public String toString() {
+        return "[" + base + ", " + end + ") pending: " + pendingCount + ", acked: " + ackedCount;
+    }
+}
@@ -0,0 +1,171 @@
+/*
+ * Copyright (c) 2023 VMware Inc. or its affiliates, All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package reactor.kafka.receiver.internals;
+
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.consumer.ConsumerRecords;
+import org.apache.kafka.common.TopicPartition;
+import org.apache.kafka.common.errors.SerializationException;
+import org.apache.kafka.common.serialization.Deserializer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+import reactor.kafka.receiver.ReceiverOptions;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+
+/**
+ * Deserializes batches of records polled as byte arrays on a scheduler, off the event thread, or on
+ * the event thread if records are polled as byte arrays only to be filtered before deserialization.
+ * Each batch is split into chunks of at most {@link #CHUNK_SIZE} records of one partition that
+ * are deserialized in parallel, and reassembled in order, so that records of a partition are
+ * delivered in the order they were polled. Several batches may be deserialized concurrently
+ * and are also delivered in order. The key and value deserializers are therefore invoked from
+ * several threads at once and must be thread-safe.
+ */
+final class ParallelDeserializer<K, V> {
+
+    private static final Logger log = LoggerFactory.getLogger(ParallelDeserializer.class);
+
+    static final int CHUNK_SIZE = 256;
+
+    private final Deserializer<K> keyDeserializer;
+
+    private final Deserializer<V> valueDeserializer;
+
+    private final ReceiverOptions<K, V> receiverOptions;
+
+    private final Scheduler scheduler;
+
+    private final BiConsumer<ConsumerRecord<byte[], byte[]>, Throwable> errorHandler;
+
+    private final Consumer<ConsumerRecord<?, ?>> skip;
+
+    /**
+     * @param skip acknowledges records that could not be deserialized and were passed to the error handler
+     */
+    ParallelDeserializer(ReceiverOptions<K, V> receiverOptions, Consumer<ConsumerRecord<?, ?>> skip) {
+        this.keyDeserializer = Deserializers.keyDeserializer(receiverOptions);
+        this.valueDeserializer = Deserializers.valueDeserializer(receiverOptions);
+        this.receiverOptions = receiverOptions;
+        Scheduler scheduler = receiverOptions.deserializationScheduler();
+        this.scheduler = scheduler != null ? scheduler : Schedulers.immediate();
+        this.errorHandler = receiverOptions.deserializationErrorHandler();
+        this.skip = skip;
+    }
+
+    /**
+     * Returns the deserialized batches of batches of records polled as byte arrays. The type of
+     * the polled batches is erased, the consumer was created with byte array deserializers.
+     */
+    @SuppressWarnings("unchecked")
+    Flux<ConsumerRecords<K, V>> deserialize(Flux<? extends ConsumerRecords<?, ?>> polled) {
+        return polled.flatMapSequential(
+            records -> deserializeBatch((ConsumerRecords<byte[], byte[]>) records),
+            Schedulers.DEFAULT_POOL_SIZE,
+            1);
+    }
+
+    @SuppressWarnings({ "unchecked", "rawtypes" })
+    private Mono<ConsumerRecords<K, V>> deserializeBatch(ConsumerRecords<byte[], byte[]> records) {
+        if (records.isEmpty()) {
+            // passed through as is, empty batches may be markers identified by reference
+            return Mono.just((ConsumerRecords) records);
+        }
+        List<Chunk> chunks = new ArrayList<>();
+        for (TopicPartition partition : records.partitions()) {
+            List<ConsumerRecord<byte[], byte[]>> partitionRecords = records.records(partition);
+            for (int from = 0; from < partitionRecords.size(); from += CHUNK_SIZE) {
+                int to = Math.min(from + CHUNK_SIZE, partitionRecords.size());
+                chunks.add(new Chunk(partition, partitionRecords.subList(from, to)));
+            }
+        }
+        return Flux.fromIterable(chunks)
+            .flatMapSequential(chunk -> Mono.fromCallable(chunk::deserialize).subscribeOn(scheduler), chunks.size())
+            .reduceWith(LinkedHashMap<TopicPartition, List<ConsumerRecord<K, V>>>::new, (deserialized, chunk) -> {
+                if (!chunk.deserialized.isEmpty()) {
+                    deserialized.computeIfAbsent(chunk.partition, p -> new ArrayList<>()).addAll(chunk.deserialized);
+                }
+                return deserialized;
+            })
+            .map(deserialized -> new ConsumerRecords<>(deserialized));
+    }
+
+    /**
+     * Closes the deserializers that were created from their configured classes.
+     */
+    void close() {
+        Deserializers.closeIfCreated(keyDeserializer, receiverOptions.keyDeserializer());
+        Deserializers.closeIfCreated(valueDeserializer, receiverOptions.valueDeserializer());
+    }
+
+    @SuppressWarnings("deprecation")
+    private ConsumerRecord<K, V> deserialize(ConsumerRecord<byte[], byte[]> record) {
+        K key = record.key() == null ? null : keyDeserializer.deserialize(record.topic(), record.key());
+        V value = record.value() == null ? null : valueDeserializer.deserialize(record.topic(), record.value());
+        return new ConsumerRecord<>(record.topic(),
+            record.partition(),
+            record.offset(),
+            record.timestamp(),
+            record.timestampType(),
+            RecordChecksum.of(record),
+            record.serializedKeySize(),
+            record.serializedValueSize(),
+            key,
+            value);
+    }
+
+    private final class Chunk {
+
+        private final TopicPartition partition;
+
+        private final List<ConsumerRecord<byte[], byte[]>> records;
+
+        private List<ConsumerRecord<K, V>> deserialized;
+
+        Chunk(TopicPartition partition, List<ConsumerRecord<byte[], byte[]>> records) {
+            this.partition = partition;
+            this.records = records;
+        }
+
+        Chunk deserialize() {
+            List<ConsumerRecord<K, V>> result = new ArrayList<>(records.size());
+            for (ConsumerRecord<byte[], byte[]> record : records) {
+                try {
+                    result.add(ParallelDeserializer.this.deserialize(record));
+                } catch (RuntimeException e) {
+                    if (errorHandler == null) {
+                        throw new SerializationException("Error deserializing key/value for partition " + partition
+                            + " at offset " + record.offset(), e);
+                    }
+                    log.debug("Skipping record {}@{} that could not be deserialized", partition, record.offset(), e);
+                    errorHandler.accept(record, e);
+                    skip.accept(record);
+                }
+            }
+            deserialized = result;
+            return this;
+        }
+    }
+}
@@ -0,0 +1,219 @@
+/*
+ * Copyright (c) 2023 VMware Inc. or its affiliates, All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package reactor.kafka.receiver.internals;
+
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.consumer.ConsumerRecords;
+import org.apache.kafka.common.TopicPartition;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import reactor.core.CoreSubscriber;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.GroupedFlux;
+import reactor.core.publisher.Sinks;
+import reactor.core.scheduler.Scheduler;
+import reactor.kafka.receiver.ReceiverOffset;
+import reactor.kafka.receiver.ReceiverRecord;
+
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+/**
+ * Dispatches the records of each assigned partition to its own {@link GroupedFlux}, which is
+ * created when the partition is assigned and completed when it is revoked. Assignments, revocations
+ * and records are all handled on the event thread, so a group never receives records of a previous
+ * assignment. Records are delivered to the group subscribers on the receiver scheduler.
+ * <p>
+ * A partition whose group has <code>maxBuffered</code> undelivered records is reported as full and
+ * paused by the event loop, without affecting the other partitions.
+ * <p>
+ * A group whose subscriber cancels is discarded together with its undelivered records, and the
+ * following records of the partition are dispatched to a new group.
+ */
+final class PartitionGroups<K, V> {
+
+    private static final Logger log = LoggerFactory.getLogger(PartitionGroups.class);
+
+    private final Sinks.Many<GroupedFlux<TopicPartition, ReceiverRecord<K, V>>> groups =
+        Sinks.many().unicast().onBackpressureBuffer();
+
+    private final Map<TopicPartition, PartitionGroup> active = new ConcurrentHashMap<>();
+
+    private final int maxBuffered;
+
+    private volatile Scheduler scheduler;
+
+    private volatile Runnable onDrained = () -> { };
+
+    PartitionGroups(int maxBuffered) {
+        this.maxBuffered = maxBuffered;
+    }
+
+    Flux<GroupedFlux<TopicPartition, ReceiverRecord<K, V>>> groups() {
+        return groups.asFlux();
+    }
+
+    /**
+     * Sets the scheduler that records are delivered on, before any group is subscribed.
+     */
+    void deliverOn(Scheduler scheduler) {
+        this.scheduler = scheduler;
+    }
+
+    /**
+     * Sets the action invoked when a full partition has been drained, to resume it without waiting for the poll timeout.
+     */
+    void onDrained(Runnable onDrained) {
+        this.onDrained = onDrained;
+    }
+
+    void onAssigned(Collection<TopicPartition> partitions) {
+        partitions.forEach(this::group);
+    }
+
+    void onRevoked(Collection<TopicPartition> partitions) {
+        for (TopicPartition partition : partitions) {
+            PartitionGroup group = active.remove(partition);
+            if (group != null) {
+                log.debug("Completing group of revoked partition {}", partition);
+                group.sink.tryEmitComplete();
+            }
+        }
+    }
+
+    void route(ConsumerRecords<K, V> records, Function<ConsumerRecord<K, V>, ReceiverOffset> offsetFactory) {
+        for (TopicPartition partition : records.partitions()) {
+            List<ConsumerRecord<K, V>> partitionRecords = records.records(partition);
+            int index = 0;
+            while (index < partitionRecords.size()) {
+                PartitionGroup group = group(partition);
+                group.buffered.addAndGet(partitionRecords.size() - index);
+                for (; index < partitionRecords.size(); index++) {
+                    ConsumerRecord<K, V> record = partitionRecords.get(index);
+                    if (group.sink.tryEmitNext(new ReceiverRecord<>(record, offsetFactory.apply(record))).isFailure()) {
+                        group.buffered.addAndGet(index - partitionRecords.size());
+                        discard(group);
+                        break;
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns true if the group of a partition has too many undelivered records.
+     */
+    boolean isFull(TopicPartition partition) {
+        PartitionGroup group = active.get(partition);
+        if (group == null || group.buffered.get() < maxBuffered) {
+            return false;
+        }
+        group.full.set(true);
+        return true;
+    }
+
+    /**
+     * Terminates all groups, with an error if <code>error</code> is not null.
+     */
+    void terminate(Throwable error) {
+        Iterator<PartitionGroup> iterator = active.values().iterator();
+        while (iterator.hasNext()) {
+            PartitionGroup group = iterator.next();
+            iterator.remove();
+            if (error == null) {
+                group.sink.tryEmitComplete();
+            } else {
+                group.sink.tryEmitError(error);
+            }
+        }
+        if (error == null) {
+            groups.tryEmitComplete();
+        } else {
+            groups.tryEmitError(error);
+        }
+    }
+
+    /**
+     * Removes a group whose subscriber has cancelled, so that the next records of its partition are
+     * dispatched to a new group, and resumes the partition if it was paused by the group.
+     */
+    private void discard(PartitionGroup group) {
+        if (active.remove(group.partition, group)) {
+            log.debug("Discarding cancelled group of partition {}", group.partition);
+        }
+        if (group.full.getAndSet(false)) {
+            onDrained.run();
+        }
+    }
+
+    private PartitionGroup group(TopicPartition partition) {
+        PartitionGroup group = active.get(partition);
+        if (group == null) {
+            group = new PartitionGroup(partition);
+            active.put(partition, group);
+            log.debug("Emitting group of assigned partition {}", partition);
+            groups.tryEmitNext(group);
+        }
+        return group;
+    }
+
+    final class PartitionGroup extends GroupedFlux<TopicPartition, ReceiverRecord<K, V>> {
+
+        private final TopicPartition partition;
+
+        private final Sinks.Many<ReceiverRecord<K, V>> sink = Sinks.many().unicast().onBackpressureBuffer();
+
+        private final AtomicInteger buffered = new AtomicInteger();
+
+        private final AtomicBoolean full = new AtomicBoolean();
+
+        PartitionGroup(TopicPartition partition) {
+            this.partition = partition;
+        }
+
+        @Override
+        public TopicPartition key() {
+            return partition;
+        }
+
+        @Override
+        public void subscribe(CoreSubscriber<? super ReceiverRecord<K, V>> actual) {
+            sink.asFlux()
+                .publishOn(scheduler)
+                .doOnNext(record -> delivered())
+                .doOnCancel(() -> discard(this))
+                .subscribe(actual);
+        }
+
+        private void delivered() {
+            if (buffered.decrementAndGet() <= maxBuffered / 2 && full.compareAndSet(true, false)) {
+                onDrained.run();
+            }
+        }
+
+        @Override
+        public String toString() {
+            return "PartitionGroup{" + partition + ", buffered=" + buffered + "}";
+        }
+    }
+}
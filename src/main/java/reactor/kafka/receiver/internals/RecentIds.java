@@ -0,0 +1,180 @@
+/*
+ * Copyright (c) 2023 VMware Inc. or its affiliates, All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package reactor.kafka.receiver.internals;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+
+/**
+ * A bounded set of the 64-bit fingerprints of the ids processed recently in one partition, kept in
+ * direct memory. Fingerprints are stored with the time they were added in a ring, oldest first, and
+ * indexed by an open addressing hash table with linear probing. The oldest fingerprint is evicted
+ * when the ring is full, and fingerprints older than the maximum age are evicted on each access.
+ * <p>
+ * Thread-safe.
+ */
+final class RecentIds {
+
+    private static final int ENTRY_SIZE = 16;
+
+    private final int capacity;
+
+    private final long maxAgeMillis;
+
+    /** Ring of entries holding a fingerprint and the time it was added */
+    private final ByteBuffer entries;
+
+    /** Position of the entry of each slot in the ring plus one, or zero if the slot is empty */
+    private final IntBuffer index;
+
+    private final int mask;
+
+    private int head;
+
+    private int count;
+
+    RecentIds(int capacity, long maxAgeMillis) {
+        if (capacity <= 0 || capacity > Integer.MAX_VALUE / ENTRY_SIZE) {
+            throw new IllegalArgumentException("Invalid capacity: " + capacity);
+        }
+        int slots = Integer.highestOneBit(capacity * 2 - 1) << 1;
+        this.capacity = capacity;
+        this.maxAgeMillis = maxAgeMillis;
+        this.entries = ByteBuffer.allocateDirect(capacity * ENTRY_SIZE);
+        this.index = ByteBuffer.allocateDirect(slots * 4).asIntBuffer();
+        this.mask = slots - 1;
+    }
+
+    /**
+     * Returns true if a fingerprint was added and has not been evicted at time <code>now</code>.
+     */
+    synchronized boolean contains(long fingerprint, long now) {
+        expire(now);
+        return find(fingerprint) >= 0;
+    }
+
+    /**
+     * Adds a fingerprint at time <code>now</code>, evicting the oldest fingerprint if the set is full.
+     * @return false if the fingerprint was already present
+     */
+    synchronized boolean add(long fingerprint, long now) {
+        expire(now);
+        int slot = find(fingerprint);
+        if (slot >= 0) {
+            return false;
+        }
+        if (count == capacity) {
+            evictOldest();
+            slot = find(fingerprint);
+        }
+        int position = (head + count) % capacity;
+        entries.putLong(position * ENTRY_SIZE, fingerprint);
+        entries.putLong(position * ENTRY_SIZE + 8, now);
+        index.put(~slot, position + 1);
+        count++;
+        return true;
+    }
+
+    synchronized int size() {
+        return count;
+    }
+
+    /**
+     * Writes the fingerprints and their times, oldest first.
+     */
+    synchronized void writeTo(DataOutputStream out) throws IOException {
+        out.writeInt(count);
+        for (int i = 0; i < count; i++) {
+            int position = (head + i) % capacity;
+            out.writeLong(entries.getLong(position * ENTRY_SIZE));
+            out.writeLong(entries.getLong(position * ENTRY_SIZE + 8));
+        }
+    }
+
+    /**
+     * Adds the fingerprints written by {@link #writeTo(DataOutputStream)}.
+     */
+    synchronized void readFrom(DataInputStream in) throws IOException {
+        int size = in.readInt();
+        for (int i = 0; i < size; i++) {
+            add(in.readLong(), in.readLong());
+        }
+    }
+
+    private void expire(long now) {
+        long expiry = now - maxAgeMillis;
+        while (count > 0 && entries.getLong(head * ENTRY_SIZE + 8) <= expiry) {
+            evictOldest();
+        }
+    }
+
+    private void evictOldest() {
+        delete(find(entries.getLong(head * ENTRY_SIZE)));
+        head = (head + 1) % capacity;
+        count--;
+    }
+
+    /**
+     * Returns the slot of a fingerprint, or the complement of the empty slot where it would be inserted.
+     */
+    private int find(long fingerprint) {
+        int slot = home(fingerprint);
+        int position;
+        while ((position = index.get(slot)) != 0) {
+            if (entries.getLong((position - 1) * ENTRY_SIZE) == fingerprint) {
+                return slot;
+            }
+            slot = (slot + 1) & mask;
+        }
+        return ~slot;
+    }
+
+    /**
+     * Empties a slot, moving back the following entries of the probe sequence so that lookups do not
+     * stop at the emptied slot.
+     */
+    private void delete(int slot) {
+        int next = slot;
+        while (true) {
+            next = (next + 1) & mask;
+            int position = index.get(next);
+            if (position == 0) {
+                break;
+            }
+            int home = home(entries.getLong((position - 1) * ENTRY_SIZE));
+            // the entry stays if its home slot is cyclically in (slot, next]
+            boolean stays = slot <= next ? slot < home && home <= next : slot < home || home <= next;
+            if (!stays) {
+                index.put(slot, position);
+                slot = next;
+            }
+        }
+        index.put(slot, 0);
+    }
+
+    private int home(long fingerprint) {
+        return (int) (fingerprint ^ (fingerprint >>> 32)) & mask;
+    }
+
+    @Override
+    public synchronized String toString() {
+        return "RecentIds{count=" + count + ", capacity=" + capacity + "}";
+    }
+}
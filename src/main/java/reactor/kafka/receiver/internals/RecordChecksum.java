@@ -0,0 +1,66 @@
+/*
+ * Copyright (c) 2023 VMware Inc. or its affiliates, All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package reactor.kafka.receiver.internals;
+
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+
+/**
+ * Reads the checksum of a record to copy it into a new record.
+ */
+public final class RecordChecksum {
+
+    /**
+     * <code>ConsumerRecord#checksum()</code> was removed in Kafka 3.0. A constant method
+     * handle is inlined by the JIT, unlike a reflective call on every record.
+     */
+    private static final MethodHandle CHECKSUM_METHOD;
+
+    static {
+        MethodHandle method;
+        try {
+            method = MethodHandles.publicLookup()
+                .findVirtual(ConsumerRecord.class, "checksum", MethodType.methodType(long.class));
+        } catch (NoSuchMethodException | IllegalAccessException | SecurityException e) {
+            method = null;
+        }
+        CHECKSUM_METHOD = method;
+    }
+
+    private RecordChecksum() {
+    }
+
+    /**
+     * Returns the checksum of a record, or -1 if the Kafka client does not support checksums.
+     */
+    public static Long of(@SuppressWarnings("rawtypes") ConsumerRecord consumerRecord) {
+        long checksum = -1L;
+        if (CHECKSUM_METHOD != null) {
+            try {
+                checksum = (long) CHECKSUM_METHOD.invokeExact(consumerRecord);
+            } catch (RuntimeException | Error e) {
+                throw e;
+            } catch (Throwable e) {
+                throw new IllegalStateException(e);
+            }
+        }
+        return checksum;
+    }
+}
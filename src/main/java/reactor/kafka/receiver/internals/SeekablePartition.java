@@ -34,6 +34,10 @@ class SeekablePartition implements ReceiverPartition {
         this.topicPartition = topicPartition;
     }
 
+    Consumer<?, ?> consumer() {
+        return consumer;
+    }
+
     @Override
     public TopicPartition topicPartition() {
         return topicPartition;
@@ -0,0 +1,106 @@
+/*
+ * Copyright (c) 2023 VMware Inc. or its affiliates, All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package reactor.kafka.receiver.internals;
+
+import org.apache.kafka.common.TopicPartition;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Reads and writes the checkpoint of a table: the offsets from which each partition must be
+ * consumed followed by the entries of the table up to those offsets. The file is replaced
+ * atomically on each write, so a checkpoint is either complete or absent.
+ */
+final class TableCheckpoint {
+
+    private static final int MAGIC = 0x524b5401;
+
+    private TableCheckpoint() {
+    }
+
+    static void write(Path file, Map<TopicPartition, Long> offsets, OffHeapStore store) {
+        try {
+            Path parent = file.toAbsolutePath().getParent();
+            Path temp = Files.createTempFile(parent, file.getFileName().toString(), ".tmp");
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temp)))) {
+                out.writeInt(MAGIC);
+                out.writeInt(offsets.size());
+                for (Map.Entry<TopicPartition, Long> entry : offsets.entrySet()) {
+                    out.writeUTF(entry.getKey().topic());
+                    out.writeInt(entry.getKey().partition());
+                    out.writeLong(entry.getValue());
+                }
+                out.writeInt(store.size());
+                store.forEach((key, value) -> {
+                    try {
+                        out.writeInt(key.length);
+                        out.write(key);
+                        out.writeInt(value.length);
+                        out.write(value);
+                    } catch (IOException e) {
+                        throw new UncheckedIOException("Failed to write checkpoint " + file, e);
+                    }
+                });
+            }
+            Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to write checkpoint " + file, e);
+        }
+    }
+
+    /**
+     * Loads the entries of a checkpoint into <code>store</code>.
+     * @return the offsets of the checkpoint, or an empty map if there is no checkpoint
+     */
+    static Map<TopicPartition, Long> read(Path file, OffHeapStore store) {
+        Map<TopicPartition, Long> offsets = new HashMap<>();
+        if (!Files.exists(file)) {
+            return offsets;
+        }
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+            if (in.readInt() != MAGIC) {
+                throw new IOException("Not a table checkpoint");
+            }
+            int partitions = in.readInt();
+            for (int i = 0; i < partitions; i++) {
+                TopicPartition partition = new TopicPartition(in.readUTF(), in.readInt());
+                offsets.put(partition, in.readLong());
+            }
+            int entries = in.readInt();
+            for (int i = 0; i < entries; i++) {
+                byte[] key = new byte[in.readInt()];
+                in.readFully(key);
+                byte[] value = new byte[in.readInt()];
+                in.readFully(value);
+                store.put(key, value);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to read checkpoint " + file, e);
+        }
+        return offsets;
+    }
+}
@@ -0,0 +1,153 @@
+/*
+ * Copyright (c) 2023 VMware Inc. or its affiliates, All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package reactor.kafka.receiver.internals;
+
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.consumer.ConsumerRecords;
+import org.apache.kafka.clients.consumer.OffsetAndMetadata;
+import org.apache.kafka.common.TopicPartition;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Sinks;
+import reactor.core.scheduler.Scheduler;
+import reactor.kafka.receiver.ReceiverOptions;
+
+import java.time.Duration;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Groups consecutive non-empty polls of an exactly once receiver into transactions, closing a
+ * transaction when it contains a maximum number of records or bytes, or when a maximum duration
+ * has elapsed since its first poll. Transactions closed by their duration are closed by an empty
+ * poll emitted by a timer, which is not delivered.
+ */
+final class TransactionPolls<K, V> {
+
+    private final int maxRecords;
+
+    private final long maxBytes;
+
+    private final Duration maxDuration;
+
+    private final Scheduler timer;
+
+    private final Sinks.Many<ConsumerRecords<K, V>> timeouts = Sinks.many().unicast().onBackpressureBuffer();
+
+    private int records;
+
+    private long bytes;
+
+    /* Empty poll emitted when the duration of the current transaction elapses, null if no timer is scheduled */
+    private ConsumerRecords<K, V> timeout;
+
+    private volatile Disposable timeoutTask;
+
+    TransactionPolls(ReceiverOptions<K, V> receiverOptions, Scheduler timer) {
+        this.maxRecords = receiverOptions.transactionMaxRecords();
+        this.maxBytes = receiverOptions.transactionMaxBytes();
+        this.maxDuration = receiverOptions.transactionMaxDuration();
+        this.timer = timer;
+    }
+
+    /**
+     * Returns true if polls are grouped into transactions, false if each poll is a transaction.
+     */
+    static boolean isGrouped(ReceiverOptions<?, ?> receiverOptions) {
+        return receiverOptions.transactionMaxRecords() > 0 || receiverOptions.transactionMaxBytes() > 0
+            || receiverOptions.transactionMaxDuration() != null;
+    }
+
+    /**
+     * Returns the polls of each transaction.
+     */
+    Flux<Flux<ConsumerRecords<K, V>>> group(Flux<ConsumerRecords<K, V>> polls) {
+        return Flux.merge(polls.doFinally(signal -> close()), timeouts.asFlux())
+            .windowUntil(this::closes)
+            .map(transaction -> transaction.filter(it -> !it.isEmpty()));
+    }
+
+    /**
+     * Adds the offsets following the last record of each partition of a poll to <code>offsets</code>.
+     */
+    static <K, V> void updateOffsets(Map<TopicPartition, OffsetAndMetadata> offsets, ConsumerRecords<K, V> records) {
+        for (TopicPartition partition : records.partitions()) {
+            List<ConsumerRecord<K, V>> partitionRecords = records.records(partition);
+            if (partitionRecords.isEmpty()) {
+                continue;
+            }
+            long nextOffset = partitionRecords.get(partitionRecords.size() - 1).offset() + 1;
+            OffsetAndMetadata current = offsets.get(partition);
+            if (current == null || current.offset() < nextOffset) {
+                offsets.put(partition, new OffsetAndMetadata(nextOffset));
+            }
+        }
+    }
+
+    /**
+     * Returns true if a poll closes the current transaction. Invoked serially for each poll and timeout.
+     */
+    private boolean closes(ConsumerRecords<K, V> polled) {
+        if (polled.isEmpty()) {
+            // timeouts of transactions closed by their size are ignored
+            if (polled != timeout) {
+                return false;
+            }
+            reset();
+            return true;
+        }
+        if (records == 0 && maxDuration != null) {
+            ConsumerRecords<K, V> transactionTimeout = new ConsumerRecords<>(Collections.emptyMap());
+            timeout = transactionTimeout;
+            timeoutTask = timer.schedule(() -> emitTimeout(transactionTimeout),
+                maxDuration.toMillis(), TimeUnit.MILLISECONDS);
+        }
+        records += polled.count();
+        for (ConsumerRecord<K, V> record : polled) {
+            bytes += Math.max(0, record.serializedKeySize()) + Math.max(0, record.serializedValueSize());
+        }
+        if ((maxRecords > 0 && records >= maxRecords) || (maxBytes > 0 && bytes >= maxBytes)) {
+            reset();
+            return true;
+        }
+        return false;
+    }
+
+    private void reset() {
+        records = 0;
+        bytes = 0;
+        timeout = null;
+        Disposable task = timeoutTask;
+        if (task != null) {
+            task.dispose();
+        }
+    }
+
+    private synchronized void emitTimeout(ConsumerRecords<K, V> transactionTimeout) {
+        timeouts.tryEmitNext(transactionTimeout);
+    }
+
+    private synchronized void close() {
+        Disposable task = timeoutTask;
+        if (task != null) {
+            task.dispose();
+        }
+        timeouts.tryEmitComplete();
+    }
+}
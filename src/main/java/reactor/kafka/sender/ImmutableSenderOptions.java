@@ -40,6 +40,8 @@ class ImmutableSenderOptions<K, V> implements SenderOptions<K, V> {
     private final Scheduler           scheduler;
     private final int                 maxInFlight;
     private final boolean             stopOnError;
+    private final boolean             virtualThreads;
+    private final int                 transactionalProducers;
 
     ImmutableSenderOptions() {
         this(new HashMap<>());
@@ -66,6 +68,8 @@ class ImmutableSenderOptions<K, V> implements SenderOptions<K, V> {
         scheduler = Schedulers.immediate();
         maxInFlight = Queues.SMALL_BUFFER_SIZE;
         stopOnError = true;
+        virtualThreads = false;
+        transactionalProducers = 1;
     }
 
     ImmutableSenderOptions(
@@ -75,7 +79,9 @@ class ImmutableSenderOptions<K, V> implements SenderOptions<K, V> {
             Duration timeout,
             Scheduler scheduler,
             int flight,
-            boolean error
+            boolean error,
+            boolean virtualThreads,
+            int transactionalProducers
     ) {
         this.properties = properties;
         keySerializer = serializer;
@@ -84,6 +90,8 @@ class ImmutableSenderOptions<K, V> implements SenderOptions<K, V> {
         this.scheduler = scheduler;
         maxInFlight = flight;
         stopOnError = error;
+        this.virtualThreads = virtualThreads;
+        this.transactionalProducers = transactionalProducers;
     }
 
     /**
@@ -125,7 +133,9 @@ class ImmutableSenderOptions<K, V> implements SenderOptions<K, V> {
                 closeTimeout,
                 scheduler,
                 maxInFlight,
-                stopOnError
+                stopOnError,
+                virtualThreads,
+                transactionalProducers
         );
     }
 
@@ -154,7 +164,9 @@ class ImmutableSenderOptions<K, V> implements SenderOptions<K, V> {
                 closeTimeout,
                 scheduler,
                 maxInFlight,
-                stopOnError
+                stopOnError,
+                virtualThreads,
+                transactionalProducers
         );
     }
 
@@ -183,7 +195,9 @@ class ImmutableSenderOptions<K, V> implements SenderOptions<K, V> {
                 closeTimeout,
                 scheduler,
                 maxInFlight,
-                stopOnError
+                stopOnError,
+                virtualThreads,
+                transactionalProducers
         );
     }
 
@@ -209,7 +223,9 @@ class ImmutableSenderOptions<K, V> implements SenderOptions<K, V> {
                 closeTimeout,
                 Objects.requireNonNull(scheduler),
                 maxInFlight,
-                stopOnError
+                stopOnError,
+                virtualThreads,
+                transactionalProducers
         );
     }
 
@@ -239,7 +255,9 @@ class ImmutableSenderOptions<K, V> implements SenderOptions<K, V> {
                 closeTimeout,
                 scheduler,
                 maxInFlight,
-                stopOnError
+                stopOnError,
+                virtualThreads,
+                transactionalProducers
         );
     }
 
@@ -276,7 +294,72 @@ class ImmutableSenderOptions<K, V> implements SenderOptions<K, V> {
                 closeTimeout,
                 scheduler,
                 maxInFlight,
-                stopOnError
+                stopOnError,
+                virtualThreads,
+                transactionalProducers
+        );
+    }
+
+    /**
+     * Returns true if the thread that sends records to the producer is a virtual thread
+     * when the JDK supports them.
+     * @return the virtual threads flag
+     */
+    @Override
+    public boolean virtualThreads() {
+        return virtualThreads;
+    }
+
+    /**
+     * Configures the thread that sends records to the producer to be a virtual thread
+     * when the JDK supports them.
+     * @return sender options with the new virtual threads flag.
+     */
+    @Override
+    public SenderOptions<K, V> virtualThreads(boolean virtualThreads) {
+        return new ImmutableSenderOptions<>(
+                properties,
+                keySerializer,
+                valueSerializer,
+                closeTimeout,
+                scheduler,
+                maxInFlight,
+                stopOnError,
+                virtualThreads,
+                transactionalProducers
+        );
+    }
+
+    /**
+     * Returns the number of transactional producers that send the transactions
+     * of {@link KafkaSender#sendTransactionally(org.reactivestreams.Publisher)}.
+     * @return the number of transactional producers
+     */
+    @Override
+    public int transactionalProducers() {
+        return transactionalProducers;
+    }
+
+    /**
+     * Configures the number of transactional producers that send the transactions
+     * of {@link KafkaSender#sendTransactionally(org.reactivestreams.Publisher)}.
+     * @return sender options with the new number of transactional producers
+     */
+    @Override
+    public SenderOptions<K, V> transactionalProducers(int transactionalProducers) {
+        if (transactionalProducers < 1) {
+            throw new IllegalArgumentException("transactionalProducers must be >= 1");
+        }
+        return new ImmutableSenderOptions<>(
+                properties,
+                keySerializer,
+                valueSerializer,
+                closeTimeout,
+                scheduler,
+                maxInFlight,
+                stopOnError,
+                virtualThreads,
+                transactionalProducers
         );
     }
 
@@ -302,7 +385,9 @@ class ImmutableSenderOptions<K, V> implements SenderOptions<K, V> {
                 timeout,
                 scheduler,
                 maxInFlight,
-                stopOnError
+                stopOnError,
+                virtualThreads,
+                transactionalProducers
         );
     }
 
@@ -315,7 +400,9 @@ class ImmutableSenderOptions<K, V> implements SenderOptions<K, V> {
             closeTimeout,
             scheduler,
             maxInFlight,
-            stopOnError
+            stopOnError,
+            virtualThreads,
+            transactionalProducers
         );
     }
 
@@ -326,6 +413,8 @@ class ImmutableSenderOptions<K, V> implements SenderOptions<K, V> {
             ImmutableSenderOptions<?, ?> that = (ImmutableSenderOptions<?, ?>) object;
             return Objects.equals(maxInFlight, that.maxInFlight)
                 && Objects.equals(stopOnError, that.stopOnError)
+                && Objects.equals(virtualThreads, that.virtualThreads)
+                && Objects.equals(transactionalProducers, that.transactionalProducers)
                 && Objects.equals(properties, that.properties)
                 && Objects.equals(keySerializer, that.keySerializer)
                 && Objects.equals(valueSerializer, that.valueSerializer)
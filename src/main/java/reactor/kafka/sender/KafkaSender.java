@@ -101,6 +101,19 @@ public interface KafkaSender<K, V> {
      * Each transaction is committed if all the records are successfully delivered to Kafka
      * and aborted if any of the records in that batch could not be delivered.
      * <p>
+     * By default, a transaction is started after the previous transaction has been committed.
+     * If {@link SenderOptions#transactionalProducers(int)} is greater than one, transactions are
+     * sent by a pool of transactional producers and the sends of a transaction start while the
+     * previous transaction is being committed. Records of each transaction are sent after the records
+     * of the previous transaction have been acknowledged, so that the order of records with the same
+     * key is preserved. Results of each transaction are emitted in transaction order, after the
+     * transaction is committed. If a transaction fails, no new transactions are started and the error
+     * is propagated after the transactions in progress complete, which may include committed
+     * transactions that follow the failed one. Since the transactional producers are shared, a
+     * sender with a pool of producers sends one sequence of transactions at a time: subscribing to
+     * another one while a sequence is being sent fails with {@link IllegalStateException}.
+     * </p>
+     * <p>
      * Example usage:
      * <pre>
      * {@code
@@ -118,6 +131,33 @@ public interface KafkaSender<K, V> {
      */
     <T> Flux<Flux<SenderResult<T>>> sendTransactionally(Publisher<? extends Publisher<? extends SenderRecord<K, V, T>>> records);
 
+    /**
+     * Sends records from <code>records</code> within transactions that are sized automatically.
+     * Each transaction is committed when it contains {@link TxWindowSpec#maxRecords()} records,
+     * when {@link TxWindowSpec#maxBytes()} serialized bytes of its records have been acknowledged,
+     * or when {@link TxWindowSpec#maxDuration()} has elapsed since its first record, whichever comes
+     * first. Transactions are therefore small when traffic is low and bounded when traffic is high.
+     * Transactions are sent as in {@link #sendTransactionally(Publisher)}: each transaction is aborted
+     * if any of its records could not be delivered.
+     * <p>
+     * Example usage:
+     * <pre>
+     * {@code
+     *     sender.sendTransactionallyWindowed(outboundRecords,
+     *         TxWindowSpec.create().maxRecords(1000).maxDuration(Duration.ofMillis(100)));
+     * }
+     * </pre>
+     * </p>
+     *
+     * @param records Outbound producer records along with correlation metadata to match results returned.
+     * @param windowSpec Limits of each transaction, at least one limit must be set
+     * @return Flux of Kafka producer response record metadata along with the corresponding request correlation metadata.
+     *         Each inner Flux contains results of records sent within a transaction.
+     * @throws IllegalArgumentException if no limit is set in <code>windowSpec</code>
+     * @since 1.3.16
+     */
+    <T> Flux<Flux<SenderResult<T>>> sendTransactionallyWindowed(Publisher<? extends SenderRecord<K, V, T>> records, TxWindowSpec windowSpec);
+
     /**
      * Returns the {@link TransactionManager} instance associated with this sender,
      * which may be used for fine-grained control over transaction states. Sender
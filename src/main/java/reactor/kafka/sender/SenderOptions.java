@@ -186,6 +186,53 @@ public interface SenderOptions<K, V> {
     @NonNull
     SenderOptions<K, V> closeTimeout(@NonNull Duration timeout);
 
+    /**
+     * Set to true to send records to the producer from a virtual thread when the JDK
+     * supports them (Java 21 or later); a platform thread is used otherwise. Default false.
+     * @param virtualThreads true to use a virtual sender thread
+     * @return sender options with the new virtual threads flag.
+     * @since 1.3.16
+     */
+    @NonNull
+    default SenderOptions<K, V> virtualThreads(boolean virtualThreads) {
+        return this;
+    }
+
+    /**
+     * Returns true if records are sent to the producer from a virtual thread when the JDK supports them.
+     * @return the virtual threads flag.
+     * @since 1.3.16
+     */
+    default boolean virtualThreads() {
+        return false;
+    }
+
+    /**
+     * Sets the number of transactional producers that send the transactions of
+     * {@link KafkaSender#sendTransactionally(org.reactivestreams.Publisher)}. When greater than one,
+     * the sends of a transaction start as soon as the sends of the previous transaction have been
+     * acknowledged, while that transaction is committed by another producer. The additional producers
+     * use the transactional id of this sender suffixed with <code>-1</code>, <code>-2</code> and so on.
+     * Default 1.
+     * @param transactionalProducers number of transactional producers, at least 1
+     * @return sender options with the new number of transactional producers.
+     * @since 1.3.16
+     */
+    @NonNull
+    default SenderOptions<K, V> transactionalProducers(int transactionalProducers) {
+        return this;
+    }
+
+    /**
+     * Returns the number of transactional producers that send the transactions of
+     * {@link KafkaSender#sendTransactionally(org.reactivestreams.Publisher)}.
+     * @return the number of transactional producers.
+     * @since 1.3.16
+     */
+    default int transactionalProducers() {
+        return 1;
+    }
+
     /**
      * kafka client 0.10.1.1 not supported
      */
@@ -0,0 +1,143 @@
+/*
+ * Copyright (c) 2023 VMware Inc. or its affiliates, All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package reactor.kafka.sender;
+
+import javax.annotation.Nullable;
+import java.time.Duration;
+import java.util.Objects;
+
+/**
+ * Limits of the transactions of {@link KafkaSender#sendTransactionallyWindowed(org.reactivestreams.Publisher, TxWindowSpec)}.
+ * A transaction is committed when it contains the maximum number of records, when the maximum number of
+ * serialized bytes has been acknowledged, or when the maximum duration has elapsed since its first record,
+ * whichever comes first. At least one limit must be set.
+ *
+ * @since 1.3.16
+ */
+public final class TxWindowSpec {
+
+    private final int maxRecords;
+
+    private final long maxBytes;
+
+    private final Duration maxDuration;
+
+    private TxWindowSpec(int maxRecords, long maxBytes, @Nullable Duration maxDuration) {
+        this.maxRecords = maxRecords;
+        this.maxBytes = maxBytes;
+        this.maxDuration = maxDuration;
+    }
+
+    /**
+     * Creates a window spec without limits.
+     * @return new window spec
+     */
+    public static TxWindowSpec create() {
+        return new TxWindowSpec(0, 0, null);
+    }
+
+    /**
+     * Returns the maximum number of records of a transaction, 0 if unlimited.
+     * @return maximum number of records
+     */
+    public int maxRecords() {
+        return maxRecords;
+    }
+
+    /**
+     * Sets the maximum number of records of a transaction, 0 if unlimited.
+     * @param maxRecords maximum number of records
+     * @return window spec with the new record limit
+     */
+    public TxWindowSpec maxRecords(int maxRecords) {
+        if (maxRecords < 0) {
+            throw new IllegalArgumentException("maxRecords must be >= 0");
+        }
+        return new TxWindowSpec(maxRecords, maxBytes, maxDuration);
+    }
+
+    /**
+     * Returns the maximum number of serialized key and value bytes of a transaction, 0 if unlimited.
+     * @return maximum number of bytes
+     */
+    public long maxBytes() {
+        return maxBytes;
+    }
+
+    /**
+     * Sets the maximum number of serialized key and value bytes of a transaction, 0 if unlimited.
+     * Bytes are counted when records are acknowledged, so a transaction may exceed this limit by
+     * the records that are in flight when it is reached.
+     * @param maxBytes maximum number of bytes
+     * @return window spec with the new byte limit
+     */
+    public TxWindowSpec maxBytes(long maxBytes) {
+        if (maxBytes < 0) {
+            throw new IllegalArgumentException("maxBytes must be >= 0");
+        }
+        return new TxWindowSpec(maxRecords, maxBytes, maxDuration);
+    }
+
+    /**
+     * Returns the maximum duration of a transaction from its first record, null if unlimited.
+     * @return maximum duration
+     */
+    @Nullable
+    public Duration maxDuration() {
+        return maxDuration;
+    }
+
+    /**
+     * Sets the maximum duration of a transaction from its first record, null if unlimited.
+     * @param maxDuration maximum duration
+     * @return window spec with the new duration limit
+     */
+    public TxWindowSpec maxDuration(@Nullable Duration maxDuration) {
+        if (maxDuration != null && (maxDuration.isNegative() || maxDuration.isZero())) {
+            throw new IllegalArgumentException("maxDuration must be > 0");
+        }
+        return new TxWindowSpec(maxRecords, maxBytes, maxDuration);
+    }
+
+    /**
+     * Returns true if at least one limit is set.
+     * @return true if transactions are bounded
+     */
+    public boolean isBounded() {
+        return maxRecords > 0 || maxBytes > 0 || maxDuration != null;
+    }
+
+    @Override
+    public boolean equals(Object object) {
+        if (this == object) return true;
+        if (object == null || getClass() != object.getClass()) return false;
+        TxWindowSpec that = (TxWindowSpec) object;
+        return maxRecords == that.maxRecords
+            && maxBytes == that.maxBytes
+            && Objects.equals(maxDuration, that.maxDuration);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(maxRecords, maxBytes, maxDuration);
+    }
+
+    @Override
+    public String toString() {
+        return "TxWindowSpec(maxRecords=" + maxRecords + ", maxBytes=" + maxBytes + ", maxDuration=" + maxDuration + ")";
+    }
+}
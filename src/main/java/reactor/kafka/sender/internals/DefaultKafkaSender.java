@@ -30,22 +30,28 @@ import reactor.core.publisher.Sinks;
 import reactor.core.publisher.Sinks.EmitFailureHandler;
 import reactor.core.scheduler.Scheduler;
 import reactor.core.scheduler.Schedulers;
+import reactor.kafka.internals.VirtualThreads;
 import reactor.kafka.sender.KafkaOutbound;
 import reactor.kafka.sender.KafkaSender;
 import reactor.kafka.sender.SenderOptions;
 import reactor.kafka.sender.SenderRecord;
 import reactor.kafka.sender.SenderResult;
 import reactor.kafka.sender.TransactionManager;
+import reactor.kafka.sender.TxWindowSpec;
 
 import java.lang.reflect.InvocationHandler;
 import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Proxy;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Set;
 import java.util.concurrent.ThreadFactory;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
 import java.util.function.Function;
 
 /**
@@ -68,12 +74,19 @@ public class DefaultKafkaSender<K, V> implements KafkaSender<K, V>, EmitFailureH
             "flush"
         ));
 
+    /** {@code ProducerConfig#TRANSACTIONAL_ID_CONFIG} of the transactional producers of a sender */
+    private static final String TRANSACTIONAL_ID_CONFIG = "transactional.id";
+
     private final Scheduler scheduler;
     private final Mono<Producer<K, V>> producerMono;
     private final AtomicBoolean hasProducer;
     final SenderOptions<K, V> senderOptions;
     private final TransactionManager transactionManager;
+    private final ProducerFactory producerFactory;
     private Producer<K, V> producerProxy;
+    private List<DefaultKafkaSender<K, V>> transactionalSenders;
+    /** Set while transactions are sent by the pool of transactional producers, which are shared by all sends */
+    private final AtomicBoolean pipelining = new AtomicBoolean();
 
     /**
      * Constructs a reactive Kafka producer with the specified configuration properties. All Kafka
@@ -83,12 +96,17 @@ public class DefaultKafkaSender<K, V> implements KafkaSender<K, V>, EmitFailureH
         this.scheduler = Schedulers.newSingle(new ThreadFactory() {
             @Override
             public Thread newThread(Runnable r) {
+                String name = "reactor-kafka-sender-" + System.identityHashCode(this);
+                if (options.virtualThreads()) {
+                    return VirtualThreads.newThread(r, name);
+                }
                 Thread thread = new Thread(r);
-                thread.setName("reactor-kafka-sender-" + System.identityHashCode(this));
+                thread.setName(name);
                 return thread;
             }
         });
         this.hasProducer = new AtomicBoolean();
+        this.producerFactory = producerFactory;
         this.senderOptions = options.scheduler(options.isTransactional()
                                         ? Schedulers.newSingle(options.transactionalId())
                                         : options.scheduler()
@@ -143,10 +161,36 @@ public class DefaultKafkaSender<K, V> implements KafkaSender<K, V>, EmitFailureH
 
     @Override
     public <T> Flux<Flux<SenderResult<T>>> sendTransactionally(Publisher<? extends Publisher<? extends SenderRecord<K, V, T>>> transactionRecords) {
+        return transactions(transactionRecords, result -> { });
+    }
+
+    @Override
+    public <T> Flux<Flux<SenderResult<T>>> sendTransactionallyWindowed(Publisher<? extends SenderRecord<K, V, T>> records, TxWindowSpec windowSpec) {
+        if (!windowSpec.isBounded()) {
+            throw new IllegalArgumentException("At least one transaction limit must be set: " + windowSpec);
+        }
+        return Flux.defer(() -> {
+            TransactionWindows<K, V, T> windows = new TransactionWindows<>(windowSpec, Schedulers.parallel());
+            return transactions(windows.windows(Flux.from(records)), windows::acknowledged);
+        });
+    }
+
+    private <T> Flux<Flux<SenderResult<T>>> transactions(Publisher<? extends Publisher<? extends SenderRecord<K, V, T>>> transactionRecords,
+                                                         Consumer<? super SenderResult<T>> onResult) {
+        if (senderOptions.transactionalProducers() > 1) {
+            return Flux.defer(() -> {
+                transactionManager();
+                if (!pipelining.compareAndSet(false, true)) {
+                    return Flux.error(new IllegalStateException("Transactions are already being sent by the transactional producers of this sender"));
+                }
+                return pipelinedTransactions(transactionRecords, onResult)
+                    .doFinally(signal -> pipelining.set(false));
+            });
+        }
         Sinks.Many<Object> sink = Sinks.many().unicast().onBackpressureBuffer();
         return Flux.from(transactionRecords)
                    .publishOn(senderOptions.scheduler(), false, 1)
-                   .concatMapDelayError(records -> transaction(records, sink), false, 1)
+                   .concatMapDelayError(records -> transaction(records, sink, onResult), false, 1)
                    .window(sink.asFlux())
                    .doOnTerminate(() -> sink.emitComplete(EmitFailureHandler.FAIL_FAST))
                    .doOnCancel(() -> sink.emitComplete(EmitFailureHandler.FAIL_FAST));
@@ -167,6 +211,16 @@ public class DefaultKafkaSender<K, V> implements KafkaSender<K, V>, EmitFailureH
 
     @Override
     public void close() {
+        synchronized (this) {
+            if (transactionalSenders != null) {
+                for (DefaultKafkaSender<K, V> sender : transactionalSenders) {
+                    if (sender != this) {
+                        sender.close();
+                    }
+                }
+                transactionalSenders = null;
+            }
+        }
         if (!hasProducer.getAndSet(false)) {
             return;
         }
@@ -177,16 +231,106 @@ public class DefaultKafkaSender<K, V> implements KafkaSender<K, V>, EmitFailureH
         scheduler.dispose();
     }
 
-    private <T> Flux<SenderResult<T>> transaction(Publisher<? extends SenderRecord<K, V, T>> transactionRecords, Sinks.Many<Object> transactionBoundary) {
+    private <T> Flux<SenderResult<T>> transaction(Publisher<? extends SenderRecord<K, V, T>> transactionRecords, Sinks.Many<Object> transactionBoundary,
+                                                  Consumer<? super SenderResult<T>> onResult) {
         return transactionManager()
                 .begin()
                 .thenMany(send(transactionRecords))
+                .doOnNext(onResult)
                 .concatWith(transactionManager().commit())
                 .concatWith(Mono.fromRunnable(() -> transactionBoundary.emitNext(this, this)))
                 .onErrorResume(e -> transactionManager().abort().then(Mono.error(e)))
                 .publishOn(senderOptions.scheduler());
     }
 
+    /**
+     * Sends transactions with a pool of transactional producers. The sends of each transaction start
+     * when the sends of the previous transaction have been acknowledged, so that the records of a
+     * transaction are appended to each partition after the records of the previous transactions and
+     * per-key ordering is preserved. Commits of up to one transaction per producer overlap with the
+     * sends of the next transaction. Each transaction is committed once the previous transaction has
+     * been committed and is aborted if the previous transaction was not committed, so that no
+     * transaction is committed after an earlier one failed. The results of each transaction are
+     * emitted in transaction order once it is committed. When a transaction fails, no further
+     * transactions are started and the error is propagated after the transactions in progress have
+     * completed. Only one sequence of transactions may use the pool at a time.
+     */
+    private <T> Flux<Flux<SenderResult<T>>> pipelinedTransactions(Publisher<? extends Publisher<? extends SenderRecord<K, V, T>>> transactionRecords,
+                                                                  Consumer<? super SenderResult<T>> onResult) {
+        List<DefaultKafkaSender<K, V>> senders = transactionalSenders();
+        Sinks.Many<DefaultKafkaSender<K, V>> idleSenders = Sinks.many().unicast().onBackpressureBuffer();
+        for (DefaultKafkaSender<K, V> sender : senders) {
+            idleSenders.tryEmitNext(sender);
+        }
+        Sinks.Empty<Void> failed = Sinks.empty();
+        // sends and commit of the previous transaction, accessed serially from the map below
+        AtomicReference<Mono<Void>> previousSends = new AtomicReference<>(Mono.empty());
+        AtomicReference<Mono<Boolean>> previousCommit = new AtomicReference<>(Mono.just(true));
+        return Flux.from(transactionRecords)
+                   .publishOn(senderOptions.scheduler(), false, 1)
+                   .takeUntilOther(failed.asMono())
+                   .zipWith(idleSenders.asFlux(), 1)
+                   .map(transaction -> {
+                       DefaultKafkaSender<K, V> sender = transaction.getT2();
+                       Sinks.Empty<Void> sends = Sinks.empty();
+                       Sinks.One<Boolean> committed = Sinks.one();
+                       Flux<SenderResult<T>> results = sender.send(transaction.getT1()).doOnNext(onResult);
+                       return pipelinedTransaction(sender.transactionManager(), results,
+                                                   previousSends.getAndSet(sends.asMono()), sends,
+                                                   previousCommit.getAndSet(committed.asMono()), committed)
+                           .onErrorResume(e -> {
+                               failed.tryEmitEmpty();
+                               return Mono.error(e);
+                           })
+                           .doFinally(signal -> {
+                               synchronized (idleSenders) {
+                                   idleSenders.tryEmitNext(sender);
+                               }
+                           });
+                   })
+                   .flatMapSequentialDelayError(Function.identity(), senders.size(), 1);
+    }
+
+    /**
+     * Sends the records of one pipelined transaction once the sends of the previous transaction are
+     * done, and commits it once the previous transaction is committed. Emits the results of the
+     * transaction when it is committed, completes empty when it is aborted because the previous
+     * transaction was not committed, and signals whether it was committed to {@code committed}.
+     */
+    static <T> Mono<Flux<SenderResult<T>>> pipelinedTransaction(TransactionManager transactionManager,
+                                                                Flux<SenderResult<T>> results,
+                                                                Mono<Void> previousSends,
+                                                                Sinks.Empty<Void> sends,
+                                                                Mono<Boolean> previousCommit,
+                                                                Sinks.One<Boolean> committed) {
+        return transactionManager
+                .begin()
+                .then(previousSends)
+                .thenMany(results)
+                .collectList()
+                .doFinally(signal -> sends.tryEmitEmpty())
+                .flatMap(list -> previousCommit.flatMap(previousCommitted -> previousCommitted
+                    ? transactionManager.commit().thenReturn(Flux.fromIterable(list))
+                    : transactionManager.abort().then(Mono.<Flux<SenderResult<T>>>empty())))
+                .doOnSuccess(result -> committed.tryEmitValue(result != null))
+                .onErrorResume(e -> transactionManager.abort().then(Mono.error(e)))
+                .doFinally(signal -> committed.tryEmitValue(false));
+    }
+
+    private synchronized List<DefaultKafkaSender<K, V>> transactionalSenders() {
+        if (transactionalSenders == null) {
+            List<DefaultKafkaSender<K, V>> senders = new ArrayList<>();
+            senders.add(this);
+            for (int i = 1; i < senderOptions.transactionalProducers(); i++) {
+                String transactionalId = senderOptions.transactionalId() + "-" + i;
+                senders.add(new DefaultKafkaSender<>(producerFactory,
+                    senderOptions.producerProperty(TRANSACTIONAL_ID_CONFIG, transactionalId)));
+            }
+            transactionalSenders = senders;
+        }
+        return transactionalSenders;
+    }
+
     @SuppressWarnings("unchecked")
     private synchronized Producer<K, V> producerProxy(Producer<K, V> producer) {
         if (producerProxy == null) {
@@ -0,0 +1,170 @@
+/*
+ * Copyright (c) 2023 VMware Inc. or its affiliates, All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package reactor.kafka.sender.internals;
+
+import org.apache.kafka.clients.producer.RecordMetadata;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Sinks;
+import reactor.core.scheduler.Scheduler;
+import reactor.kafka.sender.SenderRecord;
+import reactor.kafka.sender.SenderResult;
+import reactor.kafka.sender.TxWindowSpec;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Splits a stream of records into transactions, closing a transaction when it contains a maximum
+ * number of records, when a maximum number of bytes of its records have been acknowledged, or
+ * when a maximum duration has elapsed since its first record. Transactions closed by their bytes or
+ * duration are closed by a boundary emitted by the sender or by a timer, which is not sent.
+ * <p>
+ * Results of the sends are acknowledged in record order, since the records of a transaction are sent
+ * after the records of the previous transaction have been acknowledged. The index of an acknowledged
+ * result therefore identifies the transaction of its record.
+ */
+final class TransactionWindows<K, V, T> {
+
+    private final int maxRecords;
+
+    private final long maxBytes;
+
+    private final Duration maxDuration;
+
+    private final Scheduler timer;
+
+    private final Sinks.Many<Boundary> boundaries = Sinks.many().unicast().onBackpressureBuffer();
+
+    /* Sequence number of the current transaction, boundaries of earlier transactions are dropped */
+    private long generation;
+
+    private int records;
+
+    /* Number of records of earlier transactions */
+    private long transactionStart;
+
+    /* Number of records of all transactions */
+    private long windowed;
+
+    private long acknowledged;
+
+    private long bytes;
+
+    private boolean bytesExceeded;
+
+    private Disposable timeoutTask;
+
+    TransactionWindows(TxWindowSpec windowSpec, Scheduler timer) {
+        this.maxRecords = windowSpec.maxRecords();
+        this.maxBytes = windowSpec.maxBytes();
+        this.maxDuration = windowSpec.maxDuration();
+        this.timer = timer;
+    }
+
+    /**
+     * Returns the records of each transaction.
+     */
+    @SuppressWarnings("unchecked")
+    Flux<Flux<SenderRecord<K, V, T>>> windows(Flux<? extends SenderRecord<K, V, T>> records) {
+        return Flux.<Object>merge(records.doFinally(signal -> close()), boundaries.asFlux())
+            .filter(this::isCurrent)
+            .windowUntil(this::closes)
+            .map(transaction -> transaction
+                .filter(it -> !(it instanceof Boundary))
+                .map(it -> (SenderRecord<K, V, T>) it));
+    }
+
+    /**
+     * Counts the bytes of an acknowledged record, closing the current transaction if it exceeds
+     * the maximum number of bytes.
+     */
+    synchronized void acknowledged(SenderResult<?> result) {
+        long index = acknowledged++;
+        if (maxBytes <= 0 || index < transactionStart || bytesExceeded) {
+            return;
+        }
+        RecordMetadata metadata = result.recordMetadata();
+        if (metadata != null) {
+            bytes += Math.max(0, metadata.serializedKeySize()) + Math.max(0, metadata.serializedValueSize());
+        }
+        if (bytes >= maxBytes) {
+            bytesExceeded = true;
+            boundaries.tryEmitNext(new Boundary(generation));
+        }
+    }
+
+    private synchronized boolean isCurrent(Object item) {
+        return !(item instanceof Boundary) || ((Boundary) item).generation == generation;
+    }
+
+    /**
+     * Returns true if a record or boundary closes the current transaction. Invoked serially for
+     * each record and boundary of the current transaction.
+     */
+    private synchronized boolean closes(Object item) {
+        if (item instanceof Boundary) {
+            reset();
+            return true;
+        }
+        if (records == 0 && maxDuration != null) {
+            Boundary timeout = new Boundary(generation);
+            timeoutTask = timer.schedule(() -> emit(timeout), maxDuration.toMillis(), TimeUnit.MILLISECONDS);
+        }
+        records++;
+        windowed++;
+        if (maxRecords > 0 && records >= maxRecords) {
+            reset();
+            return true;
+        }
+        return false;
+    }
+
+    private void reset() {
+        generation++;
+        records = 0;
+        transactionStart = windowed;
+        bytes = 0;
+        bytesExceeded = false;
+        Disposable task = timeoutTask;
+        if (task != null) {
+            task.dispose();
+            timeoutTask = null;
+        }
+    }
+
+    private synchronized void emit(Boundary boundary) {
+        boundaries.tryEmitNext(boundary);
+    }
+
+    private synchronized void close() {
+        Disposable task = timeoutTask;
+        if (task != null) {
+            task.dispose();
+        }
+        boundaries.tryEmitComplete();
+    }
+
+    private static final class Boundary {
+
+        private final long generation;
+
+        Boundary(long generation) {
+            this.generation = generation;
+        }
+    }
+}
@@ -0,0 +1,65 @@
+/*
+ * Copyright (c) 2023 VMware Inc. or its affiliates, All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package reactor.kafka.internals;
+
+import org.junit.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class VirtualThreadsTest {
+
+    @Test
+    public void createsNamedThread() throws Exception {
+        CountDownLatch latch = new CountDownLatch(1);
+        Thread thread = VirtualThreads.newThread(latch::countDown, "test-thread");
+        assertEquals("test-thread", thread.getName());
+        thread.start();
+        assertTrue("Thread did not run", latch.await(10, TimeUnit.SECONDS));
+    }
+
+    /**
+     * Virtual threads are created on Java 21 or later and platform threads on earlier JDKs.
+     */
+    @Test
+    public void createsVirtualThreadsFromJava21() throws Exception {
+        Thread thread = VirtualThreads.newThread(() -> { }, "test-thread");
+        if (javaVersion() >= 21) {
+            assertTrue(VirtualThreads.isSupported());
+            assertTrue("Not a virtual thread", isVirtual(thread));
+        } else {
+            assertFalse("Unexpected virtual thread", isVirtual(thread));
+        }
+    }
+
+    private static int javaVersion() {
+        String version = System.getProperty("java.specification.version");
+        return version.startsWith("1.") ? Integer.parseInt(version.substring(2)) : Integer.parseInt(version);
+    }
+
+    private static boolean isVirtual(Thread thread) throws Exception {
+        try {
+            return (Boolean) Thread.class.getMethod("isVirtual").invoke(thread);
+        } catch (NoSuchMethodException e) {
+            return false;
+        }
+    }
+}
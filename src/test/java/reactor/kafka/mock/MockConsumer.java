@@ -31,6 +31,9 @@ import org.apache.kafka.common.PartitionInfo;
 import org.apache.kafka.common.TopicPartition;
 import org.apache.kafka.common.errors.InvalidOffsetException;
 import org.apache.kafka.common.record.TimestampType;
+import org.apache.kafka.common.serialization.ByteArrayDeserializer;
+import org.apache.kafka.common.serialization.IntegerSerializer;
+import org.apache.kafka.common.serialization.StringSerializer;
 import reactor.kafka.receiver.ReceiverOptions;
 import reactor.kafka.receiver.internals.ConsumerFactory;
 
@@ -71,6 +74,7 @@ public class MockConsumer extends org.apache.kafka.clients.consumer.MockConsumer
     private final Queue<KafkaException> commitExceptions;
     private final MockCluster cluster;
     private final AtomicLong pollCount;
+    private final AtomicLong committedCount = new AtomicLong();
     private int maxPollRecords;
     private final long requestLatencyMs;
     private ReceiverOptions<Integer, String> receiverOptions;
@@ -113,6 +117,10 @@ public class MockConsumer extends org.apache.kafka.clients.consumer.MockConsumer
         return pollCount.get();
     }
 
+    public long committedCount() {
+        return committedCount.get();
+    }
+
     @Override
     public Set<TopicPartition> assignment() {
         acquire();
@@ -228,11 +236,7 @@ public class MockConsumer extends org.apache.kafka.clients.consumer.MockConsumer
                 long offset = offsets.get(partition);
                 List<Message> log = cluster.log(partition);
                 if (log.size() > offset) {
-                    Message message = log.get((int) offset);
-                    ConsumerRecord<Integer, String> record = new ConsumerRecord<Integer, String>(partition.topic(), partition.partition(), offset,
-                            message.timestamp(), TimestampType.CREATE_TIME,
-                            0, 4, message.value().length(), message.key(), message.value());
-                    records.get(partition).add(record);
+                    records.get(partition).add(record(partition, offset, log.get((int) offset)));
                     offsets.put(partition, offset + 1);
                     if (++count == maxPollRecords)
                         break;
@@ -346,6 +350,7 @@ public class MockConsumer extends org.apache.kafka.clients.consumer.MockConsumer
     public OffsetAndMetadata committed(TopicPartition partition) {
         acquire();
         try {
+            committedCount.incrementAndGet();
             Long offset = cluster.committedOffset(receiverOptions.groupId(), partition);
             return offset == null ? null : new OffsetAndMetadata(offset);
         } finally {
@@ -382,6 +387,19 @@ public class MockConsumer extends org.apache.kafka.clients.consumer.MockConsumer
         }
     }
 
+    @Override
+    public Map<TopicPartition, Long> endOffsets(Collection<TopicPartition> partitions) {
+        acquire();
+        try {
+            Map<TopicPartition, Long> endOffsets = new HashMap<>();
+            for (TopicPartition partition : partitions)
+                endOffsets.put(partition, (long) cluster.log(partition).size());
+            return endOffsets;
+        } finally {
+            release();
+        }
+    }
+
     @Override
     public Set<TopicPartition> paused() {
         acquire();
@@ -431,6 +449,24 @@ public class MockConsumer extends org.apache.kafka.clients.consumer.MockConsumer
     public void wakeup() {
     }
 
+    /**
+     * Returns the record of a message, serialized if the consumer is configured with byte array
+     * deserializers as the receivers that deserialize records themselves are.
+     */
+    @SuppressWarnings({ "unchecked", "rawtypes" })
+    private ConsumerRecord<Integer, String> record(TopicPartition partition, long offset, Message message) {
+        if (receiverOptions.valueDeserializer() instanceof ByteArrayDeserializer) {
+            byte[] key = new IntegerSerializer().serialize(partition.topic(), message.key());
+            byte[] value = new StringSerializer().serialize(partition.topic(), message.value());
+            return (ConsumerRecord) new ConsumerRecord<>(partition.topic(), partition.partition(), offset,
+                    message.timestamp(), TimestampType.CREATE_TIME,
+                    0, key.length, value == null ? -1 : value.length, key, value);
+        }
+        return new ConsumerRecord<>(partition.topic(), partition.partition(), offset,
+                message.timestamp(), TimestampType.CREATE_TIME,
+                0, 4, message.value() == null ? -1 : message.value().length(), message.key(), message.value());
+    }
+
     private void doAssign() {
         if (assignment.size() > 0 && rebalanceCallback != null)
             rebalanceCallback.onPartitionsAssigned(assignment);
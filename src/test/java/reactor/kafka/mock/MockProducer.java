@@ -62,6 +62,14 @@ public class MockProducer implements Producer<Integer, String> {
         this.senderOptions = senderOptions;
     }
 
+    public SenderOptions<Integer, String> senderOptions() {
+        return senderOptions;
+    }
+
+    public void sendDelay(long sendDelayMs) {
+        this.sendDelayMs = sendDelayMs;
+    }
+
     public boolean isClosed() {
         return closed;
     }
@@ -0,0 +1,118 @@
+/*
+ * Copyright (c) 2023 VMware Inc. or its affiliates, All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package reactor.kafka.receiver.internals;
+
+import org.apache.kafka.clients.consumer.OffsetAndMetadata;
+import org.apache.kafka.common.TopicPartition;
+import org.junit.Test;
+
+import java.util.Collections;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class AtmostOnceOffsetsTests {
+
+    private final TopicPartition partition = new TopicPartition("test", 0);
+
+    private final AtmostOnceOffsets atmostOnceOffsets = new AtmostOnceOffsets();
+
+    private final CommittableBatch commitBatch = new CommittableBatch();
+
+    /**
+     * With commit-ahead, the offset committed on close is the offset following the last
+     * dispatched record, so that the first record that was not dispatched is redelivered.
+     */
+    @Test
+    public void commitAheadIsUndoneToRecordAfterLastDispatched() {
+        atmostOnceOffsets.onDispatch(partition, 2);
+        atmostOnceOffsets.onCommit(offsets(8));
+
+        assertThat(atmostOnceOffsets.undoCommitAhead(commitBatch)).isTrue();
+        assertThat(committed()).containsEntry(partition, new OffsetAndMetadata(3));
+    }
+
+    @Test
+    public void commitOfLastDispatchedRecordIsNotUndone() {
+        atmostOnceOffsets.onDispatch(partition, 7);
+        atmostOnceOffsets.onCommit(offsets(8));
+
+        assertThat(atmostOnceOffsets.undoCommitAhead(commitBatch)).isFalse();
+        assertThat(committed()).isEmpty();
+    }
+
+    /**
+     * A batch at the start of a partition that was committed but not dispatched is delivered again.
+     */
+    @Test
+    public void undispatchedBatchAtStartOfPartitionIsUndone() {
+        atmostOnceOffsets.onBatchCommit(partition, 0, 9);
+        atmostOnceOffsets.onCommit(offsets(10));
+
+        assertThat(atmostOnceOffsets.undoCommitAhead(commitBatch)).isTrue();
+        assertThat(committed()).containsEntry(partition, new OffsetAndMetadata(0));
+    }
+
+    @Test
+    public void batchCommittedBeforePreviousBatchIsDispatchedKeepsItsStart() {
+        atmostOnceOffsets.onBatchCommit(partition, 0, 9);
+        atmostOnceOffsets.onDispatch(partition, 4);
+        atmostOnceOffsets.onBatchCommit(partition, 10, 19);
+        atmostOnceOffsets.onCommit(offsets(20));
+
+        assertThat(atmostOnceOffsets.undoCommitAhead(commitBatch)).isTrue();
+        assertThat(committed()).containsEntry(partition, new OffsetAndMetadata(5));
+
+        atmostOnceOffsets.onDispatch(partition, 9);
+        atmostOnceOffsets.onBatchCommit(partition, 20, 29);
+        atmostOnceOffsets.onCommit(offsets(30));
+        assertThat(atmostOnceOffsets.undoCommitAhead(commitBatch)).isTrue();
+        assertThat(committed()).containsEntry(partition, new OffsetAndMetadata(10));
+
+        // all records of earlier batches dispatched, the next batch is the first to redeliver
+        atmostOnceOffsets.onDispatch(partition, 29);
+        atmostOnceOffsets.onBatchCommit(partition, 30, 39);
+        atmostOnceOffsets.onCommit(offsets(40));
+        assertThat(atmostOnceOffsets.undoCommitAhead(commitBatch)).isTrue();
+        assertThat(committed()).containsEntry(partition, new OffsetAndMetadata(30));
+    }
+
+    /**
+     * Offsets of an earlier assignment of a partition are not committed again after it is reassigned.
+     */
+    @Test
+    public void offsetsOfEarlierAssignmentAreForgotten() {
+        atmostOnceOffsets.onBatchCommit(partition, 0, 9);
+        atmostOnceOffsets.onDispatch(partition, 9);
+        atmostOnceOffsets.onCommit(offsets(10));
+        atmostOnceOffsets.onAssignmentChange(Collections.singleton(partition));
+
+        atmostOnceOffsets.onBatchCommit(partition, 50, 59);
+        atmostOnceOffsets.onCommit(offsets(60));
+
+        assertThat(atmostOnceOffsets.undoCommitAhead(commitBatch)).isTrue();
+        assertThat(committed()).containsEntry(partition, new OffsetAndMetadata(50));
+    }
+
+    private Map<TopicPartition, OffsetAndMetadata> offsets(long offset) {
+        return Collections.singletonMap(partition, new OffsetAndMetadata(offset));
+    }
+
+    private Map<TopicPartition, OffsetAndMetadata> committed() {
+        return commitBatch.getAndClearOffsets().offsets();
+    }
+}
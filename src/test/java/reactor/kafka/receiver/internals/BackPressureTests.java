@@ -26,19 +26,29 @@ import reactor.core.Disposable;
 import reactor.core.scheduler.Schedulers;
 import reactor.kafka.receiver.KafkaReceiver;
 import reactor.kafka.receiver.ReceiverOptions;
+import reactor.kafka.receiver.ReceiverRecord;
 
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicReference;
 
 import static org.junit.Assert.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.argThat;
 import static org.mockito.BDDMockito.given;
 import static org.mockito.BDDMockito.willAnswer;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 
@@ -100,4 +110,61 @@ public class BackPressureTests {
         disposable.dispose();
     }
 
+    @Test
+    @SuppressWarnings({ "rawtypes", "unchecked" })
+    public void pauseOnlyPartitionsWithTooManyInFlight() throws InterruptedException {
+        ConsumerFactory cf = mock(ConsumerFactory.class);
+        Consumer consumer = mock(Consumer.class);
+        given(cf.createConsumer(any())).willReturn(consumer);
+        TopicPartition tp0 = new TopicPartition("foo", 0);
+        TopicPartition tp1 = new TopicPartition("foo", 1);
+        Set<TopicPartition> assigned = new HashSet<>(Arrays.asList(tp0, tp1));
+        willAnswer(inv -> {
+            ConsumerRebalanceListener listener = inv.getArgument(1);
+            listener.onPartitionsAssigned(assigned);
+            return null;
+        }).given(consumer).subscribe(any(Collection.class), any(ConsumerRebalanceListener.class));
+        Map<TopicPartition, List<ConsumerRecord<Object, Object>>> records = new HashMap<>();
+        records.put(tp0, Arrays.asList(new ConsumerRecord<>("foo", 0, 0, null, null),
+            new ConsumerRecord<>("foo", 0, 1, null, null)));
+        records.put(tp1, Collections.singletonList(new ConsumerRecord<>("foo", 1, 0, null, null)));
+        AtomicBoolean first = new AtomicBoolean(true);
+        willAnswer(inv -> {
+            Thread.sleep(10);
+            return first.getAndSet(false) ? new ConsumerRecords(records) : ConsumerRecords.empty();
+        }).given(consumer).poll(any(Long.class));
+        given(consumer.assignment()).willReturn(assigned);
+        CountDownLatch pauseLatch = new CountDownLatch(1);
+        willAnswer(inv -> {
+            Collection<TopicPartition> paused = inv.getArgument(0);
+            if (paused.contains(tp0)) {
+                pauseLatch.countDown();
+            }
+            return null;
+        }).given(consumer).pause(any());
+        CountDownLatch resumeLatch = new CountDownLatch(1);
+        willAnswer(inv -> {
+            Collection<TopicPartition> resumed = inv.getArgument(0);
+            if (resumed.contains(tp0)) {
+                resumeLatch.countDown();
+            }
+            return null;
+        }).given(consumer).resume(any());
+        ReceiverOptions<Object, Object> options = ReceiverOptions.create()
+                .maxInFlightPerPartition(2)
+                .subscription(Collections.singletonList("foo"));
+        KafkaReceiver receiver = KafkaReceiver.create(cf, options);
+        List<ReceiverRecord<Object, Object>> received = new CopyOnWriteArrayList<>();
+        Disposable disposable = receiver.receive()
+            .doOnNext(rec -> received.add((ReceiverRecord<Object, Object>) rec))
+            .subscribe();
+        assertTrue(pauseLatch.await(10, TimeUnit.SECONDS));
+        verify(consumer, never()).pause(argThat(partitions -> partitions.contains(tp1)));
+        received.stream()
+            .filter(rec -> rec.partition() == 0)
+            .forEach(rec -> rec.receiverOffset().acknowledge());
+        assertTrue(resumeLatch.await(10, TimeUnit.SECONDS));
+        disposable.dispose();
+    }
+
 }
@@ -0,0 +1,62 @@
+/*
+ * Copyright (c) 2023 VMware Inc. or its affiliates, All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package reactor.kafka.receiver.internals;
+
+import org.apache.kafka.clients.consumer.Consumer;
+import org.apache.kafka.clients.consumer.OffsetAndTimestamp;
+import org.apache.kafka.common.TopicPartition;
+import org.junit.Test;
+import reactor.kafka.receiver.ReceiverPartition;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.mockito.ArgumentMatchers.anyMap;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+public class BulkSeekTest {
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void seeksAllPartitionsWithOneOffsetsForTimesRequest() {
+        Consumer<Object, Object> consumer = mock(Consumer.class);
+        List<ReceiverPartition> partitions = new ArrayList<>();
+        Map<TopicPartition, Long> timestamps = new HashMap<>();
+        Map<TopicPartition, OffsetAndTimestamp> offsets = new HashMap<>();
+        for (int i = 0; i < 4; i++) {
+            TopicPartition topicPartition = new TopicPartition("test", i);
+            partitions.add(new SeekablePartition(consumer, topicPartition));
+            timestamps.put(topicPartition, 1000L);
+            offsets.put(topicPartition, i == 3 ? null : new OffsetAndTimestamp(10L * i, 1000L));
+        }
+        given(consumer.offsetsForTimes(anyMap())).willReturn(offsets);
+
+        ReceiverPartition.seekAllToTimestamp(partitions, 1000L);
+
+        verify(consumer, times(1)).offsetsForTimes(timestamps);
+        verify(consumer).seek(new TopicPartition("test", 0), 0L);
+        verify(consumer).seek(new TopicPartition("test", 1), 10L);
+        verify(consumer).seek(new TopicPartition("test", 2), 20L);
+        verify(consumer).seekToEnd(Collections.singletonList(new TopicPartition("test", 3)));
+    }
+}
@@ -107,12 +107,57 @@ public class ConsumerEventLoopTest {
         CommittableBatch batch = loop.commitEvent.commitBatch;
         assertThat(latch.await(10, TimeUnit.SECONDS)).isTrue();
         assertThat(batch.uncommitted).hasSize(1);
-        assertThat(batch.uncommitted.get(tp)).hasSize(1);
+        assertThat(batch.uncommitted.get(tp).pendingCount()).isEqualTo(1);
         ArgumentCaptor<ConsumerRebalanceListener> rebal = ArgumentCaptor.forClass(ConsumerRebalanceListener.class);
         verify(consumer).subscribe(any(Collection.class), rebal.capture());
         rebal.getValue().onPartitionsRevoked(partitions);
         await().until(() -> batch.uncommitted.size() == 0);
-        assertThat(batch.deferred).hasSize(0);
+        assertThat(batch.deferredCount()).isEqualTo(0);
+    }
+
+    @SuppressWarnings({ "rawtypes", "unchecked" })
+    @Test
+    public void revokeWaitsOnlyForRecordsOfRevokedPartitions() throws InterruptedException {
+        ReceiverOptions opts = ReceiverOptions.create(
+                Collections.singletonMap(ConsumerConfig.GROUP_ID_CONFIG, "revokeWaitsOnlyForRevoked"))
+                .commitBatchSize(0)
+                .commitInterval(Duration.ZERO)
+                .maxDelayRebalance(Duration.ofSeconds(30))
+                .subscription(Collections.singletonList("test"));
+        Consumer consumer = mock(Consumer.class);
+        Scheduler scheduler = KafkaSchedulers.newEvent(opts.groupId());
+        Many sink = mock(Many.class);
+        ConsumerEventLoop loop = new ConsumerEventLoop<>(AckMode.MANUAL_ACK, null, opts,
+                scheduler, consumer, t -> false, sink, new AtomicBoolean());
+        TopicPartition tp0 = new TopicPartition("test", 0);
+        TopicPartition tp1 = new TopicPartition("test", 1);
+        Map<TopicPartition, List<ConsumerRecord>> record = new HashMap<>();
+        record.put(tp0, Collections.singletonList(
+                new ConsumerRecord("test", 0, 0, 0, TimestampType.NO_TIMESTAMP_TYPE, 0, 0, 0, null, null)));
+        record.put(tp1, Collections.singletonList(
+                new ConsumerRecord("test", 1, 0, 0, TimestampType.NO_TIMESTAMP_TYPE, 0, 0, 0, null, null)));
+        ConsumerRecords records = new ConsumerRecords(record);
+        AtomicBoolean polled = new AtomicBoolean();
+        willAnswer(inv -> {
+            Thread.sleep(10);
+            return polled.getAndSet(true) ? ConsumerRecords.empty() : records;
+        }).given(consumer).poll(any());
+        loop.onRequest(1);
+        CommittableBatch batch = loop.commitEvent.commitBatch;
+        await().until(() -> batch.inFlight(tp0) == 1 && batch.inFlight(tp1) == 1);
+        ArgumentCaptor<ConsumerRebalanceListener> rebal = ArgumentCaptor.forClass(ConsumerRebalanceListener.class);
+        verify(consumer).subscribe(any(Collection.class), rebal.capture());
+
+        CountDownLatch revoked = new CountDownLatch(1);
+        new Thread(() -> {
+            rebal.getValue().onPartitionsRevoked(Collections.singletonList(tp1));
+            revoked.countDown();
+        }).start();
+        assertThat(revoked.await(200, TimeUnit.MILLISECONDS)).isFalse();
+
+        batch.updateOffset(tp1, 0);
+        assertThat(revoked.await(5, TimeUnit.SECONDS)).isTrue();
+        assertThat(batch.inFlight(tp0)).isEqualTo(1);
     }
 
 }
@@ -0,0 +1,163 @@
+/*
+ * Copyright (c) 2023 VMware Inc. or its affiliates, All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package reactor.kafka.receiver.internals;
+
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.common.TopicPartition;
+import org.junit.Test;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.kafka.receiver.ReceiverOffset;
+import reactor.kafka.receiver.ReceiverRecord;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class DeduplicatorTests {
+
+    private final AtomicLong clock = new AtomicLong(1000);
+
+    private final List<Long> acknowledged = new ArrayList<>();
+
+    @Test
+    public void recentIdsEvictOldestAndExpired() {
+        RecentIds ids = new RecentIds(3, 100);
+        for (long id = 1; id <= 4; id++) {
+            assertThat(ids.add(id, 1000 + id)).isTrue();
+        }
+        assertThat(ids.add(4, 1010)).isFalse();
+        assertThat(ids.contains(1, 1010)).isFalse();
+        assertThat(ids.contains(2, 1010)).isTrue();
+        assertThat(ids.size()).isEqualTo(3);
+
+        assertThat(ids.contains(2, 1103)).isFalse();
+        assertThat(ids.contains(4, 1103)).isTrue();
+        assertThat(ids.size()).isEqualTo(1);
+    }
+
+    @Test
+    public void acknowledgedDuplicatesAreDropped() {
+        DefaultDeduplicator<String, String> deduplicator = deduplicator(null);
+
+        List<ReceiverRecord<String, String>> received = deduplicator
+            .apply(Flux.just(record(0, "a"), record(1, "b"), record(2, "a"), record(3, null)))
+            .doOnNext(r -> r.receiverOffset().acknowledge())
+            .collectList()
+            .block();
+        assertThat(received).extracting(ConsumerRecord::offset).containsExactly(0L, 1L, 3L);
+        assertThat(acknowledged).containsExactly(0L, 1L, 2L, 3L);
+        assertThat(deduplicator.duplicates()).isEqualTo(1);
+
+        // redelivered after a failed commit
+        received = deduplicator.apply(Flux.just(record(0, "a"), record(1, "b"), record(4, "c")))
+            .collectList()
+            .block();
+        assertThat(received).extracting(ConsumerRecord::offset).containsExactly(4L);
+        assertThat(deduplicator.duplicates()).isEqualTo(3);
+    }
+
+    @Test
+    public void unacknowledgedRecordsAreNotRemembered() {
+        DefaultDeduplicator<String, String> deduplicator = deduplicator(null);
+
+        deduplicator.apply(Flux.just(record(0, "a"))).blockLast();
+        List<ReceiverRecord<String, String>> received = deduplicator.apply(Flux.just(record(0, "a")))
+            .collectList()
+            .block();
+        assertThat(received).hasSize(1);
+        assertThat(acknowledged).isEmpty();
+    }
+
+    @Test
+    public void idsExpire() {
+        DefaultDeduplicator<String, String> deduplicator = deduplicator(null);
+
+        deduplicator.apply(Flux.just(record(0, "a"))).doOnNext(r -> r.receiverOffset().acknowledge()).blockLast();
+        clock.addAndGet(Duration.ofMinutes(1).toMillis());
+        assertThat(deduplicator.apply(Flux.just(record(0, "a"))).collectList().block()).hasSize(1);
+    }
+
+    @Test
+    public void forgottenPartitionsAreNotDeduplicated() {
+        DefaultDeduplicator<String, String> deduplicator = deduplicator(null);
+
+        deduplicator.apply(Flux.just(record(0, "a"))).doOnNext(r -> r.receiverOffset().acknowledge()).blockLast();
+        deduplicator.forget(Collections.singletonList(new TopicPartition("test", 1)));
+        assertThat(deduplicator.apply(Flux.just(record(0, "a"))).collectList().block()).isEmpty();
+
+        deduplicator.forget(Collections.singletonList(new TopicPartition("test", 0)));
+        assertThat(deduplicator.apply(Flux.just(record(0, "a"))).collectList().block()).hasSize(1);
+    }
+
+    @Test
+    public void idsAreRestoredFromSnapshot() throws Exception {
+        Path file = Files.createTempFile("deduplicator", ".snapshot");
+        Files.delete(file);
+        DefaultDeduplicator<String, String> deduplicator = deduplicator(file);
+        deduplicator.apply(Flux.just(record(0, "a"), record(1, "b")))
+            .concatMap(r -> r.receiverOffset().commit())
+            .blockLast();
+        deduplicator.snapshot().block();
+
+        DefaultDeduplicator<String, String> restored = deduplicator(file);
+        List<ReceiverRecord<String, String>> received = restored.apply(Flux.just(record(0, "a"), record(2, "c")))
+            .collectList()
+            .block();
+        assertThat(received).extracting(ConsumerRecord::offset).containsExactly(2L);
+        Files.delete(file);
+    }
+
+    private DefaultDeduplicator<String, String> deduplicator(Path snapshot) {
+        return new DefaultDeduplicator<>(r -> r.value() == null ? null : r.value().getBytes(StandardCharsets.UTF_8),
+            100, Duration.ofSeconds(10), snapshot, clock::get);
+    }
+
+    private ReceiverRecord<String, String> record(long offset, String id) {
+        TopicPartition partition = new TopicPartition("test", 0);
+        ReceiverOffset receiverOffset = new ReceiverOffset() {
+            @Override
+            public TopicPartition topicPartition() {
+                return partition;
+            }
+
+            @Override
+            public long offset() {
+                return offset;
+            }
+
+            @Override
+            public void acknowledge() {
+                acknowledged.add(offset);
+            }
+
+            @Override
+            public Mono<Void> commit() {
+                acknowledged.add(offset);
+                return Mono.empty();
+            }
+        };
+        return new ReceiverRecord<>(new ConsumerRecord<>("test", 0, offset, "key", id), receiverOffset);
+    }
+}
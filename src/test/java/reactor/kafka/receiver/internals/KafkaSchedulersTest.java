@@ -16,7 +16,10 @@
 
 package reactor.kafka.receiver.internals;
 
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
 
 import org.junit.Assert;
@@ -25,6 +28,25 @@ import reactor.core.scheduler.Scheduler;
 
 public class KafkaSchedulersTest {
 
+    @Test
+    public void virtualEventSchedulerIdentifiesProducedThreadCorrectly() throws InterruptedException {
+        Scheduler scheduler = KafkaSchedulers.newEvent("test", true);
+        try {
+            CountDownLatch latch = new CountDownLatch(1);
+            AtomicBoolean capture = new AtomicBoolean();
+
+            scheduler.schedule(() -> {
+                capture.set(KafkaSchedulers.isCurrentThreadFromScheduler());
+                latch.countDown();
+            });
+
+            latch.await();
+            Assert.assertTrue(capture.get());
+        } finally {
+            scheduler.dispose();
+        }
+    }
+
     @Test
     public void checkThatEventSchedulerIdentifiesProducedThreadCorrectly()
             throws InterruptedException {
@@ -84,4 +106,40 @@ public class KafkaSchedulersTest {
 
         Assert.assertTrue(capture.get());
     }
+
+    @Test
+    public void sharedEventSchedulersConfineTasksToOneThreadOfTheGroup()
+            throws InterruptedException {
+        Scheduler first = KafkaSchedulers.newSharedEvent("shared-test", 2);
+        Scheduler second = KafkaSchedulers.newSharedEvent("shared-test", 2);
+        Set<String> firstThreads = ConcurrentHashMap.newKeySet();
+        Set<String> allThreads = ConcurrentHashMap.newKeySet();
+        AtomicBoolean fromScheduler = new AtomicBoolean(true);
+        CountDownLatch latch = new CountDownLatch(20);
+        for (int i = 0; i < 10; i++) {
+            first.schedule(() -> {
+                firstThreads.add(Thread.currentThread().getName());
+                allThreads.add(Thread.currentThread().getName());
+                fromScheduler.compareAndSet(true, KafkaSchedulers.isCurrentThreadFromScheduler());
+                latch.countDown();
+            });
+            second.schedule(() -> {
+                allThreads.add(Thread.currentThread().getName());
+                fromScheduler.compareAndSet(true, KafkaSchedulers.isCurrentThreadFromScheduler());
+                latch.countDown();
+            });
+        }
+        Assert.assertTrue(latch.await(10, TimeUnit.SECONDS));
+        Assert.assertTrue(fromScheduler.get());
+        Assert.assertEquals(1, firstThreads.size());
+        Assert.assertTrue(allThreads.size() <= 2);
+        Assert.assertTrue(allThreads.stream().allMatch(name -> name.startsWith("reactive-kafka-shared-test-")));
+
+        first.dispose();
+        Assert.assertTrue(first.isDisposed());
+        CountDownLatch secondLatch = new CountDownLatch(1);
+        second.schedule(secondLatch::countDown);
+        Assert.assertTrue(secondLatch.await(10, TimeUnit.SECONDS));
+        second.dispose();
+    }
 }
@@ -19,6 +19,7 @@ package reactor.kafka.receiver.internals;
 import org.apache.kafka.clients.consumer.ConsumerConfig;
 import org.apache.kafka.clients.consumer.ConsumerRebalanceListener;
 import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.consumer.OffsetAndMetadata;
 import org.apache.kafka.clients.consumer.OffsetCommitCallback;
 import org.apache.kafka.clients.consumer.RetriableCommitFailedException;
 import org.apache.kafka.clients.producer.ProducerRecord;
@@ -26,6 +27,9 @@ import org.apache.kafka.common.KafkaException;
 import org.apache.kafka.common.PartitionInfo;
 import org.apache.kafka.common.TopicPartition;
 import org.apache.kafka.common.errors.InvalidOffsetException;
+import org.apache.kafka.common.serialization.IntegerDeserializer;
+import org.apache.kafka.common.serialization.IntegerSerializer;
+import org.apache.kafka.common.serialization.StringDeserializer;
 import org.junit.Before;
 import org.junit.Test;
 import reactor.core.Disposable;
@@ -35,7 +39,12 @@ import reactor.core.scheduler.Scheduler;
 import reactor.core.scheduler.Schedulers;
 import reactor.kafka.mock.MockCluster;
 import reactor.kafka.mock.MockConsumer;
+import reactor.kafka.receiver.FileOffsetStore;
 import reactor.kafka.receiver.KafkaReceiver;
+import reactor.kafka.receiver.KafkaReceiverPool;
+import reactor.kafka.receiver.KafkaTable;
+import reactor.kafka.receiver.OffsetRange;
+import reactor.kafka.receiver.ReceiverBatch;
 import reactor.kafka.receiver.ReceiverOffset;
 import reactor.kafka.receiver.ReceiverOptions;
 import reactor.kafka.receiver.ReceiverPartition;
@@ -44,6 +53,8 @@ import reactor.kafka.util.TestUtils;
 import reactor.test.StepVerifier;
 import reactor.test.StepVerifier.Step;
 
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.time.Duration;
 import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
@@ -64,6 +75,7 @@ import java.util.regex.Pattern;
 import static org.awaitility.Awaitility.await;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 import static org.junit.Assume.assumeTrue;
@@ -301,6 +313,46 @@ public class MockReceiverTest {
         disposable.dispose();
     }
 
+    /**
+     * Tests that partitions are consumed from the offsets of an external offset store and that
+     * acknowledged offsets are written to the store instead of being committed to Kafka.
+     */
+    @Test
+    public void offsetStore() throws Exception {
+        Path file = Files.createTempFile("offsets", ".properties");
+        file.toFile().deleteOnExit();
+        FileOffsetStore store = new FileOffsetStore(file);
+        Map<TopicPartition, OffsetAndMetadata> initial = new HashMap<>();
+        for (TopicPartition partition : cluster.partitions(topic))
+            initial.put(partition, new OffsetAndMetadata(5));
+        store.store(initial).block(Duration.ofSeconds(10));
+
+        sendMessages(topic, 0, 20);
+        receiverOptions = receiverOptions
+                .offsetStore(store)
+                .subscription(Collections.singleton(topic));
+        Flux<ReceiverRecord<Integer, String>> inboundFlux = new DefaultKafkaReceiver<>(consumerFactory, receiverOptions)
+                .receive()
+                .doOnNext(record -> {
+                    assertTrue("Record before stored offset " + record, record.offset() >= 5);
+                    record.receiverOffset().acknowledge();
+                });
+        StepVerifier.create(inboundFlux.take(10))
+                .expectNextCount(10)
+                .expectComplete()
+                .verify(Duration.ofMillis(DEFAULT_TEST_TIMEOUT));
+
+        await().atMost(10, TimeUnit.SECONDS).untilAsserted(() -> {
+            Map<TopicPartition, OffsetAndMetadata> stored = new FileOffsetStore(file)
+                    .load(cluster.partitions(topic))
+                    .block(Duration.ofSeconds(10));
+            for (TopicPartition partition : cluster.partitions(topic))
+                assertEquals(10, stored.get(partition).offset());
+        });
+        for (TopicPartition partition : cluster.partitions(topic))
+            assertNull(cluster.committedOffset(groupId, partition));
+    }
+
     /**
      * Tests that failure in seek in the assign listener terminates the inbound flux with an error.
      */
@@ -329,6 +381,158 @@ public class MockReceiverTest {
         });
     }
 
+    /**
+     * Tests that {@link KafkaReceiver#receiveRange(Map)} consumes the range of each partition
+     * and completes when all ranges have been consumed.
+     */
+    @Test
+    public void receiveRange() {
+        sendMessages(topic, 0, 20);
+        TopicPartition partition0 = new TopicPartition(topic, 0);
+        TopicPartition partition1 = new TopicPartition(topic, 1);
+        Map<TopicPartition, OffsetRange> ranges = new HashMap<>();
+        ranges.put(partition0, OffsetRange.of(3, 7));
+        ranges.put(partition1, OffsetRange.of(5, 5));
+        Flux<ReceiverRecord<Integer, String>> inboundFlux = new DefaultKafkaReceiver<>(consumerFactory, receiverOptions)
+                .receiveRange(ranges);
+        StepVerifier.create(inboundFlux.collectMultimap(ReceiverRecord::partition, ReceiverRecord::offset))
+                .assertNext(offsets -> {
+                    assertEquals(Arrays.asList(3L, 4L, 5L, 6L), offsets.get(0));
+                    assertNull(offsets.get(1));
+                })
+                .expectComplete()
+                .verify(Duration.ofMillis(DEFAULT_TEST_TIMEOUT));
+        await().atMost(10, TimeUnit.SECONDS).untilAsserted(() -> {
+            assertTrue("Consumer not closed", consumer.closed());
+        });
+    }
+
+    /**
+     * Tests that {@link KafkaReceiver#receiveSnapshot()} consumes the records produced before
+     * the snapshot and completes.
+     */
+    @Test
+    public void receiveSnapshot() {
+        sendMessages(topic, 0, 20);
+        receiverOptions = receiverOptions.assignment(cluster.partitions(topic));
+        Flux<ReceiverRecord<Integer, String>> inboundFlux = new DefaultKafkaReceiver<>(consumerFactory, receiverOptions)
+                .receiveSnapshot();
+        StepVerifier.create(inboundFlux)
+                .expectNextCount(20)
+                .expectComplete()
+                .verify(Duration.ofMillis(DEFAULT_TEST_TIMEOUT));
+    }
+
+    /**
+     * Tests that {@link KafkaReceiver#receiveSnapshotThenTail()} emits the records of the snapshot
+     * and the records produced after the snapshot in separate inner Flux.
+     */
+    @Test
+    public void receiveSnapshotThenTail() {
+        sendMessages(topic, 0, 20);
+        receiverOptions = receiverOptions.assignment(cluster.partitions(topic));
+        Flux<Long> windows = new DefaultKafkaReceiver<>(consumerFactory, receiverOptions)
+                .receiveSnapshotThenTail()
+                .index()
+                .concatMap(window -> window.getT2().map(r -> window.getT1()));
+        StepVerifier.create(windows)
+                .expectNextSequence(Collections.nCopies(20, 0L))
+                .then(() -> sendMessages(topic, 20, 4))
+                .expectNextSequence(Collections.nCopies(4, 1L))
+                .thenCancel()
+                .verify(Duration.ofMillis(DEFAULT_TEST_TIMEOUT));
+    }
+
+    /**
+     * Tests that receiving a snapshot without a partition assignment fails.
+     */
+    @Test
+    public void receiveSnapshotRequiresAssignment() {
+        receiverOptions = receiverOptions.subscription(Collections.singleton(topic));
+        StepVerifier.create(new DefaultKafkaReceiver<>(consumerFactory, receiverOptions).receiveSnapshot())
+                .expectError(IllegalStateException.class)
+                .verify(Duration.ofMillis(DEFAULT_TEST_TIMEOUT));
+    }
+
+    /**
+     * Tests that a {@link KafkaTable} consumed through the receiver applies records and tombstones,
+     * is ready at the end of the snapshot, continues from its contents when it is restarted and
+     * seeks to the offsets of its checkpoint when it is created again.
+     */
+    @Test
+    public void kafkaTable() throws Exception {
+        Path checkpoint = Files.createTempFile("table", ".checkpoint");
+        Files.delete(checkpoint);
+        checkpoint.toFile().deleteOnExit();
+        receiverOptions = receiverOptions
+                .withKeyDeserializer(new IntegerDeserializer())
+                .withValueDeserializer(new StringDeserializer())
+                .assignment(cluster.partitions(topic));
+        sendMessages(topic, 0, 20);
+        cluster.appendMessage(new ProducerRecord<>(topic, 1, 3, null));
+        KafkaTable<Integer, String> table = new DefaultKafkaTable<>(consumerFactory, receiverOptions, new IntegerSerializer(), checkpoint);
+
+        Disposable changes = table.changes().subscribe();
+        table.ready().block(Duration.ofMillis(DEFAULT_TEST_TIMEOUT));
+        assertEquals(19, table.size());
+        assertNull(table.get(3));
+        assertEquals("Message-4", table.get(4));
+        table.checkpoint().block(Duration.ofMillis(DEFAULT_TEST_TIMEOUT));
+        changes.dispose();
+        await().atMost(10, TimeUnit.SECONDS).untilAsserted(() -> assertTrue("Consumer not closed", consumer.closed()));
+
+        // the restarted table continues from the records it applied before it stopped
+        sendMessages(topic, 20, 4);
+        cluster.appendMessage(new ProducerRecord<>(topic, 1, 5, null));
+        consumerFactory.addConsumer(new MockConsumer(cluster));
+        Map<Integer, List<Long>> expectedOffsets = new HashMap<>();
+        expectedOffsets.put(0, Arrays.asList(10L, 11L));
+        expectedOffsets.put(1, Arrays.asList(11L, 12L, 13L));
+        StepVerifier.create(table.changes().take(5).collectMultimap(ConsumerRecord::partition, ConsumerRecord::offset))
+                .assertNext(offsets -> assertEquals(expectedOffsets, offsets))
+                .expectComplete()
+                .verify(Duration.ofMillis(DEFAULT_TEST_TIMEOUT));
+        assertEquals(22, table.size());
+        assertNull(table.get(5));
+        assertEquals("Message-23", table.get(23));
+
+        // a new table is restored from the checkpoint and consumes the records that follow it
+        consumerFactory.addConsumer(new MockConsumer(cluster));
+        KafkaTable<Integer, String> restored = new DefaultKafkaTable<>(consumerFactory, receiverOptions, new IntegerSerializer(), checkpoint);
+        Map<Integer, List<Long>> restoredOffsets = new ConcurrentHashMap<>();
+        Disposable restoredChanges = restored.changes()
+                .subscribe(r -> restoredOffsets.computeIfAbsent(r.partition(), p -> new CopyOnWriteArrayList<>()).add(r.offset()));
+        restored.ready().block(Duration.ofMillis(DEFAULT_TEST_TIMEOUT));
+        assertEquals(expectedOffsets, restoredOffsets);
+        restoredChanges.dispose();
+        assertEquals(22, restored.size());
+        assertNull(restored.get(3));
+        assertNull(restored.get(5));
+        table.close();
+        restored.close();
+    }
+
+    /**
+     * Tests that {@link KafkaReceiver#receiveLazy()} closes the deserializers it created from the
+     * configured classes when the flux terminates.
+     */
+    @Test
+    public void receiveLazyClosesCreatedDeserializers() {
+        ParallelDeserializerTests.ClosingDeserializer.closed.set(0);
+        receiverOptions = receiverOptions
+                .consumerProperty(ConsumerConfig.KEY_DESERIALIZER_CLASS_CONFIG, IntegerDeserializer.class)
+                .consumerProperty(ConsumerConfig.VALUE_DESERIALIZER_CLASS_CONFIG, ParallelDeserializerTests.ClosingDeserializer.class)
+                .subscription(Collections.singleton(topic));
+        sendMessages(topic, 0, 5);
+        DefaultKafkaReceiver<Integer, String> receiver = new DefaultKafkaReceiver<>(consumerFactory, receiverOptions);
+
+        StepVerifier.create(receiver.receiveLazy().take(5).map(ConsumerRecord::value))
+                .expectNextCount(5)
+                .expectComplete()
+                .verify(Duration.ofMillis(DEFAULT_TEST_TIMEOUT));
+        assertEquals(1, ParallelDeserializerTests.ClosingDeserializer.closed.get());
+    }
+
     /**
      * Send and receive using wildcard subscription with group management.
      */
@@ -353,6 +557,24 @@ public class MockReceiverTest {
         verifyCommits(groupId, topic, 10);
     }
 
+    /**
+     * Tests that the per-partition in-flight limit does not pause at-most-once receives,
+     * whose records are not acknowledged.
+     */
+    @Test
+    public void atmostOnceIgnoresMaxInFlightPerPartition() {
+        receiverOptions = receiverOptions
+                .maxInFlightPerPartition(2)
+                .subscription(Collections.singleton(topic));
+        sendMessages(topic, 0, 20);
+        Flux<? extends ConsumerRecord<Integer, String>> inboundFlux = new DefaultKafkaReceiver<>(consumerFactory, receiverOptions)
+                .receiveAtmostOnce();
+        StepVerifier.create(inboundFlux.take(20))
+                .expectNextCount(20)
+                .expectComplete()
+                .verify(Duration.ofMillis(DEFAULT_TEST_TIMEOUT));
+    }
+
     /**
      * Tests {@link KafkaReceiver#receiveAtmostOnce()} with commit-ahead.
      */
@@ -430,6 +652,52 @@ public class MockReceiverTest {
             .verify(Duration.ofMillis(DEFAULT_TEST_TIMEOUT));
     }
 
+    /**
+     * Tests {@link KafkaReceiver#receiveAtmostOnceBatched()} good path without failures.
+     */
+    @Test
+    public void atmostOnceBatched() {
+        receiverOptions = receiverOptions
+                .subscription(Collections.singleton(topic));
+        sendMessages(topic, 0, 20);
+        Flux<? extends ConsumerRecord<Integer, String>> inboundFlux = new DefaultKafkaReceiver<>(consumerFactory, receiverOptions)
+                .receiveAtmostOnceBatched()
+                .filter(r -> cluster.committedOffset(groupId, topicPartition(r)) > r.offset());
+        StepVerifier.create(inboundFlux.take(10))
+            .expectNextCount(10)
+            .expectComplete()
+            .verify(Duration.ofMillis(DEFAULT_TEST_TIMEOUT));
+    }
+
+    /**
+     * Tests that offsets committed ahead of records of a batch that were not dispatched are
+     * committed again when {@link KafkaReceiver#receiveAtmostOnceBatched()} is cancelled.
+     */
+    @Test
+    public void atmostOnceBatchedUndoCommitAhead() {
+        receiverOptions = receiverOptions
+                .subscription(Collections.singleton(topic));
+        sendMessages(topic, 0, 20);
+        Map<TopicPartition, Long> dispatchedOffsets = new ConcurrentHashMap<>();
+        Flux<ConsumerRecord<Integer, String>> inboundFlux = new DefaultKafkaReceiver<>(consumerFactory, receiverOptions)
+                .receiveAtmostOnceBatched()
+                .doOnNext(r -> dispatchedOffsets.put(topicPartition(r), r.offset()));
+        StepVerifier.create(inboundFlux, 5)
+            .expectNextCount(5)
+            .thenCancel()
+            .verify(Duration.ofMillis(DEFAULT_TEST_TIMEOUT));
+        await().atMost(10, TimeUnit.SECONDS).untilAsserted(() -> {
+            assertTrue("Consumer closed", consumer.closed());
+        });
+        for (TopicPartition partition : cluster.partitions(topic)) {
+            Long dispatched = dispatchedOffsets.get(partition);
+            Long committed = cluster.committedOffset(groupId, partition);
+            // records of partitions without dispatched records are all delivered again
+            long expected = dispatched == null ? 0 : dispatched + 1;
+            assertEquals("Committed offset of " + partition, expected, committed == null ? 0 : committed.longValue());
+        }
+    }
+
     /**
      * Tests that messages are not redelivered if there are downstream message processing exceptions
      * with {@link KafkaReceiver#receiveAtmostOnce()}.
@@ -575,6 +843,222 @@ public class MockReceiverTest {
         }
     }
 
+    /**
+     * Tests that committing a batch from {@link KafkaReceiver#receiveBatch()} commits
+     * the last offset of each partition in the batch.
+     */
+    @Test
+    public void receiveBatch() {
+        receiverOptions = receiverOptions
+                .consumerProperty(ConsumerConfig.MAX_POLL_RECORDS_CONFIG, 4)
+                .subscription(Collections.singleton(topic));
+        sendMessages(topic, 0, 20);
+        Map<TopicPartition, Long> lastOffsets = new ConcurrentHashMap<>();
+        Flux<ReceiverBatch<Integer, String>> inboundFlux = new DefaultKafkaReceiver<>(consumerFactory, receiverOptions)
+                .receiveBatch()
+                .concatMap(batch -> {
+                    for (TopicPartition partition : batch.partitions()) {
+                        List<ConsumerRecord<Integer, String>> records = batch.records(partition);
+                        lastOffsets.put(partition, records.get(records.size() - 1).offset());
+                    }
+                    return batch.commit().thenReturn(batch);
+                });
+        StepVerifier.create(inboundFlux.map(ReceiverBatch::count).scan(0, Integer::sum).filter(n -> n >= 20).take(1))
+                .expectNext(20)
+                .expectComplete()
+                .verify(Duration.ofMillis(DEFAULT_TEST_TIMEOUT));
+        for (Map.Entry<TopicPartition, Long> entry : lastOffsets.entrySet()) {
+            Long committedOffset = cluster.committedOffset(groupId, entry.getKey());
+            assertEquals(entry.getValue() + 1, committedOffset.longValue());
+        }
+    }
+
+    /**
+     * Tests that batches from {@link KafkaReceiver#receiveBatch()} containing partitions
+     * without records are committed.
+     */
+    @Test
+    public void receiveBatchWithEmptyPartitions() {
+        receiverOptions = receiverOptions.subscription(Collections.singleton(topic));
+        TopicPartition partition = new TopicPartition(topic, 0);
+        sendMessagesToPartition(topic, 0, 0, 10);
+        Flux<Integer> inboundFlux = new DefaultKafkaReceiver<>(consumerFactory, receiverOptions)
+                .receiveBatch()
+                .concatMap(batch -> batch.commit().thenReturn(batch.count()));
+        StepVerifier.create(inboundFlux.scan(0, Integer::sum).filter(n -> n >= 10).take(1))
+                .expectNext(10)
+                .expectComplete()
+                .verify(Duration.ofMillis(DEFAULT_TEST_TIMEOUT));
+        assertEquals(10, cluster.committedOffset(groupId, partition).longValue());
+        for (TopicPartition other : cluster.partitions(topic)) {
+            if (!other.equals(partition))
+                assertNull(cluster.committedOffset(groupId, other));
+        }
+    }
+
+    /**
+     * Tests that with {@link ReceiverOptions#persistAckedOffsets(boolean)}, committed offsets
+     * are looked up only for the assigned partitions that receive records.
+     */
+    @Test
+    public void persistAckedOffsetsLooksUpPolledPartitionsOnly() {
+        receiverOptions = receiverOptions
+                .subscription(Collections.singleton(topic))
+                .maxDeferredCommits(100)
+                .persistAckedOffsets(true);
+        sendMessagesToPartition(topic, 0, 0, 10);
+        Flux<ReceiverRecord<Integer, String>> inboundFlux = new DefaultKafkaReceiver<>(consumerFactory, receiverOptions)
+                .receive()
+                .doOnNext(record -> record.receiverOffset().acknowledge());
+        StepVerifier.create(inboundFlux.take(10))
+                .expectNextCount(10)
+                .expectComplete()
+                .verify(Duration.ofMillis(DEFAULT_TEST_TIMEOUT));
+        assertTrue("Too few partitions to verify lookups", cluster.partitions(topic).size() > 1);
+        assertEquals(1, consumer.committedCount());
+    }
+
+    /**
+     * Tests that {@link KafkaReceiver#receivePerPartition()} emits one group per assigned
+     * partition containing only the records of that partition.
+     */
+    @Test
+    public void receivePerPartition() {
+        receiverOptions = receiverOptions.subscription(Collections.singleton(topic));
+        sendMessages(topic, 0, 20);
+        Set<TopicPartition> groups = new CopyOnWriteArraySet<>();
+        Flux<ReceiverRecord<Integer, String>> inboundFlux = new DefaultKafkaReceiver<>(consumerFactory, receiverOptions)
+                .receivePerPartition()
+                .doOnNext(group -> groups.add(group.key()))
+                .flatMap(group -> group.doOnNext(record -> {
+                    assertEquals(group.key(), record.receiverOffset().topicPartition());
+                    record.receiverOffset().acknowledge();
+                }))
+                .doOnNext(receivedMessages::add);
+        StepVerifier.create(inboundFlux.take(20))
+                .expectNextCount(20)
+                .expectComplete()
+                .verify(Duration.ofMillis(DEFAULT_TEST_TIMEOUT));
+        assertEquals(new HashSet<>(cluster.partitions(topic)), groups);
+        verifyMessages(20);
+    }
+
+    /**
+     * Tests that records of a partition whose group was cancelled, while the partition was
+     * paused by the group, are dispatched to a new group.
+     */
+    @Test
+    public void receivePerPartitionCancelledGroup() {
+        receiverOptions = receiverOptions.subscription(Collections.singleton(topic));
+        TopicPartition partition = new TopicPartition(topic, 0);
+        sendMessagesToPartition(topic, 0, 0, 10);
+        AtomicInteger groups = new AtomicInteger();
+        Flux<Integer> inboundFlux = new DefaultKafkaReceiver<>(consumerFactory, receiverOptions)
+                .receivePerPartition(4)
+                .filter(group -> group.key().equals(partition))
+                .doOnNext(group -> groups.incrementAndGet())
+                .flatMap(group -> group.take(1))
+                .map(ConsumerRecord::key);
+        StepVerifier.create(inboundFlux)
+                .expectNext(0)
+                .then(() -> sendMessagesToPartition(topic, 0, 10, 10))
+                .thenConsumeWhile(key -> key < 10)
+                .expectNextMatches(key -> key >= 10)
+                .thenCancel()
+                .verify(Duration.ofMillis(DEFAULT_TEST_TIMEOUT));
+        assertTrue("Group not recreated", groups.get() >= 2);
+    }
+
+    /**
+     * Tests that the consumers of a {@link KafkaReceiverPool} are created when the pool is
+     * subscribed to, started and closed when the pool is resized and all closed together
+     * when the flux terminates.
+     */
+    @Test
+    public void receiverPoolLifecycle() {
+        List<MockConsumer> consumers = Arrays.asList(consumer, new MockConsumer(cluster), new MockConsumer(cluster));
+        consumerFactory = new MockConsumer.Pool(consumers);
+        receiverOptions = receiverOptions.subscription(Collections.singleton(topic));
+        sendMessages(topic, 0, 10);
+        KafkaReceiverPool<Integer, String> pool = new DefaultKafkaReceiverPool<>(consumerFactory, receiverOptions, 2);
+        Disposable disposable = pool.receive()
+                .doOnNext(record -> record.receiverOffset().acknowledge())
+                .subscribe();
+        await().atMost(10, TimeUnit.SECONDS).untilAsserted(() ->
+                assertEquals(2, consumerFactory.consumersInUse().size()));
+
+        pool.resize(3);
+        await().atMost(10, TimeUnit.SECONDS).untilAsserted(() ->
+                assertEquals(3, consumerFactory.consumersInUse().size()));
+        assertEquals(3, pool.doOnConsumers(c -> c).count().block(Duration.ofSeconds(10)).intValue());
+
+        pool.resize(1);
+        await().atMost(10, TimeUnit.SECONDS).untilAsserted(() ->
+                assertEquals(2, consumers.stream().filter(MockConsumer::closed).count()));
+
+        disposable.dispose();
+        await().atMost(10, TimeUnit.SECONDS).untilAsserted(() ->
+                assertTrue(consumers.stream().allMatch(MockConsumer::closed)));
+    }
+
+    /**
+     * Tests that a {@link KafkaReceiverPool} rejects a second parallel receive while the consumers
+     * of the first one are running, and accepts a new one once they have stopped.
+     */
+    @Test
+    public void receiverPoolConcurrentParallelReceive() {
+        List<MockConsumer> consumers = Arrays.asList(consumer, new MockConsumer(cluster), new MockConsumer(cluster));
+        consumerFactory = new MockConsumer.Pool(consumers);
+        receiverOptions = receiverOptions.subscription(Collections.singleton(topic));
+        KafkaReceiverPool<Integer, String> pool = new DefaultKafkaReceiverPool<>(consumerFactory, receiverOptions, 2);
+        Disposable first = pool.receiveParallel().subscribe(record -> record.receiverOffset().acknowledge());
+        await().atMost(10, TimeUnit.SECONDS).untilAsserted(() ->
+                assertEquals(2, consumerFactory.consumersInUse().size()));
+
+        StepVerifier.create(pool.receiveParallel().sequential())
+                .expectError(IllegalStateException.class)
+                .verify(Duration.ofMillis(DEFAULT_TEST_TIMEOUT));
+        assertEquals(2, consumerFactory.consumersInUse().size());
+
+        first.dispose();
+        await().atMost(10, TimeUnit.SECONDS).untilAsserted(() ->
+                assertTrue(consumer.closed() && consumers.get(1).closed()));
+        pool.resize(1);
+        sendMessages(topic, 0, 2);
+        StepVerifier.create(pool.receiveParallel().sequential())
+                .expectNextCount(2)
+                .thenCancel()
+                .verify(Duration.ofMillis(DEFAULT_TEST_TIMEOUT));
+    }
+
+    /**
+     * Tests that a {@link KafkaReceiverPool} resized after its merged flux failed does not keep
+     * the members it could not start, so that the pool can receive again.
+     */
+    @Test
+    public void receiverPoolResizeAfterFailure() {
+        List<MockConsumer> consumers = Arrays.asList(consumer, new MockConsumer(cluster), new MockConsumer(cluster));
+        consumerFactory = new MockConsumer.Pool(consumers);
+        receiverOptions = receiverOptions
+                .subscription(Collections.singleton(topic))
+                .commitBatchSize(1);
+        consumer.addCommitException(new KafkaException("Boom"), 1);
+        sendMessages(topic, 0, 10);
+        KafkaReceiverPool<Integer, String> pool = new DefaultKafkaReceiverPool<>(consumerFactory, receiverOptions, 1);
+        StepVerifier.create(pool.receive()
+                    .doOnNext(record -> record.receiverOffset().acknowledge())
+                    .doOnError(e -> pool.resize(2)))
+                .thenConsumeWhile(record -> true)
+                .expectErrorMessage("Boom")
+                .verify(Duration.ofMillis(DEFAULT_TEST_TIMEOUT));
+        assertEquals(2, pool.size());
+
+        StepVerifier.create(pool.receive())
+                .expectNextCount(10)
+                .thenCancel()
+                .verify(Duration.ofMillis(DEFAULT_TEST_TIMEOUT));
+    }
+
     /**
      * Tests that acknowledged offsets are committed using the configured batch size.
      */
@@ -0,0 +1,98 @@
+/*
+ * Copyright (c) 2023 VMware Inc. or its affiliates, All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package reactor.kafka.receiver.internals;
+
+import org.apache.kafka.common.TopicPartition;
+import org.junit.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class OffHeapStoreTests {
+
+    @Test
+    public void putReplaceAndRemove() {
+        OffHeapStore store = new OffHeapStore();
+        store.put(bytes("a"), bytes("1"));
+        store.put(bytes("b"), bytes("2"));
+        store.put(bytes("a"), bytes("3"));
+        assertThat(store.size()).isEqualTo(2);
+        assertThat(store.get(bytes("a"))).isEqualTo(bytes("3"));
+        assertThat(store.get(bytes("c"))).isNull();
+
+        store.put(bytes("b"), null);
+        assertThat(store.get(bytes("b"))).isNull();
+        assertThat(store.remove(bytes("b"))).isFalse();
+        assertThat(store.remove(bytes("a"))).isTrue();
+        assertThat(store.size()).isZero();
+    }
+
+    @Test
+    public void matchesHashMapAcrossResizesAndCompactions() {
+        OffHeapStore store = new OffHeapStore(4096);
+        Map<String, String> expected = new HashMap<>();
+        Random random = new Random(1);
+        for (int i = 0; i < 100_000; i++) {
+            String key = "key" + random.nextInt(5000);
+            if (random.nextInt(4) == 0) {
+                assertThat(store.remove(bytes(key))).isEqualTo(expected.remove(key) != null);
+            } else {
+                store.put(bytes(key), bytes("value" + i));
+                expected.put(key, "value" + i);
+            }
+        }
+        assertThat(store.size()).isEqualTo(expected.size());
+        for (int i = 0; i < 5000; i++) {
+            String key = "key" + i;
+            byte[] value = store.get(bytes(key));
+            assertThat(value == null ? null : new String(value, StandardCharsets.UTF_8)).isEqualTo(expected.get(key));
+        }
+        // replaced and removed entries have been reclaimed
+        assertThat(store.allocatedBytes()).isLessThan(100_000L * 16);
+    }
+
+    @Test
+    public void checkpointRoundTrip() throws Exception {
+        Path file = Files.createTempFile("table", ".checkpoint");
+        OffHeapStore store = new OffHeapStore();
+        for (int i = 0; i < 100; i++) {
+            store.put(bytes("key" + i), bytes("value" + i));
+        }
+        Map<TopicPartition, Long> offsets = new HashMap<>();
+        offsets.put(new TopicPartition("table", 0), 60L);
+        offsets.put(new TopicPartition("table", 1), 40L);
+        TableCheckpoint.write(file, offsets, store);
+
+        OffHeapStore restored = new OffHeapStore();
+        assertThat(TableCheckpoint.read(file, restored)).isEqualTo(offsets);
+        assertThat(restored.size()).isEqualTo(100);
+        assertThat(restored.get(bytes("key42"))).isEqualTo(bytes("value42"));
+
+        Files.delete(file);
+        assertThat(TableCheckpoint.read(file, new OffHeapStore())).isEmpty();
+    }
+
+    private static byte[] bytes(String s) {
+        return s.getBytes(StandardCharsets.UTF_8);
+    }
+}
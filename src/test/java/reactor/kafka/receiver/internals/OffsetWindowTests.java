@@ -0,0 +1,124 @@
+/*
+ * Copyright (c) 2023 VMware Inc. or its affiliates, All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package reactor.kafka.receiver.internals;
+
+import org.junit.Test;
+
+import java.util.BitSet;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class OffsetWindowTests {
+
+    @Test
+    public void releasesContiguousAcks() {
+        OffsetWindow window = new OffsetWindow();
+        for (long offset = 10; offset < 14; offset++) {
+            window.add(offset);
+        }
+        assertThat(window.ack(13)).isTrue();
+        assertThat(window.ack(11)).isTrue();
+        assertThat(window.ack(11)).isFalse();
+        assertThat(window.deferredCount()).isEqualTo(2);
+        assertThat(window.release()).isEqualTo(-1);
+        assertThat(window.ack(10)).isTrue();
+        assertThat(window.release()).isEqualTo(12);
+        assertThat(window.deferredCount()).isEqualTo(1);
+        assertThat(window.pendingCount()).isEqualTo(1);
+        assertThat(window.ack(12)).isTrue();
+        assertThat(window.release()).isEqualTo(14);
+        assertThat(window.deferredCount()).isEqualTo(0);
+        assertThat(window.pendingCount()).isEqualTo(0);
+    }
+
+    @Test
+    public void skipsGapsAndGrows() {
+        OffsetWindow window = new OffsetWindow();
+        window.add(0);
+        window.add(5);
+        for (long offset = 6; offset < 10_000; offset++) {
+            window.add(offset);
+        }
+        for (long offset = 9_999; offset >= 5; offset--) {
+            assertThat(window.ack(offset)).isTrue();
+        }
+        assertThat(window.ack(3)).isFalse();
+        assertThat(window.release()).isEqualTo(-1);
+        assertThat(window.ack(0)).isTrue();
+        assertThat(window.release()).isEqualTo(10_000);
+        assertThat(window.deferredCount()).isEqualTo(0);
+    }
+
+    @Test
+    public void rewindDropsAcks() {
+        OffsetWindow window = new OffsetWindow();
+        for (long offset = 10; offset < 14; offset++) {
+            assertThat(window.add(offset)).isZero();
+        }
+        window.ack(11);
+        window.ack(13);
+        assertThat(window.deferredCount()).isEqualTo(2);
+        assertThat(window.add(5)).isEqualTo(2);
+        assertThat(window.deferredCount()).isZero();
+        assertThat(window.pendingCount()).isEqualTo(1);
+        assertThat(window.base()).isEqualTo(5);
+    }
+
+    @Test
+    public void ackedBitmapSpansWordsAndRingWrap() {
+        OffsetWindow window = new OffsetWindow();
+        for (long offset = 0; offset < 512; offset++) {
+            window.add(offset);
+        }
+        window.ackRange(0, 299);
+        assertThat(window.release()).isEqualTo(300);
+        // offsets from 512 wrap to the start of the ring
+        for (long offset = 512; offset < 800; offset++) {
+            window.add(offset);
+        }
+        for (long offset = 301; offset < 800; offset++) {
+            if (offset % 3 == 0 || offset % 7 == 0) {
+                window.ack(offset);
+            }
+        }
+        for (long from : new long[] { 0, 300, 301, 363, 500, 777 }) {
+            for (int maxBits : new int[] { 1, 63, 64, 65, 200, 1000 }) {
+                BitSet expected = new BitSet();
+                for (long offset = Math.max(from, 301); offset < Math.min(800, from + maxBits); offset++) {
+                    if (offset % 3 == 0 || offset % 7 == 0) {
+                        expected.set((int) (offset - from));
+                    }
+                }
+                assertThat(window.acked(from, maxBits)).as("from %d, maxBits %d", from, maxBits).isEqualTo(expected);
+            }
+        }
+    }
+
+    @Test
+    public void restoredOffsetIsReleasedAgain() {
+        OffsetWindow window = new OffsetWindow();
+        window.add(0);
+        window.add(1);
+        window.ack(0);
+        assertThat(window.release()).isEqualTo(1);
+        window.restore(1);
+        assertThat(window.deferredCount()).isEqualTo(1);
+        assertThat(window.release()).isEqualTo(1);
+        assertThat(window.deferredCount()).isEqualTo(0);
+    }
+
+}
@@ -28,10 +28,12 @@ import org.junit.Test;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import reactor.core.Disposable;
+import reactor.core.publisher.Mono;
 import reactor.core.scheduler.Schedulers;
 import reactor.kafka.receiver.KafkaReceiver;
 import reactor.kafka.receiver.ReceiverOptions;
 import reactor.kafka.receiver.ReceiverRecord;
+import reactor.test.StepVerifier;
 
 import java.time.Duration;
 import java.util.ArrayList;
@@ -42,6 +44,8 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
@@ -549,4 +553,281 @@ public class OutOfOrderCommitsTests {
         disposable.dispose();
     }
 
+    @Test
+    @SuppressWarnings({ "rawtypes", "unchecked" })
+    public void keyOrdered() throws InterruptedException {
+        ConsumerFactory cf = mock(ConsumerFactory.class);
+        Consumer consumer = mock(Consumer.class);
+        given(cf.createConsumer(any())).willReturn(consumer);
+        TopicPartition tp0 = new TopicPartition("foo", 0);
+        Set<TopicPartition> assigned = Collections.singleton(tp0);
+        willAnswer(inv -> {
+            ConsumerRebalanceListener listener = inv.getArgument(1);
+            listener.onPartitionsAssigned(Collections.singletonList(tp0));
+            return null;
+        }).given(consumer).subscribe(any(Collection.class), any(ConsumerRebalanceListener.class));
+        CountDownLatch commitLatch = new CountDownLatch(1);
+        Map<TopicPartition, OffsetAndMetadata> commits = new HashMap<>();
+        commits.put(tp0, new OffsetAndMetadata(6L));
+        willAnswer(inv -> {
+            if (commits.equals(inv.getArgument(0))) {
+                commitLatch.countDown();
+            }
+            return null;
+        }).given(consumer).commitAsync(any(), any());
+        final Map<TopicPartition, List<ConsumerRecord<Integer, String>>> records = new HashMap<>();
+        records.put(tp0, Arrays.asList(
+            new ConsumerRecord<>("foo", 0, 0L, 1, "a0"),
+            new ConsumerRecord<>("foo", 0, 1L, 2, "b0"),
+            new ConsumerRecord<>("foo", 0, 2L, 1, "a1"),
+            new ConsumerRecord<>("foo", 0, 3L, 2, "b1"),
+            new ConsumerRecord<>("foo", 0, 4L, 1, "a2"),
+            new ConsumerRecord<>("foo", 0, 5L, 2, "b2")));
+        ConsumerRecords<Integer, String> consumerRecords = new ConsumerRecords<>(records);
+        AtomicBoolean first = new AtomicBoolean(true);
+        willAnswer(inv -> {
+            Thread.sleep(10);
+            if (first.getAndSet(false)) {
+                return consumerRecords;
+            }
+            return ConsumerRecords.empty();
+        }).given(consumer).poll(any(Long.class));
+        given(consumer.assignment()).willReturn(assigned);
+        ReceiverOptions<Object, Object> options = ReceiverOptions.create()
+            .maxDeferredCommits(100)
+            .commitInterval(Duration.ofMillis(50))
+            .subscription(Collections.singletonList("foo"));
+        KafkaReceiver receiver = KafkaReceiver.create(cf, options);
+        Map<Object, List<Object>> processed = new ConcurrentHashMap<>();
+        Disposable disposable = receiver.receiveKeyOrdered(2, rec -> {
+            ReceiverRecord<?, ?> record = (ReceiverRecord<?, ?>) rec;
+            // key 1 records are slower than key 2 records, so completions are out of order
+            Duration delay = Duration.ofMillis(Integer.valueOf(1).equals(record.key()) ? 50 : 5);
+            return Mono.delay(delay)
+                .doOnNext(d -> processed.computeIfAbsent(record.key(), k -> new CopyOnWriteArrayList<>())
+                    .add(record.value()));
+        })
+            .subscribe();
+        assertTrue(commitLatch.await(10, TimeUnit.SECONDS));
+        assertEquals(Arrays.asList("a0", "a1", "a2"), processed.get(1));
+        assertEquals(Arrays.asList("b0", "b1", "b2"), processed.get(2));
+        disposable.dispose();
+    }
+
+    @Test
+    public void keyOrderedRequiresDeferredCommits() {
+        ReceiverOptions<Object, Object> options = ReceiverOptions.create()
+            .subscription(Collections.singletonList("foo"));
+        KafkaReceiver<Object, Object> receiver = KafkaReceiver.create(mock(ConsumerFactory.class), options);
+        StepVerifier.create(receiver.receiveKeyOrdered(2, rec -> Mono.empty()))
+            .expectError(IllegalStateException.class)
+            .verify(Duration.ofSeconds(10));
+    }
+
+    @Test
+    public void ackedOffsetsAboveGapAreRestoredFromMetadata() {
+        TopicPartition tp0 = new TopicPartition("foo", 0);
+        Map<TopicPartition, List<ConsumerRecord<Integer, String>>> records = new HashMap<>();
+        List<ConsumerRecord<Integer, String>> partitionRecords = new ArrayList<>();
+        for (long offset = 0; offset < 5; offset++) {
+            partitionRecords.add(new ConsumerRecord<>("foo", 0, offset, 1, "r" + offset));
+        }
+        records.put(tp0, partitionRecords);
+        ConsumerRecords<Integer, String> consumerRecords = new ConsumerRecords<>(records);
+
+        CommittableBatch batch = new CommittableBatch();
+        batch.outOfOrderCommits = true;
+        batch.persistAckedOffsets = true;
+        batch.addUncommitted(consumerRecords);
+        assertEquals(5, batch.skipRestoredAcks(consumerRecords).count());
+        batch.updateOffset(tp0, 0);
+        batch.updateOffset(tp0, 2);
+        batch.updateOffset(tp0, 4);
+        OffsetAndMetadata committed = batch.getAndClearOffsets().offsets().get(tp0);
+        assertEquals(1, committed.offset());
+
+        // after a restart, the records acknowledged above the gap are skipped and acknowledged
+        CommittableBatch restarted = new CommittableBatch();
+        restarted.outOfOrderCommits = true;
+        restarted.persistAckedOffsets = true;
+        restarted.restoreAcks(tp0, committed);
+        ConsumerRecords<Integer, String> redelivered = new ConsumerRecords<>(
+            Collections.singletonMap(tp0, partitionRecords.subList(1, 5)));
+        restarted.addUncommitted(redelivered);
+        List<Long> delivered = new ArrayList<>();
+        restarted.skipRestoredAcks(redelivered).forEach(record -> delivered.add(record.offset()));
+        assertEquals(Arrays.asList(1L, 3L), delivered);
+        assertEquals(2, restarted.inFlight(tp0));
+        restarted.updateOffset(tp0, 1);
+        restarted.updateOffset(tp0, 3);
+        assertEquals(5, restarted.getAndClearOffsets().offsets().get(tp0).offset());
+    }
+
+    @Test
+    public void seekBackDropsDeferredAcks() {
+        TopicPartition tp0 = new TopicPartition("foo", 0);
+        List<ConsumerRecord<Integer, String>> partitionRecords = new ArrayList<>();
+        for (long offset = 0; offset < 5; offset++) {
+            partitionRecords.add(new ConsumerRecord<>("foo", 0, offset, 1, "r" + offset));
+        }
+        CommittableBatch batch = new CommittableBatch();
+        batch.outOfOrderCommits = true;
+        batch.addUncommitted(new ConsumerRecords<>(Collections.singletonMap(tp0, partitionRecords)));
+        batch.updateOffset(tp0, 2);
+        batch.updateOffset(tp0, 3);
+        assertEquals(2, batch.deferredCount());
+
+        // the consumer seeks back, the acknowledgements of the records received again are dropped
+        batch.addUncommitted(new ConsumerRecords<>(Collections.singletonMap(tp0, partitionRecords.subList(1, 5))));
+        assertEquals(0, batch.deferredCount());
+        assertEquals(0, batch.batchSize());
+        batch.updateOffset(tp0, 1);
+        assertEquals(1, batch.deferredCount());
+        assertEquals(2, batch.getAndClearOffsets().offsets().get(tp0).offset());
+        assertEquals(0, batch.deferredCount());
+    }
+
+    @Test
+    public void revokeRacingAcksKeepsDeferredCount() throws InterruptedException {
+        TopicPartition tp0 = new TopicPartition("foo", 0);
+        List<ConsumerRecord<Integer, String>> partitionRecords = new ArrayList<>();
+        for (long offset = 0; offset < 1000; offset++) {
+            partitionRecords.add(new ConsumerRecord<>("foo", 0, offset, 1, "r" + offset));
+        }
+        ConsumerRecords<Integer, String> records = new ConsumerRecords<>(Collections.singletonMap(tp0, partitionRecords));
+        CommittableBatch batch = new CommittableBatch();
+        batch.outOfOrderCommits = true;
+        for (int round = 0; round < 100; round++) {
+            batch.addUncommitted(records);
+            CountDownLatch started = new CountDownLatch(1);
+            Thread acker = new Thread(() -> {
+                started.countDown();
+                for (long offset = 0; offset < 1000; offset++) {
+                    batch.updateOffset(tp0, offset);
+                }
+            });
+            acker.start();
+            started.await();
+            batch.partitionsRevoked(Collections.singleton(tp0));
+            acker.join();
+            // acknowledgements of the revoked window are not counted
+            assertEquals(0, batch.deferredCount());
+        }
+    }
+
+    @Test
+    public void inOrderCommitResetsBatchSize() {
+        TopicPartition tp0 = new TopicPartition("foo", 0);
+        TopicPartition tp1 = new TopicPartition("foo", 1);
+        CommittableBatch batch = new CommittableBatch();
+        batch.updateOffset(tp0, 0);
+        batch.updateOffset(tp0, 1);
+        batch.updateOffset(tp1, 0);
+        batch.updateOffset(tp1, 0);
+        assertEquals(3, batch.batchSize());
+
+        assertEquals(2, batch.getAndClearOffsets().offsets().size());
+        assertEquals(0, batch.batchSize());
+        batch.updateOffset(tp0, 2);
+        assertEquals(1, batch.batchSize());
+        assertEquals(3, batch.getAndClearOffsets().offsets().get(tp0).offset());
+        assertEquals(0, batch.batchSize());
+    }
+
+    @Test
+    public void restoredAcksOfPartitionWithoutRecords() {
+        TopicPartition tp0 = new TopicPartition("foo", 0);
+        TopicPartition tp1 = new TopicPartition("foo", 1);
+        List<ConsumerRecord<Integer, String>> partitionRecords = new ArrayList<>();
+        for (long offset = 0; offset < 3; offset++) {
+            partitionRecords.add(new ConsumerRecord<>("foo", 1, offset, 1, "r" + offset));
+        }
+        CommittableBatch batch = new CommittableBatch();
+        batch.outOfOrderCommits = true;
+        batch.persistAckedOffsets = true;
+        batch.addUncommitted(new ConsumerRecords<>(Collections.singletonMap(tp1, partitionRecords)));
+        batch.updateOffset(tp1, 2);
+        OffsetAndMetadata committed = batch.getAndClearOffsets().offsets().get(tp1);
+
+        CommittableBatch restarted = new CommittableBatch();
+        restarted.outOfOrderCommits = true;
+        restarted.persistAckedOffsets = true;
+        restarted.restoreAcks(tp1, committed);
+        Map<TopicPartition, List<ConsumerRecord<Integer, String>>> records = new HashMap<>();
+        records.put(tp0, Collections.singletonList(new ConsumerRecord<>("foo", 0, 0, 1, "r0")));
+        records.put(tp1, Collections.emptyList());
+        ConsumerRecords<Integer, String> consumerRecords = new ConsumerRecords<>(records);
+        restarted.addUncommitted(consumerRecords);
+        assertEquals(1, restarted.skipRestoredAcks(consumerRecords).count());
+    }
+
+    @Test
+    public void emptyPartitionRecordsAreIgnored() {
+        TopicPartition tp0 = new TopicPartition("foo", 0);
+        TopicPartition tp1 = new TopicPartition("foo", 1);
+        Map<TopicPartition, List<ConsumerRecord<Integer, String>>> records = new HashMap<>();
+        List<ConsumerRecord<Integer, String>> partitionRecords = new ArrayList<>();
+        for (long offset = 0; offset < 3; offset++) {
+            partitionRecords.add(new ConsumerRecord<>("foo", 0, offset, 1, "r" + offset));
+        }
+        records.put(tp0, partitionRecords);
+        records.put(tp1, Collections.emptyList());
+
+        CommittableBatch batch = new CommittableBatch();
+        batch.addUncommitted(new ConsumerRecords<>(records));
+        assertEquals(3, batch.inFlight(tp0));
+        assertEquals(0, batch.inFlight(tp1));
+    }
+
+    @Test
+    public void filterSkipsPartitionWithoutRecords() {
+        TopicPartition tp0 = new TopicPartition("foo", 0);
+        TopicPartition tp1 = new TopicPartition("foo", 1);
+        Map<TopicPartition, List<ConsumerRecord<Integer, String>>> records = new HashMap<>();
+        records.put(tp0, Arrays.asList(
+            new ConsumerRecord<>("foo", 0, 0, 1, "drop"),
+            new ConsumerRecord<>("foo", 0, 1, 1, "keep")));
+        records.put(tp1, Collections.emptyList());
+        ConsumerRecords<Integer, String> consumerRecords = new ConsumerRecords<>(records);
+
+        CommittableBatch batch = new CommittableBatch();
+        batch.addUncommitted(consumerRecords);
+        ConsumerRecords<Integer, String> delivered = batch.skip(consumerRecords, record -> record.value().equals("drop"));
+        assertEquals(1, delivered.count());
+        assertEquals(1, batch.getAndClearOffsets().offsets().get(tp0).offset());
+    }
+
+    @Test
+    public void filteredRecordsAreAcknowledged() {
+        TopicPartition tp0 = new TopicPartition("foo", 0);
+        List<ConsumerRecord<Integer, String>> partitionRecords = new ArrayList<>();
+        for (long offset = 0; offset < 6; offset++) {
+            partitionRecords.add(new ConsumerRecord<>("foo", 0, offset, 1, offset % 3 == 1 ? "keep" : "drop"));
+        }
+        ConsumerRecords<Integer, String> consumerRecords =
+            new ConsumerRecords<>(Collections.singletonMap(tp0, partitionRecords));
+
+        CommittableBatch batch = new CommittableBatch();
+        batch.outOfOrderCommits = true;
+        batch.addUncommitted(consumerRecords);
+        List<Long> delivered = new ArrayList<>();
+        batch.skip(consumerRecords, record -> record.value().equals("drop"))
+            .forEach(record -> delivered.add(record.offset()));
+        assertEquals(Arrays.asList(1L, 4L), delivered);
+        assertEquals(2, batch.inFlight(tp0));
+        batch.updateOffset(tp0, 4);
+        assertEquals(1, batch.getAndClearOffsets().offsets().get(tp0).offset());
+        batch.updateOffset(tp0, 1);
+        // the filtered records after the last delivered record are committed too
+        assertEquals(6, batch.getAndClearOffsets().offsets().get(tp0).offset());
+
+        // with in order commits, only the filtered records before the first delivered record are acknowledged
+        CommittableBatch inOrder = new CommittableBatch();
+        inOrder.addUncommitted(consumerRecords);
+        assertEquals(2, inOrder.skip(consumerRecords, record -> record.value().equals("drop")).count());
+        assertEquals(1, inOrder.getAndClearOffsets().offsets().get(tp0).offset());
+        inOrder.updateOffset(tp0, 4);
+        assertEquals(5, inOrder.getAndClearOffsets().offsets().get(tp0).offset());
+    }
+
 }
@@ -0,0 +1,157 @@
+/*
+ * Copyright (c) 2023 VMware Inc. or its affiliates, All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package reactor.kafka.receiver.internals;
+
+import org.apache.kafka.clients.consumer.ConsumerConfig;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.consumer.ConsumerRecords;
+import org.apache.kafka.common.TopicPartition;
+import org.apache.kafka.common.errors.SerializationException;
+import org.apache.kafka.common.serialization.IntegerDeserializer;
+import org.apache.kafka.common.serialization.IntegerSerializer;
+import org.apache.kafka.common.serialization.StringDeserializer;
+import org.junit.Test;
+import reactor.core.publisher.Flux;
+import reactor.core.scheduler.Schedulers;
+import reactor.kafka.receiver.ReceiverOptions;
+import reactor.test.StepVerifier;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class ParallelDeserializerTests {
+
+    private final TopicPartition tp0 = new TopicPartition("test", 0);
+
+    private final TopicPartition tp1 = new TopicPartition("test", 1);
+
+    @Test
+    public void deserializesInOrderPerPartition() {
+        ParallelDeserializer<String, Integer> deserializer = new ParallelDeserializer<>(options(), record -> { });
+        int count = ParallelDeserializer.CHUNK_SIZE * 3 + 1;
+
+        StepVerifier.create(deserializer.deserialize(Flux.just(serialized(count, -1), serialized(count, -1))))
+            .assertNext(records -> assertOrdered(records, count))
+            .assertNext(records -> assertOrdered(records, count))
+            .expectComplete()
+            .verify(Duration.ofSeconds(10));
+    }
+
+    @Test
+    public void reportsFailuresPerRecord() {
+        List<Long> failed = new CopyOnWriteArrayList<>();
+        List<Long> skipped = new CopyOnWriteArrayList<>();
+        ReceiverOptions<String, Integer> options = options()
+            .deserializationErrorHandler((record, e) -> failed.add(record.offset()));
+        ParallelDeserializer<String, Integer> deserializer =
+            new ParallelDeserializer<>(options, record -> skipped.add(record.offset()));
+
+        StepVerifier.create(deserializer.deserialize(Flux.just(serialized(10, 4))))
+            .assertNext(records -> {
+                assertThat(records.count()).isEqualTo(18);
+                List<Long> offsets = new ArrayList<>();
+                records.records(tp0).forEach(record -> offsets.add(record.offset()));
+                assertThat(offsets).doesNotContain(4L).hasSize(9);
+            })
+            .expectComplete()
+            .verify(Duration.ofSeconds(10));
+        assertThat(failed).containsExactly(4L, 4L);
+        assertThat(skipped).containsExactly(4L, 4L);
+    }
+
+    @Test
+    public void failsWithoutErrorHandler() {
+        ParallelDeserializer<String, Integer> deserializer = new ParallelDeserializer<>(options(), record -> { });
+
+        StepVerifier.create(deserializer.deserialize(Flux.just(serialized(10, 4))))
+            .expectError(SerializationException.class)
+            .verify(Duration.ofSeconds(10));
+    }
+
+    @Test
+    public void closesDeserializersCreatedFromClasses() {
+        ClosingDeserializer.closed.set(0);
+        ClosingDeserializer configured = new ClosingDeserializer();
+        ReceiverOptions<String, String> options = ReceiverOptions.<String, String>create()
+            .consumerProperty(ConsumerConfig.KEY_DESERIALIZER_CLASS_CONFIG, ClosingDeserializer.class)
+            .withValueDeserializer(configured)
+            .deserializationScheduler(Schedulers.parallel());
+        ParallelDeserializer<String, String> deserializer = new ParallelDeserializer<>(options, record -> { });
+
+        deserializer.close();
+        assertThat(ClosingDeserializer.closed.get()).isEqualTo(1);
+        assertThat(configured.isClosed).isFalse();
+    }
+
+    private ReceiverOptions<String, Integer> options() {
+        return ReceiverOptions.<String, Integer>create()
+            .withKeyDeserializer(new StringDeserializer())
+            .withValueDeserializer(new IntegerDeserializer())
+            .deserializationScheduler(Schedulers.parallel());
+    }
+
+    /**
+     * Returns <code>count</code> records of each partition whose values are their offsets, with an
+     * invalid value at offset <code>invalid</code>.
+     */
+    private ConsumerRecords<byte[], byte[]> serialized(int count, long invalid) {
+        IntegerSerializer serializer = new IntegerSerializer();
+        Map<TopicPartition, List<ConsumerRecord<byte[], byte[]>>> records = new HashMap<>();
+        for (TopicPartition partition : new TopicPartition[] { tp0, tp1 }) {
+            List<ConsumerRecord<byte[], byte[]>> partitionRecords = new ArrayList<>();
+            for (long offset = 0; offset < count; offset++) {
+                byte[] value = offset == invalid ? new byte[] { 1 } : serializer.serialize("test", (int) offset);
+                partitionRecords.add(new ConsumerRecord<>("test", partition.partition(), offset,
+                    ("key" + offset).getBytes(), value));
+            }
+            records.put(partition, partitionRecords);
+        }
+        return new ConsumerRecords<>(records);
+    }
+
+    private void assertOrdered(ConsumerRecords<String, Integer> records, int count) {
+        for (TopicPartition partition : new TopicPartition[] { tp0, tp1 }) {
+            List<ConsumerRecord<String, Integer>> partitionRecords = records.records(partition);
+            assertThat(partitionRecords).hasSize(count);
+            for (int i = 0; i < count; i++) {
+                assertThat(partitionRecords.get(i).offset()).isEqualTo(i);
+                assertThat(partitionRecords.get(i).key()).isEqualTo("key" + i);
+                assertThat(partitionRecords.get(i).value()).isEqualTo(i);
+            }
+        }
+    }
+
+    public static class ClosingDeserializer extends StringDeserializer {
+
+        static final AtomicInteger closed = new AtomicInteger();
+
+        boolean isClosed;
+
+        @Override
+        public void close() {
+            isClosed = true;
+            closed.incrementAndGet();
+        }
+    }
+}
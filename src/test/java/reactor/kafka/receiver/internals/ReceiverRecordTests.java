@@ -17,11 +17,25 @@
 package reactor.kafka.receiver.internals;
 
 import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.common.errors.SerializationException;
 import org.apache.kafka.common.record.TimestampType;
+import org.apache.kafka.common.serialization.Deserializer;
+import org.apache.kafka.common.serialization.StringDeserializer;
 import org.junit.Test;
+import reactor.kafka.receiver.ReceiverOffset;
 import reactor.kafka.receiver.ReceiverRecord;
+import reactor.kafka.receiver.ReceiverRecordView;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import static org.mockito.Mockito.mock;
 
 /**
  * @author Gary Russell
@@ -39,4 +53,69 @@ public class ReceiverRecordTests {
         assertEquals(42L, rr.checksum());
     }
 
+    @Test
+    public void testViewCreatesOffsetLazily() {
+        ConsumerRecord<String, String> record = new ConsumerRecord<>("foo", 0, 3L, "key", "value");
+        ReceiverOffset offset = mock(ReceiverOffset.class);
+        AtomicInteger created = new AtomicInteger();
+        ReceiverRecordView<String, String> view = new ReceiverRecordView<>(record, r -> {
+            created.incrementAndGet();
+            return offset;
+        });
+        assertSame(record, view.record());
+        assertEquals("value", view.value());
+        assertEquals(0, created.get());
+        assertSame(offset, view.receiverOffset());
+        assertSame(offset, view.receiverOffset());
+        assertEquals(1, created.get());
+    }
+
+    @Test
+    public void testLazyRecordDeserializesOnFirstAccess() {
+        ConsumerRecord<byte[], byte[]> record = new ConsumerRecord<>("foo", 1, 3L,
+            "key".getBytes(StandardCharsets.UTF_8), "value".getBytes(StandardCharsets.UTF_8));
+        AtomicInteger deserialized = new AtomicInteger();
+        Deserializer<String> deserializer = new StringDeserializer() {
+            @Override
+            public String deserialize(String topic, byte[] data) {
+                deserialized.incrementAndGet();
+                return super.deserialize(topic, data);
+            }
+        };
+        ReceiverOffset offset = mock(ReceiverOffset.class);
+        LazyReceiverRecord<String, String> lazy = new LazyReceiverRecord<>(record, offset, deserializer, deserializer);
+        assertEquals("foo", lazy.topic());
+        assertEquals(1, lazy.partition());
+        assertEquals(3L, lazy.offset());
+        assertSame(offset, lazy.receiverOffset());
+        assertFalse(lazy.isDeserialized());
+        assertEquals(0, deserialized.get());
+
+        assertEquals("value", lazy.value());
+        assertEquals("value", lazy.value());
+        assertEquals(1, deserialized.get());
+        assertEquals("key", lazy.key());
+        assertEquals(2, deserialized.get());
+        assertTrue(lazy.isDeserialized());
+    }
+
+    @Test
+    public void testLazyRecordDeserializationError() {
+        ConsumerRecord<byte[], byte[]> record = new ConsumerRecord<>("foo", 0, 0L, null, new byte[] {1});
+        Deserializer<String> failing = new StringDeserializer() {
+            @Override
+            public String deserialize(String topic, byte[] data) {
+                throw new IllegalArgumentException("bad data");
+            }
+        };
+        LazyReceiverRecord<String, String> lazy = new LazyReceiverRecord<>(record, null, failing, failing);
+        assertNull(lazy.key());
+        try {
+            lazy.value();
+            fail("Expected SerializationException");
+        } catch (SerializationException e) {
+            assertTrue(e.getCause() instanceof IllegalArgumentException);
+        }
+    }
+
 }
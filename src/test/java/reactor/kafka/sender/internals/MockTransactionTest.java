@@ -27,6 +27,8 @@ import org.junit.Test;
 import reactor.core.Disposable;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+import reactor.kafka.mock.Message;
 import reactor.kafka.mock.MockCluster;
 import reactor.kafka.mock.MockConsumer;
 import reactor.kafka.mock.MockProducer;
@@ -42,21 +44,32 @@ import reactor.kafka.sender.SenderOptions;
 import reactor.kafka.sender.SenderRecord;
 import reactor.kafka.sender.SenderResult;
 import reactor.kafka.sender.TransactionManager;
+import reactor.kafka.sender.TxWindowSpec;
 import reactor.kafka.util.TestUtils;
 import reactor.test.StepVerifier;
 
 import java.time.Duration;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
 import java.util.Queue;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.junit.Assert.assertEquals;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
 import static reactor.kafka.AbstractKafkaTest.DEFAULT_TEST_TIMEOUT;
 
 public class MockTransactionTest {
@@ -137,6 +150,78 @@ public class MockTransactionTest {
         assertThat(producer.sendOffsetsCount).as("sendOffsetsCount").isEqualTo(transactionCount);
     }
 
+    /**
+     * Tests that polls are grouped into transactions bounded by record count, with the
+     * last partial transaction closed by its maximum duration.
+     */
+    @Test
+    public void groupedTransactionalReceiveAndSend() throws Exception {
+        int count = 600;
+        int transactionMaxRecords = 50;
+        sendMessages(srcTopic, 0, count);
+
+        receiver = new DefaultKafkaReceiver<Integer, String>(consumerFactory, receiverOptions
+                .transactionMaxRecords(transactionMaxRecords)
+                .transactionMaxDuration(Duration.ofMillis(200)));
+        Flux<SenderResult<Integer>> flux = receiver.receiveExactlyOnce(sender.transactionManager())
+                .concatMap(f -> sendAndCommit(destTopic, f, -1));
+
+        Disposable disposable = flux.subscribe();
+        TestUtils.waitUntil("Some offsets not committed, committed=", this::committedCount,
+            c -> committedCount() == count, count, Duration.ofMillis(10000));
+
+        disposable.dispose();
+        verifyTransaction(count, count);
+
+        assertThat(producer.abortCount).as("abortCount").isZero();
+        assertThat(producer.sendOffsetsCount).as("sendOffsetsCount")
+            .isPositive()
+            .isLessThanOrEqualTo(count / transactionMaxRecords);
+    }
+
+    /**
+     * Tests that a transaction grouped by record count is closed by the default maximum duration
+     * when the topic becomes idle.
+     */
+    @Test
+    public void groupedTransactionClosedWhenIdle() throws Exception {
+        int count = 620;
+        sendMessages(srcTopic, 0, count);
+
+        receiver = new DefaultKafkaReceiver<Integer, String>(consumerFactory, receiverOptions
+                .transactionMaxRecords(50));
+        Flux<SenderResult<Integer>> flux = receiver.receiveExactlyOnce(sender.transactionManager())
+                .concatMap(f -> sendAndCommit(destTopic, f, -1));
+
+        Disposable disposable = flux.subscribe();
+        TestUtils.waitUntil("Some offsets not committed, committed=", this::committedCount,
+            c -> committedCount() == count, count, Duration.ofMillis(10000));
+
+        disposable.dispose();
+        verifyTransaction(count, count);
+    }
+
+    /**
+     * Tests that the per-partition in-flight limit does not pause exactly-once receives,
+     * whose records are not acknowledged.
+     */
+    @Test
+    public void transactionalReceiveIgnoresMaxInFlightPerPartition() throws Exception {
+        int count = 200;
+        sendMessages(srcTopic, 0, count);
+
+        receiver = new DefaultKafkaReceiver<Integer, String>(consumerFactory, receiverOptions.maxInFlightPerPartition(2));
+        Flux<SenderResult<Integer>> flux = receiver.receiveExactlyOnce(sender.transactionManager())
+                .concatMap(f -> sendAndCommit(destTopic, f, -1));
+
+        Disposable disposable = flux.subscribe();
+        TestUtils.waitUntil("Some offsets not committed, committed=", this::committedCount,
+            c -> committedCount() == count, count, Duration.ofMillis(10000));
+
+        disposable.dispose();
+        verifyTransaction(count, count);
+    }
+
     @Test
     public void transactionBeginCommit() throws Exception {
         int count = 600;
@@ -254,6 +339,175 @@ public class MockTransactionTest {
         assertEquals(3, producer.sendOffsetsCount);
     }
 
+    /**
+     * Tests that transactions sent by a pool of transactional producers are emitted in
+     * transaction order and that the producers of the pool use suffixed transactional ids.
+     */
+    @Test
+    public void pooledTransactionsInOrder() {
+        List<MockProducer> producers = pooledSender(3);
+
+        StepVerifier.create(sender.sendTransactionally(transactions(10, 10, -1))
+                .concatMap(results -> results.map(SenderResult::correlationMetadata).collectList()))
+                    .recordWith(ArrayList::new)
+                    .expectNextCount(10)
+                    .consumeRecordedWith(transactions -> {
+                        int key = 0;
+                        for (List<Integer> transaction : transactions) {
+                            assertThat(transaction).hasSize(10).startsWith(key);
+                            key += 10;
+                        }
+                    })
+                    .expectComplete()
+                    .verify(Duration.ofMillis(DEFAULT_TEST_TIMEOUT));
+
+        assertThat(producers).allMatch(p -> p.commitCount > 0);
+        assertThat(producers.stream().mapToInt(p -> p.commitCount).sum()).isEqualTo(10);
+        assertThat(producers.stream().map(p -> p.senderOptions().producerProperty("transactional.id")))
+            .containsExactly("pooled", "pooled-1", "pooled-2");
+    }
+
+    /**
+     * Tests that the records of a transaction are sent after the records of the previous transaction
+     * have been acknowledged, even if the producer of the previous transaction is slow.
+     */
+    @Test
+    public void pooledTransactionSendsAwaitPreviousAcks() {
+        List<MockProducer> producers = pooledSender(2);
+        producers.get(0).sendDelay(100);
+
+        StepVerifier.create(sender.sendTransactionally(transactions(4, 5, -1)).flatMap(Function.identity()))
+                    .expectNextCount(20)
+                    .expectComplete()
+                    .verify(Duration.ofMillis(DEFAULT_TEST_TIMEOUT));
+
+        List<Integer> keys = cluster.log(new TopicPartition(destTopic, 0)).stream()
+            .map(Message::key)
+            .collect(Collectors.toList());
+        assertThat(keys).hasSize(20).isSorted();
+    }
+
+    /**
+     * Tests that a failed transaction is aborted and that no new transactions are started after it.
+     */
+    @Test
+    public void pooledTransactionAbort() {
+        int producerCount = 2;
+        List<MockProducer> producers = pooledSender(producerCount);
+        int failedTransaction = 1;
+
+        StepVerifier.create(sender.sendTransactionally(transactions(10, 5, failedTransaction)).flatMap(Function.identity()))
+                    .thenConsumeWhile(result -> true)
+                    .expectErrorMessage("Test exception")
+                    .verify(Duration.ofMillis(DEFAULT_TEST_TIMEOUT));
+
+        assertThat(producers.stream().mapToInt(p -> p.abortCount).sum()).isEqualTo(1);
+        assertThat(producers.stream().mapToInt(p -> p.beginCount).sum())
+            .isLessThanOrEqualTo(failedTransaction + producerCount + 1);
+        assertThat(cluster.log(new TopicPartition(destTopic, 0)))
+            .allMatch(message -> message.key() < (failedTransaction + producerCount + 1) * 5);
+    }
+
+    /**
+     * Tests that a pipelined transaction whose sends are done before the commit of the previous
+     * transaction is committed only after that commit, and is aborted when that commit fails.
+     */
+    @Test
+    public void pooledTransactionCommitsAfterPreviousCommit() throws Exception {
+        TransactionManager failing = mock(TransactionManager.class);
+        given(failing.begin()).willReturn(Mono.empty());
+        given(failing.commit()).willReturn(Mono.delay(Duration.ofMillis(100)).then(Mono.error(new RuntimeException("Commit failed"))));
+        given(failing.abort()).willReturn(Mono.empty());
+        TransactionManager next = mock(TransactionManager.class);
+        given(next.begin()).willReturn(Mono.empty());
+        given(next.commit()).willReturn(Mono.empty());
+        given(next.abort()).willReturn(Mono.empty());
+
+        Sinks.Empty<Void> failingSends = Sinks.empty();
+        Sinks.One<Boolean> failingCommitted = Sinks.one();
+        Mono<Flux<SenderResult<Integer>>> failingTransaction = DefaultKafkaSender.pipelinedTransaction(failing,
+            Flux.empty(), Mono.empty(), failingSends, Mono.just(true), failingCommitted);
+        Mono<Flux<SenderResult<Integer>>> nextTransaction = DefaultKafkaSender.pipelinedTransaction(next,
+            Flux.empty(), failingSends.asMono(), Sinks.empty(), failingCommitted.asMono(), Sinks.one());
+
+        CompletableFuture<Flux<SenderResult<Integer>>> nextResults = nextTransaction.toFuture();
+        StepVerifier.create(failingTransaction)
+                    .expectErrorMessage("Commit failed")
+                    .verify(Duration.ofMillis(DEFAULT_TEST_TIMEOUT));
+        assertThat(nextResults.get(DEFAULT_TEST_TIMEOUT, TimeUnit.MILLISECONDS)).isNull();
+
+        verify(failing).abort();
+        verify(next, never()).commit();
+        verify(next).abort();
+    }
+
+    /**
+     * Tests that a sender with a pool of producers sends one sequence of transactions at a time
+     * and that closing the sender closes all producers of the pool.
+     */
+    @Test
+    public void pooledTransactionsConcurrentSendAndClose() {
+        List<MockProducer> producers = pooledSender(2);
+        Sinks.Many<Flux<SenderRecord<Integer, String, Integer>>> pending = Sinks.many().unicast().onBackpressureBuffer();
+
+        Disposable first = sender.sendTransactionally(pending.asFlux()).subscribe();
+        StepVerifier.create(sender.sendTransactionally(transactions(1, 5, -1)))
+                    .expectError(IllegalStateException.class)
+                    .verify(Duration.ofMillis(DEFAULT_TEST_TIMEOUT));
+
+        pending.tryEmitNext(transactions(1, 5, -1).blockFirst());
+        pending.tryEmitComplete();
+        TestUtils.waitUntil("Transaction not committed, committed=",
+            () -> cluster.log(new TopicPartition(destTopic, 0)).size(), c -> c.log(new TopicPartition(destTopic, 0)).size() == 5,
+            cluster, Duration.ofMillis(10000));
+        first.dispose();
+
+        StepVerifier.create(sender.sendTransactionally(transactions(1, 5, -1)).flatMap(Function.identity()))
+                    .expectNextCount(5)
+                    .expectComplete()
+                    .verify(Duration.ofMillis(DEFAULT_TEST_TIMEOUT));
+
+        sender.close();
+        assertThat(producers).allMatch(MockProducer::isClosed);
+    }
+
+    /**
+     * Tests that transactions windowed by bytes are committed when the acknowledged bytes of their
+     * records reach the limit, with a single transactional producer and with a pool of producers.
+     * Records are emitted slower than they are acknowledged, so that no record is in flight when
+     * the limit is reached.
+     */
+    @Test
+    public void windowedTransactionsCommitAtByteLimit() {
+        for (int producerCount : Arrays.asList(1, 2)) {
+            List<MockProducer> producers = pooledSender(producerCount);
+            // keys and values of 4 and 10 bytes
+            Flux<SenderRecord<Integer, String, Integer>> records = Flux.range(10, 30)
+                .delayElements(Duration.ofMillis(20))
+                .map(key -> SenderRecord.create(destTopic, 0, null, key, "Message-" + key, key));
+
+            StepVerifier.create(sender.sendTransactionallyWindowed(records, TxWindowSpec.create().maxBytes(70))
+                    .concatMap(results -> results.collectList()))
+                        .recordWith(ArrayList::new)
+                        .expectNextCount(6)
+                        .consumeRecordedWith(transactions -> {
+                            int key = 10;
+                            for (List<SenderResult<Integer>> transaction : transactions) {
+                                assertThat(transaction.stream().mapToInt(r -> r.recordMetadata().serializedKeySize()
+                                    + r.recordMetadata().serializedValueSize()).sum()).isEqualTo(70);
+                                assertThat(transaction.get(0).correlationMetadata()).isEqualTo(key);
+                                key += 5;
+                            }
+                        })
+                        .expectComplete()
+                        .verify(Duration.ofMillis(DEFAULT_TEST_TIMEOUT));
+
+            assertThat(producers.stream().mapToInt(p -> p.commitCount).sum()).isEqualTo(6);
+            assertThat(producers.stream().mapToInt(p -> p.abortCount).sum()).isZero();
+        }
+        assertThat(cluster.log(new TopicPartition(destTopic, 0))).hasSize(60);
+    }
+
     private void sendMessages(String topic, int startIndex, int count) {
         int partitions = cluster.cluster().partitionCountForTopic(topic);
         for (int i = 0; i < count; i++) {
@@ -287,6 +541,15 @@ public class MockTransactionTest {
         }
     }
 
+    private long committedCount() {
+        long committed = 0;
+        for (int i = 0; i < partitions; i++) {
+            Long offset = cluster.committedOffset(groupId, new TopicPartition(srcTopic, i));
+            committed += offset == null ? 0 : offset;
+        }
+        return committed;
+    }
+
     private TopicPartition topicPartition(ConsumerRecord<?, ?> record) {
         return new TopicPartition(record.topic(), record.partition());
     }
@@ -305,6 +568,29 @@ public class MockTransactionTest {
         return SenderRecord.create(destTopic, record.partition(), null, record.key(), record.value(), record.key());
     }
 
+    private List<MockProducer> pooledSender(int producerCount) {
+        List<MockProducer> producers = new ArrayList<>();
+        for (int i = 0; i < producerCount; i++) {
+            producers.add(new MockProducer(cluster));
+        }
+        sender.close();
+        SenderOptions<Integer, String> senderOptions = SenderOptions.<Integer, String>create()
+            .producerProperty("transactional.id", "pooled")
+            .transactionalProducers(producerCount);
+        sender = new DefaultKafkaSender<>(new Pool(producers), senderOptions);
+        return producers;
+    }
+
+    private Flux<Flux<SenderRecord<Integer, String, Integer>>> transactions(int count, int size, int failedTransaction) {
+        return Flux.range(0, count).map(transaction -> {
+            Flux<SenderRecord<Integer, String, Integer>> records = Flux.range(transaction * size, size)
+                .map(key -> SenderRecord.create(destTopic, 0, null, key, "Message-" + key, key));
+            return transaction == failedTransaction
+                ? records.concatWith(Flux.error(new RuntimeException("Test exception")))
+                : records;
+        });
+    }
+
     private Flux<SenderResult<Integer>> sendAndCommit(String destTopic, Flux<ConsumerRecord<Integer, String>> flux, int failureKey) {
         return sender.send(flux.map(r -> {
             if (r.key() == failureKey)
@@ -0,0 +1,117 @@
+/*
+ * Copyright (c) 2023 VMware Inc. or its affiliates, All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package reactor.kafka.sender.internals;
+
+import org.apache.kafka.clients.producer.RecordMetadata;
+import org.apache.kafka.common.TopicPartition;
+import org.junit.Test;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Sinks;
+import reactor.core.scheduler.Schedulers;
+import reactor.kafka.sender.SenderRecord;
+import reactor.kafka.sender.SenderResult;
+import reactor.kafka.sender.TxWindowSpec;
+import reactor.test.StepVerifier;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class TransactionWindowsTest {
+
+    private final TopicPartition partition = new TopicPartition("test", 0);
+
+    @Test
+    public void closesByRecordCount() {
+        TransactionWindows<Integer, String, Integer> windows =
+            new TransactionWindows<>(TxWindowSpec.create().maxRecords(4), Schedulers.parallel());
+
+        List<List<Integer>> transactions = windows.windows(Flux.range(0, 10).map(this::record))
+            .concatMap(window -> window.map(SenderRecord::correlationMetadata).collectList())
+            .collectList()
+            .block(Duration.ofSeconds(10));
+        assertThat(transactions).hasSize(3);
+        assertThat(transactions.get(0)).containsExactly(0, 1, 2, 3);
+        assertThat(transactions.get(2)).containsExactly(8, 9);
+    }
+
+    @Test
+    public void closesByDuration() {
+        TransactionWindows<Integer, String, Integer> windows =
+            new TransactionWindows<>(TxWindowSpec.create().maxDuration(Duration.ofMillis(100)), Schedulers.parallel());
+        Sinks.Many<SenderRecord<Integer, String, Integer>> records = Sinks.many().unicast().onBackpressureBuffer();
+
+        StepVerifier.create(windows.windows(records.asFlux())
+                .concatMap(window -> window.map(SenderRecord::correlationMetadata).collectList()))
+            .then(() -> {
+                records.tryEmitNext(record(0));
+                records.tryEmitNext(record(1));
+            })
+            .expectNext(Arrays.asList(0, 1))
+            .then(() -> {
+                records.tryEmitNext(record(2));
+                records.tryEmitComplete();
+            })
+            .expectNext(Collections.singletonList(2))
+            .expectComplete()
+            .verify(Duration.ofSeconds(10));
+    }
+
+    @Test
+    public void closesByAcknowledgedBytes() {
+        TransactionWindows<Integer, String, Integer> windows =
+            new TransactionWindows<>(TxWindowSpec.create().maxBytes(20), Schedulers.parallel());
+        Sinks.Many<SenderRecord<Integer, String, Integer>> records = Sinks.many().unicast().onBackpressureBuffer();
+
+        StepVerifier.create(windows.windows(records.asFlux())
+                .concatMap(window -> window
+                    .doOnNext(r -> windows.acknowledged(result(r)))
+                    .map(SenderRecord::correlationMetadata)
+                    .collectList()))
+            .then(() -> {
+                for (int i = 0; i < 3; i++) {
+                    records.tryEmitNext(record(i));
+                }
+            })
+            .expectNext(Arrays.asList(0, 1))
+            .then(records::tryEmitComplete)
+            .expectNext(Collections.singletonList(2))
+            .expectComplete()
+            .verify(Duration.ofSeconds(10));
+    }
+
+    @Test
+    public void rejectsInvalidLimits() {
+        assertThatThrownBy(() -> TxWindowSpec.create().maxRecords(-1)).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> TxWindowSpec.create().maxDuration(Duration.ZERO)).isInstanceOf(IllegalArgumentException.class);
+        assertThat(TxWindowSpec.create().isBounded()).isFalse();
+        assertThat(TxWindowSpec.create().maxBytes(1).isBounded()).isTrue();
+    }
+
+    private SenderRecord<Integer, String, Integer> record(int i) {
+        return SenderRecord.create(partition.topic(), partition.partition(), null, i, "Message-" + i, i);
+    }
+
+    private SenderResult<Integer> result(SenderRecord<Integer, String, Integer> record) {
+        RecordMetadata metadata = new RecordMetadata(partition, 0, record.correlationMetadata(), 0, 0L, 4, 6);
+        return new Response<>(metadata, null, record.correlationMetadata());
+    }
+}